@@ -0,0 +1,75 @@
+package com.snw.benchmark;
+
+import com.snw.domain.FinancialEntity;
+import com.snw.service.DeltaAggregator;
+import com.snw.util.StringLongMap;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.stream.Collectors.groupingBy;
+
+/**
+ * Per-user aggregation of a batch: the former group-by-then-sum over {@code BigDecimal},
+ * the single-pass {@link DeltaAggregator} on a reused map and its fork-join variant.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class AggregationBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    private int batchSize;
+
+    @Param({"10", "1000", "100000"})
+    private int users;
+
+    private List<FinancialEntity> records;
+
+    private StringLongMap deltas;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        records = BenchmarkLedger.batch(batchSize, users);
+        deltas = new StringLongMap();
+    }
+
+    @Benchmark
+    public Map<String, BigDecimal> groupByThenSum() {
+        Map<String, BigDecimal> sums = new HashMap<>();
+        records.stream().collect(groupingBy(FinancialEntity::getUser)).forEach((user, userRecords) -> {
+            BigDecimal amount = BigDecimal.ZERO;
+            for (FinancialEntity record : userRecords) {
+                switch (record.getStatus()) {
+                    case CREDITOR:
+                        amount = amount.add(record.getAmount());
+                        break;
+                    case DEBTOR:
+                        amount = amount.subtract(record.getAmount());
+                        break;
+                }
+            }
+            sums.put(user, amount);
+        });
+        return sums;
+    }
+
+    @Benchmark
+    public StringLongMap singlePass() {
+        deltas.clear();
+        DeltaAggregator.aggregateInto(records, deltas);
+        return deltas;
+    }
+
+    @Benchmark
+    public StringLongMap forkJoin() {
+        return DeltaAggregator.aggregateParallel(records);
+    }
+}
@@ -0,0 +1,130 @@
+package com.snw.benchmark;
+
+import com.snw.WalletApplication;
+import com.snw.domain.FinancialEntity;
+import com.snw.domain.enumeration.AccountingStatus;
+import com.snw.domain.enumeration.LedgerIdStrategy;
+import com.snw.domain.id.LedgerIds;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Starts the wallet application (without the web layer) against a private in-memory H2 database
+ * and seeds its ledger, so every benchmark trial begins with a ledger of a known size.
+ */
+public final class BenchmarkLedger {
+
+    public static final int LEDGER_USERS = 1000;
+
+    // Small enough to keep every seeded user far below the 1,000,000 boundary
+    public static final BigDecimal SEED_AMOUNT = new BigDecimal("0.10");
+
+    private static final int SEED_CHUNK = 10_000;
+
+    private BenchmarkLedger() {
+    }
+
+    public static ConfigurableApplicationContext start(Map<String, Object> properties) {
+        return start(WebApplicationType.NONE, properties);
+    }
+
+    public static ConfigurableApplicationContext start(WebApplicationType webApplicationType,
+                                                       Map<String, Object> properties,
+                                                       Class<?>... sources) {
+        Map<String, Object> defaults = new HashMap<>();
+        defaults.put("spring.datasource.url", "jdbc:h2:mem:bench-" + UUID.randomUUID()
+                + ";DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE;LOCK_TIMEOUT=10000");
+        defaults.put("spring.jpa.show-sql", "false");
+        defaults.put("spring.h2.console.enabled", "false");
+        defaults.put("logging.level.root", "WARN");
+        defaults.putAll(properties);
+
+        // Command line arguments, default properties would be overridden by application.yml
+        String[] arguments = defaults.entrySet().stream()
+                .map(property -> "--" + property.getKey() + "=" + property.getValue())
+                .toArray(String[]::new);
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(WalletApplication.class)
+                .sources(sources)
+                .web(webApplicationType)
+                .run(arguments);
+
+        verify(context, defaults);
+        return context;
+    }
+
+    /**
+     * Fails the trial when a benchmark parameter did not reach the application, its results would measure
+     * the configuration of application.yml instead.
+     */
+    private static void verify(ConfigurableApplicationContext context, Map<String, Object> properties) {
+        properties.forEach((key, expected) -> {
+            String actual = context.getEnvironment().getProperty(key);
+            if (!String.valueOf(expected).equals(actual)) {
+                context.close();
+                throw new IllegalStateException("Benchmark property " + key + " is " + actual + ", not " + expected);
+            }
+        });
+    }
+
+    /**
+     * Inserts {@code ledgerSize} CREDITOR records spread over {@link #LEDGER_USERS} users
+     * and the matching wallet rows.
+     */
+    public static void seed(ConfigurableApplicationContext context, int ledgerSize, LedgerIdStrategy idStrategy) {
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+        TransactionTemplate transaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+
+        for (int offset = 0; offset < ledgerSize; offset += SEED_CHUNK) {
+            int from = offset;
+            int to = Math.min(ledgerSize, offset + SEED_CHUNK);
+            List<Object[]> rows = new ArrayList<>(to - from);
+
+            for (int index = from; index < to; index++) {
+                rows.add(new Object[]{LedgerIds.next(idStrategy),
+                        AccountingStatus.CREDITOR.name(), user(index), SEED_AMOUNT});
+            }
+
+            transaction.executeWithoutResult(status -> jdbc.batchUpdate(
+                    "INSERT INTO wallet_address (id, accounting_status, user, amount, created_at, seq) " +
+                            "VALUES (?, ?, ?, ?, CURRENT_TIMESTAMP(), NEXT VALUE FOR wallet_ledger_seq)", rows));
+        }
+
+        transaction.executeWithoutResult(status -> jdbc.update(
+                "INSERT INTO wallet_wallet (user, credit, version) " +
+                        "SELECT user, SUM(amount), 0 FROM wallet_address GROUP BY user"));
+    }
+
+    public static String user(int index) {
+        return "user-" + (index % LEDGER_USERS);
+    }
+
+    /**
+     * Builds a batch over {@code users} distinct users, the first record of each user is a credit
+     * and the following ones alternate, so balances never drop below the seeded amount.
+     */
+    public static List<FinancialEntity> batch(int batchSize, int users) {
+        List<FinancialEntity> records = new ArrayList<>(batchSize);
+
+        for (int index = 0; index < batchSize; index++) {
+            records.add(FinancialEntity.builder()
+                    .user(user(index % users))
+                    .status((index / users) % 2 == 0 ? AccountingStatus.CREDITOR : AccountingStatus.DEBTOR)
+                    .amount(BigDecimal.ONE.setScale(2))
+                    .build());
+        }
+
+        return records;
+    }
+}
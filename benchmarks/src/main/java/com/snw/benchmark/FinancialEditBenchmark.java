@@ -0,0 +1,142 @@
+package com.snw.benchmark;
+
+import com.snw.domain.FinancialEntity;
+import com.snw.domain.enumeration.LedgerIdStrategy;
+import com.snw.domain.id.LedgerIds;
+import com.snw.repository.FinancialRepository;
+import com.snw.service.FinancialService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single record edits and deletes (operations/s). The {@code lock*} benchmarks are the statements of
+ * {@code FinancialService} (one SELECT ... FOR UPDATE, one UPDATE or DELETE), the {@code readThenLock*} ones the
+ * former read, lock and write through the persistence context. {@code updateById} and {@code delete} add the
+ * cache, audit and checkpoint work of the service. Every delete inserts its record first, in its own transaction.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class FinancialEditBenchmark {
+
+    private static final String INSERT = "INSERT INTO wallet_address (id, accounting_status, user, amount, " +
+            "created_at, seq) VALUES (?, 'CREDITOR', ?, ?, CURRENT_TIMESTAMP(), NEXT VALUE FOR wallet_ledger_seq)";
+
+    @Param({"100000"})
+    private int ledgerSize;
+
+    private ConfigurableApplicationContext context;
+
+    private FinancialService financialService;
+
+    private FinancialRepository financialRepository;
+
+    private JdbcTemplate jdbc;
+
+    private TransactionTemplate transaction;
+
+    private final List<String> ids = new ArrayList<>();
+
+    private final List<String> users = new ArrayList<>();
+
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkLedger.start(Map.of());
+        BenchmarkLedger.seed(context, ledgerSize, LedgerIdStrategy.TIME_ORDERED);
+        financialService = context.getBean(FinancialService.class);
+        financialRepository = context.getBean(FinancialRepository.class);
+        jdbc = context.getBean(JdbcTemplate.class);
+        transaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        jdbc.query("SELECT id, user FROM wallet_address", row -> {
+            ids.add(row.getString("id"));
+            users.add(row.getString("user"));
+        });
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    // Records are rewritten with their seeded values, balances stay the same whatever the number of invocations
+    private int nextRecord() {
+        next = (next + 1) % ids.size();
+        return next;
+    }
+
+    private String insert() {
+        String id = LedgerIds.next(LedgerIdStrategy.TIME_ORDERED);
+        transaction.executeWithoutResult(status ->
+                jdbc.update(INSERT, id, BenchmarkLedger.user(id.hashCode() & Integer.MAX_VALUE),
+                        BenchmarkLedger.SEED_AMOUNT));
+        return id;
+    }
+
+    @Benchmark
+    public int lockThenUpdate() {
+        int record = nextRecord();
+        return transaction.execute(status -> {
+            financialRepository.lock(ids.get(record));
+            return financialRepository.updateLocked(ids.get(record), users.get(record), BenchmarkLedger.SEED_AMOUNT);
+        });
+    }
+
+    @Benchmark
+    public FinancialEntity readThenLockThenUpdate() {
+        int record = nextRecord();
+        return transaction.execute(status -> {
+            FinancialEntity domain = financialRepository.findById(ids.get(record)).orElseThrow();
+            financialRepository.lock(ids.get(record));
+            domain.setAmount(BenchmarkLedger.SEED_AMOUNT);
+            domain.setUser(users.get(record));
+            return financialRepository.saveAndFlush(domain);
+        });
+    }
+
+    @Benchmark
+    public FinancialEntity updateById() {
+        int record = nextRecord();
+        return financialService.updateById(ids.get(record), FinancialEntity.builder()
+                .user(users.get(record))
+                .amount(BenchmarkLedger.SEED_AMOUNT)
+                .build());
+    }
+
+    @Benchmark
+    public int lockThenDelete() {
+        String id = insert();
+        return transaction.execute(status -> {
+            financialRepository.lock(id);
+            return financialRepository.deleteLocked(id);
+        });
+    }
+
+    @Benchmark
+    public void readThenLockThenDelete() {
+        String id = insert();
+        transaction.executeWithoutResult(status -> {
+            FinancialEntity domain = financialRepository.findById(id).orElseThrow();
+            financialRepository.lock(id);
+            financialRepository.delete(domain);
+            financialRepository.flush();
+        });
+    }
+
+    @Benchmark
+    public void delete() {
+        financialService.delete(insert());
+    }
+}
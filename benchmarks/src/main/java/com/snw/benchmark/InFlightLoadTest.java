@@ -0,0 +1,125 @@
+package com.snw.benchmark;
+
+import com.snw.config.VirtualThreads;
+import com.snw.domain.enumeration.LedgerIdStrategy;
+import com.snw.domain.enumeration.ThreadMode;
+import com.snw.service.WalletService;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Not a JMH benchmark: fires {@code concurrency} requests at once at a balance read that blocks for
+ * {@code latencyMillis} first (standing in for a lock or a slow query), once per thread mode, and reports
+ * how many of them were in flight together and how long the whole wave took.
+ * <p>
+ * {@code java -cp target/benchmarks.jar com.snw.benchmark.InFlightLoadTest [concurrency] [latencyMillis]},
+ * the virtual thread mode needs a Java 21 runtime and is skipped otherwise.
+ */
+public final class InFlightLoadTest {
+
+    private static final int TOMCAT_MAX_THREADS = 200;
+
+    private InFlightLoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int concurrency = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int latencyMillis = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+
+        System.out.printf("%-10s %12s %10s %12s %12s %10s%n",
+                "mode", "concurrency", "latency", "peak", "elapsed", "req/s");
+        run(ThreadMode.PLATFORM, concurrency, latencyMillis);
+        if (VirtualThreads.isSupported()) {
+            run(ThreadMode.VIRTUAL, concurrency, latencyMillis);
+        } else {
+            System.out.println("VIRTUAL    skipped, needs a Java 21 runtime");
+        }
+    }
+
+    private static void run(ThreadMode mode, int concurrency, int latencyMillis) throws Exception {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("server.port", "0");
+        properties.put("server.tomcat.threads.max", TOMCAT_MAX_THREADS);
+        properties.put("server.tomcat.max-connections", concurrency * 2);
+        properties.put("server.tomcat.accept-count", concurrency);
+        properties.put("wallet.threads.mode", mode.name());
+
+        try (ConfigurableApplicationContext context = BenchmarkLedger.start(WebApplicationType.SERVLET, properties,
+                SlowBalanceController.class)) {
+            BenchmarkLedger.seed(context, BenchmarkLedger.LEDGER_USERS, LedgerIdStrategy.TIME_ORDERED);
+
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(30)).build();
+            SlowBalanceController controller = context.getBean(SlowBalanceController.class);
+
+            // Warm up the connection handling and the balance path once
+            client.send(request(port, 0, 0), HttpResponse.BodyHandlers.discarding());
+            controller.peak.set(0);
+
+            long start = System.nanoTime();
+            List<CompletableFuture<HttpResponse<Void>>> responses = new ArrayList<>(concurrency);
+            for (int index = 0; index < concurrency; index++) {
+                responses.add(client.sendAsync(request(port, index, latencyMillis),
+                        HttpResponse.BodyHandlers.discarding()));
+            }
+            long failed = responses.stream().map(CompletableFuture::join).filter(response -> response.statusCode() != 200)
+                    .count();
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+            System.out.printf("%-10s %12d %8dms %12d %10dms %10.0f%s%n", mode, concurrency, latencyMillis,
+                    controller.peak.get(), elapsedMillis, concurrency * 1000.0 / elapsedMillis,
+                    failed == 0 ? "" : "  (" + failed + " failed)");
+        }
+    }
+
+    private static HttpRequest request(int port, int index, int latencyMillis) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/load/balance/"
+                        + BenchmarkLedger.user(index) + "?latencyMillis=" + latencyMillis))
+                .timeout(Duration.ofMinutes(5))
+                .build();
+    }
+
+    @RestController
+    public static class SlowBalanceController {
+
+        private final WalletService walletService;
+
+        private final AtomicInteger inFlight = new AtomicInteger();
+
+        private final AtomicInteger peak = new AtomicInteger();
+
+        public SlowBalanceController(WalletService walletService) {
+            this.walletService = walletService;
+        }
+
+        @GetMapping("/load/balance/{user}")
+        public BigDecimal balance(@PathVariable String user, @RequestParam int latencyMillis)
+                throws InterruptedException {
+            peak.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(latencyMillis);
+                return walletService.getByUser(user).getCredit();
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.snw.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.snw.controller.dto.FinancialDto;
+import com.snw.domain.enumeration.AccountingStatus;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class JacksonBenchmark {
+
+    @Param({"100", "10000"})
+    private int size;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private ObjectWriter writer;
+
+    private ObjectReader reader;
+
+    private List<FinancialDto> dtos;
+
+    private byte[] json;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dtos = new ArrayList<>(size);
+
+        for (int index = 0; index < size; index++) {
+            dtos.add(FinancialDto.builder()
+                    .status(index % 2 == 0 ? AccountingStatus.CREDITOR : AccountingStatus.DEBTOR)
+                    .user(BenchmarkLedger.user(index))
+                    .amount(new BigDecimal("12.50"))
+                    .build());
+        }
+
+        writer = mapper.writerFor(new TypeReference<List<FinancialDto>>() {});
+        reader = mapper.readerFor(new TypeReference<List<FinancialDto>>() {});
+        json = writer.writeValueAsBytes(dtos);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        return writer.writeValueAsBytes(dtos);
+    }
+
+    @Benchmark
+    public List<FinancialDto> deserialize() throws IOException {
+        return reader.readValue(json);
+    }
+}
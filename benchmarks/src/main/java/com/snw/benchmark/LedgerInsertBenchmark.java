@@ -0,0 +1,64 @@
+package com.snw.benchmark;
+
+import com.snw.domain.FinancialEntity;
+import com.snw.domain.enumeration.LedgerIdStrategy;
+import com.snw.repository.FinancialRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ledger insert throughput (records/s) on top of an already large ledger, per id strategy.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 5, time = 10)
+public class LedgerInsertBenchmark {
+
+    private static final int RECORDS_PER_OPERATION = 1000;
+
+    @Param({"1000000"})
+    private int ledgerSize;
+
+    @Param({"UUID2", "TIME_ORDERED"})
+    private LedgerIdStrategy idStrategy;
+
+    @Param({"1", "50"})
+    private int jdbcBatchSize;
+
+    private ConfigurableApplicationContext context;
+
+    private FinancialRepository financialRepository;
+
+    private TransactionTemplate transaction;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkLedger.start(Map.of(
+                "wallet.ledger.id-strategy", idStrategy.name(),
+                "spring.jpa.properties.hibernate.jdbc.batch_size", jdbcBatchSize));
+        BenchmarkLedger.seed(context, ledgerSize, idStrategy);
+        financialRepository = context.getBean(FinancialRepository.class);
+        transaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS_PER_OPERATION)
+    public List<FinancialEntity> saveAll() {
+        List<FinancialEntity> records = BenchmarkLedger.batch(RECORDS_PER_OPERATION, BenchmarkLedger.LEDGER_USERS);
+        return transaction.execute(status -> financialRepository.saveAll(records));
+    }
+}
@@ -0,0 +1,72 @@
+package com.snw.benchmark;
+
+import com.snw.controller.dto.FinancialDto;
+import com.snw.controller.mapper.FinancialMapper;
+import com.snw.controller.mapper.FinancialMapperImpl;
+import com.snw.controller.mapper.WalletMapper;
+import com.snw.controller.mapper.WalletMapperImpl;
+import com.snw.controller.model.FinancialModel;
+import com.snw.controller.model.WalletModel;
+import com.snw.domain.FinancialEntity;
+import com.snw.domain.WalletEntity;
+import com.snw.domain.enumeration.AccountingStatus;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class MapperBenchmark {
+
+    @Param({"100", "10000"})
+    private int size;
+
+    private final FinancialMapper financialMapper = new FinancialMapperImpl();
+
+    private final WalletMapper walletMapper = new WalletMapperImpl();
+
+    private List<FinancialDto> dtos;
+
+    private List<FinancialEntity> entities;
+
+    private List<WalletEntity> wallets;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dtos = new ArrayList<>(size);
+        wallets = new ArrayList<>(size);
+
+        for (int index = 0; index < size; index++) {
+            dtos.add(FinancialDto.builder()
+                    .status(AccountingStatus.CREDITOR)
+                    .user(BenchmarkLedger.user(index))
+                    .amount(new BigDecimal("12.50"))
+                    .build());
+            wallets.add(new WalletEntity("user-" + index, new BigDecimal("1000.00")));
+        }
+
+        entities = financialMapper.toEntity(dtos);
+    }
+
+    @Benchmark
+    public List<FinancialEntity> financialDtoToEntity() {
+        return financialMapper.toEntity(dtos);
+    }
+
+    @Benchmark
+    public List<FinancialModel> financialEntityToModel() {
+        return financialMapper.toModel(entities);
+    }
+
+    @Benchmark
+    public List<WalletModel> walletEntityToModel() {
+        return walletMapper.toModel(wallets);
+    }
+}
@@ -0,0 +1,68 @@
+package com.snw.benchmark;
+
+import com.snw.domain.FinancialEntity;
+import com.snw.domain.enumeration.AccountingStatus;
+import com.snw.service.BalanceRules;
+import com.snw.util.Cents;
+import com.snw.util.StringLongMap;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-user aggregation and boundary checks of a batch with {@code BigDecimal} amounts vs. {@code long} cents.
+ * Meant to be run with {@code -prof gc} to compare the allocation per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class MoneyBenchmark {
+
+    private static final BigDecimal ACTUAL = new BigDecimal("5000.00");
+
+    @Param({"100", "10000", "100000"})
+    private int batchSize;
+
+    @Param({"10", "1000"})
+    private int users;
+
+    private List<FinancialEntity> records;
+
+    private StringLongMap deltas;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        records = BenchmarkLedger.batch(batchSize, users);
+        deltas = new StringLongMap(users);
+    }
+
+    @Benchmark
+    public void bigDecimal(Blackhole blackhole) {
+        Map<String, BigDecimal> sums = new HashMap<>();
+        for (FinancialEntity record : records) {
+            BigDecimal amount = record.getStatus() == AccountingStatus.CREDITOR ?
+                    record.getAmount() : record.getAmount().negate();
+            sums.merge(record.getUser(), amount, BigDecimal::add);
+        }
+        sums.forEach((user, amount) -> blackhole.consume(BalanceRules.violations(amount, ACTUAL)));
+    }
+
+    @Benchmark
+    public void cents(Blackhole blackhole) {
+        long actual = Cents.of(ACTUAL);
+
+        deltas.clear();
+        for (FinancialEntity record : records) {
+            deltas.addTo(record.getUser(), BalanceRules.delta(record));
+        }
+        deltas.forEach((user, amount) -> blackhole.consume(BalanceRules.violations(amount, actual)));
+    }
+}
@@ -0,0 +1,60 @@
+package com.snw.benchmark;
+
+import com.snw.domain.WalletEntity;
+import com.snw.domain.enumeration.BalanceMode;
+import com.snw.domain.enumeration.ConcurrencyMode;
+import com.snw.domain.enumeration.LedgerIdStrategy;
+import com.snw.service.WalletCreditService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class UpdateCreditBenchmark {
+
+    @Param({"100000"})
+    private int ledgerSize;
+
+    @Param({"10", "100", "1000"})
+    private int batchSize;
+
+    @Param({"1", "10", "100"})
+    private int users;
+
+    @Param({"LEDGER", "INCREMENTAL"})
+    private BalanceMode balanceMode;
+
+    @Param({"PESSIMISTIC", "OPTIMISTIC"})
+    private ConcurrencyMode concurrency;
+
+    private ConfigurableApplicationContext context;
+
+    private WalletCreditService creditService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkLedger.start(Map.of(
+                "wallet.balance.mode", balanceMode.name(),
+                "wallet.balance.concurrency", concurrency.name()));
+        BenchmarkLedger.seed(context, ledgerSize, LedgerIdStrategy.TIME_ORDERED);
+        creditService = context.getBean(WalletCreditService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<WalletEntity> updateCredit() {
+        return creditService.credit(BenchmarkLedger.batch(batchSize, users));
+    }
+}
@@ -0,0 +1,61 @@
+package com.snw.service;
+
+import com.snw.benchmark.BenchmarkLedger;
+import com.snw.config.WalletProperties;
+import com.snw.domain.FinancialEntity;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Validation and aggregation of {@link WalletService#updateCredit(List)}, sequential vs. parallel,
+ * by batch size to find the crossover to set {@code wallet.validation.parallel-threshold} to.
+ * The parallel runs need more than one core, the parallel path is skipped on a single one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ParallelValidationBenchmark {
+
+    @Param({"1000", "10000", "50000", "100000", "1000000"})
+    private int batchSize;
+
+    @Param({"1000", "100000"})
+    private int users;
+
+    @Param({"sequential", "parallel"})
+    private String mode;
+
+    private WalletService walletService;
+
+    private List<FinancialEntity> records;
+
+    private Map<String, BigDecimal> actualUsersBalance;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        WalletProperties properties = new WalletProperties();
+        properties.getValidation().setParallelThreshold("parallel".equals(mode) ? 0 : Integer.MAX_VALUE);
+
+        walletService = new WalletService(null, null, properties, null, null, null, null, null);
+        records = BenchmarkLedger.batch(batchSize, users);
+        actualUsersBalance = new HashMap<>();
+        walletService.extractInputRecordsToSumByUser(records).keySet()
+                .forEach(user -> actualUsersBalance.put(user, new BigDecimal("5000.00")));
+    }
+
+    @Benchmark
+    public Map<String, BigDecimal> validate() {
+        walletService.checkForMoreThanThousand(records);
+        Map<String, BigDecimal> inputUsersBalance = walletService.extractInputRecordsToSumByUser(records);
+        walletService.checkForConstraints(inputUsersBalance, actualUsersBalance);
+        return inputUsersBalance;
+    }
+}
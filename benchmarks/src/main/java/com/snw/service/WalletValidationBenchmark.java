@@ -0,0 +1,65 @@
+package com.snw.service;
+
+import com.snw.benchmark.BenchmarkLedger;
+import com.snw.config.WalletProperties;
+import com.snw.domain.FinancialEntity;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Validation and aggregation steps of {@link WalletService#updateCredit(List)} in isolation,
+ * they do not touch the database so the service is created without repositories.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class WalletValidationBenchmark {
+
+    @Param({"100", "10000", "100000"})
+    private int batchSize;
+
+    @Param({"10", "1000"})
+    private int users;
+
+    private WalletService walletService;
+
+    private List<FinancialEntity> records;
+
+    private Map<String, BigDecimal> inputUsersBalance;
+
+    private Map<String, BigDecimal> actualUsersBalance;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        walletService = new WalletService(null, null, new WalletProperties(), null, null, null, null, null);
+        records = BenchmarkLedger.batch(batchSize, users);
+        inputUsersBalance = walletService.extractInputRecordsToSumByUser(records);
+        actualUsersBalance = new HashMap<>();
+        inputUsersBalance.keySet().forEach(user -> actualUsersBalance.put(user, new BigDecimal("5000.00")));
+    }
+
+    @Benchmark
+    public void checkForMoreThanThousand() {
+        walletService.checkForMoreThanThousand(records);
+    }
+
+    @Benchmark
+    public Map<String, BigDecimal> extractInputRecordsToSumByUser() {
+        return walletService.extractInputRecordsToSumByUser(records);
+    }
+
+    @Benchmark
+    public void checkForConstraints(Blackhole blackhole) {
+        walletService.checkForConstraints(inputUsersBalance, actualUsersBalance);
+        blackhole.consume(inputUsersBalance);
+    }
+}
@@ -0,0 +1,17 @@
+package com.snw.reactive;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+/**
+ * Non-blocking variant of the wallet API on WebFlux and R2DBC, same contract and same boundary rules
+ * as the servlet application, without a thread per connection.
+ */
+@SpringBootApplication
+public class ReactiveWalletApplication {
+
+	public static void main(String[] args) {
+		SpringApplication.run(ReactiveWalletApplication.class, args);
+	}
+
+}
@@ -0,0 +1,150 @@
+package com.snw.reactive.controller;
+
+import com.snw.controller.dto.FinancialDto;
+import com.snw.controller.model.FinancialModel;
+import com.snw.domain.FinancialEntity;
+import com.snw.reactive.service.ReactiveFinancialService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Same contract as the servlet {@code FinancialController}. The list endpoints return a {@link Flux}:
+ * rows are read from the database only as fast as the client consumes the response.
+ */
+@RestController
+@RequestMapping("/api")
+public class ReactiveFinancialController {
+
+    private static final int DEFAULT_PAGE_SIZE = 100;
+
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private final ReactiveFinancialService service;
+
+    public ReactiveFinancialController(ReactiveFinancialService service) {
+        this.service = service;
+    }
+
+    @PostMapping("/v1/financial")
+    public Mono<ResponseEntity<FinancialModel>> create(@RequestBody FinancialDto dto) {
+
+        if (dto.getId() != null) {
+            return Mono.just(new ResponseEntity<>(HttpStatus.BAD_REQUEST));
+        }
+
+        return service.save(toEntity(dto)).map(entity -> new ResponseEntity<>(toModel(entity), HttpStatus.CREATED));
+    }
+
+    @GetMapping("/v1/financial")
+    public Flux<FinancialModel> findAll() {
+        return service.findAll().map(ReactiveFinancialController::toModel);
+    }
+
+    @GetMapping(value = "/v1/financial", params = "limit")
+    public Mono<ResponseEntity<Flux<FinancialModel>>> findAllAfter(@RequestParam(required = false) String after,
+                                                                   @RequestParam int limit) {
+
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            return Mono.just(new ResponseEntity<>(HttpStatus.BAD_REQUEST));
+        }
+
+        // The id of the last record is the "after" of the next page
+        return Mono.just(ResponseEntity.ok(service.findAllAfter(after, limit).map(ReactiveFinancialController::toModel)));
+    }
+
+    @GetMapping(value = "/v1/financial/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<FinancialModel> streamAll() {
+        // One JSON document per line, flushed as the records are read
+        return service.findAll().map(ReactiveFinancialController::toModel);
+    }
+
+    @PutMapping("v1/financial")
+    public Mono<ResponseEntity<FinancialModel>> update(@RequestBody FinancialDto dto) {
+
+        if (dto.getId() == null) {
+            return Mono.just(new ResponseEntity<>(HttpStatus.BAD_REQUEST));
+        }
+
+        return service.update(toEntity(dto)).map(entity -> new ResponseEntity<>(toModel(entity), HttpStatus.OK));
+    }
+
+    @PutMapping("v1/financial/{id}")
+    public Mono<ResponseEntity<FinancialModel>> updateById(@PathVariable String id, @RequestBody FinancialDto dto) {
+
+        if (id.isEmpty()) {
+            return Mono.just(new ResponseEntity<>(HttpStatus.BAD_REQUEST));
+        }
+
+        return service.updateById(id, toEntity(dto)).map(entity -> new ResponseEntity<>(toModel(entity), HttpStatus.OK));
+    }
+
+    @PatchMapping("v1/financial/{id}")
+    public Mono<ResponseEntity<FinancialModel>> partialUpdate(@PathVariable String id,
+                                                              @RequestBody Map<String, Object> changes) {
+
+        if (id.isEmpty()) {
+            return Mono.just(new ResponseEntity<>(HttpStatus.BAD_REQUEST));
+        }
+
+        return service.partialUpdate(id, changes).map(entity -> new ResponseEntity<>(toModel(entity), HttpStatus.OK));
+    }
+
+    @DeleteMapping("v1/financial/{id}")
+    public Mono<ResponseEntity<Void>> delete(@PathVariable String id) {
+        return service.delete(id).then(Mono.just(ResponseEntity.noContent().build()));
+    }
+
+    @GetMapping("v1/financial/{id}")
+    public Mono<ResponseEntity<FinancialModel>> getById(@PathVariable String id) {
+        return service.getById(id).map(entity -> new ResponseEntity<>(toModel(entity), HttpStatus.OK));
+    }
+
+    @GetMapping("v1/financial/user/{user}")
+    public Mono<ResponseEntity<Flux<FinancialModel>>> getByUserId(@PathVariable String user,
+                                                                  @RequestParam(required = false) String after,
+                                                                  @RequestParam(required = false) Integer page,
+                                                                  @RequestParam(required = false) Integer limit,
+                                                                  @RequestParam(required = false) Instant from,
+                                                                  @RequestParam(required = false) Instant to) {
+        Flux<FinancialEntity> entities;
+
+        if (after == null && page == null && limit == null && from == null && to == null) {
+            entities = service.getByUserId(user);
+        } else {
+            int size = limit == null ? DEFAULT_PAGE_SIZE : limit;
+            // Either a cursor or a page number, not both
+            if (size < 1 || size > MAX_PAGE_SIZE || (page != null && (page < 0 || after != null))) {
+                return Mono.just(new ResponseEntity<>(HttpStatus.BAD_REQUEST));
+            }
+            entities = service.getByUserId(user, after, page == null ? 0 : page, size, from, to);
+        }
+
+        return Mono.just(ResponseEntity.ok(entities.map(ReactiveFinancialController::toModel)));
+    }
+
+    static FinancialEntity toEntity(FinancialDto dto) {
+        return FinancialEntity.builder()
+                .id(dto.getId())
+                .status(dto.getStatus())
+                .user(dto.getUser())
+                .amount(dto.getAmount())
+                .build();
+    }
+
+    static FinancialModel toModel(FinancialEntity entity) {
+        return FinancialModel.builder()
+                .id(entity.getId())
+                .status(entity.getStatus())
+                .user(entity.getUser())
+                .amount(entity.getAmount())
+                .sequence(entity.getSequence())
+                .build();
+    }
+}
@@ -0,0 +1,43 @@
+package com.snw.reactive.controller;
+
+import com.snw.controller.dto.FinancialDto;
+import com.snw.controller.model.WalletModel;
+import com.snw.domain.FinancialEntity;
+import com.snw.reactive.service.ReactiveWalletService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@RestController
+@RequestMapping("/api/v1/wallet")
+public class ReactiveWalletController {
+
+    private final ReactiveWalletService service;
+
+    public ReactiveWalletController(ReactiveWalletService service) {
+        this.service = service;
+    }
+
+    @PostMapping()
+    public Mono<ResponseEntity<List<WalletModel>>> addCredit(@RequestBody List<FinancialDto> records) {
+        List<FinancialEntity> financialEntities = records.stream()
+                .map(ReactiveFinancialController::toEntity)
+                .collect(Collectors.toList());
+
+        return service.updateCredit(financialEntities)
+                .map(credits -> credits.entrySet().stream()
+                        .map(credit -> new WalletModel(credit.getKey(), credit.getKey(), credit.getValue()))
+                        .collect(Collectors.toList()))
+                .map(wallets -> new ResponseEntity<>(wallets, HttpStatus.CREATED));
+    }
+
+    @GetMapping("/{user}")
+    public Mono<ResponseEntity<BigDecimal>> getBalance(@PathVariable String user) {
+        return service.getCredit(user).map(credit -> new ResponseEntity<>(credit, HttpStatus.OK));
+    }
+}
@@ -0,0 +1,43 @@
+package com.snw.reactive.exception;
+
+import com.snw.exception.ExceptionResponse;
+import com.snw.exception.FinancialBoundaryException;
+import com.snw.exception.NoRecordFoundException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.server.ServerWebExchange;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Same error bodies and statuses as the servlet {@code ExceptionHandlerAdvice}.
+ */
+@RestControllerAdvice
+public class ReactiveExceptionHandlerAdvice {
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<ExceptionResponse> handleIllegalArgumentException(IllegalArgumentException ex,
+                                                                            ServerWebExchange exchange) {
+        return new ResponseEntity<>(response(ex, exchange), HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(FinancialBoundaryException.class)
+    public ResponseEntity<Map<String, List<String>>> handleFinancialBoundaryException(FinancialBoundaryException ex) {
+        return ResponseEntity.badRequest().contentType(MediaType.APPLICATION_JSON).body(ex.getConstraintViolationMap());
+    }
+
+    @ExceptionHandler(NoRecordFoundException.class)
+    public ResponseEntity<ExceptionResponse> handleNoRecordFoundException(NoRecordFoundException ex,
+                                                                          ServerWebExchange exchange) {
+        return new ResponseEntity<>(response(ex, exchange), HttpStatus.BAD_REQUEST);
+    }
+
+    private static ExceptionResponse response(RuntimeException ex, ServerWebExchange exchange) {
+        return new ExceptionResponse(new Date(), ex.getMessage(), "uri=" + exchange.getRequest().getPath());
+    }
+}
@@ -0,0 +1,158 @@
+package com.snw.reactive.repository;
+
+import com.snw.config.AppConstants;
+import com.snw.domain.FinancialEntity;
+import com.snw.domain.enumeration.AccountingStatus;
+import com.snw.util.Cents;
+import com.snw.util.StringLongMap;
+import io.r2dbc.spi.Row;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collection;
+
+/**
+ * Ledger records over R2DBC. Timestamps are stored in the default time zone, as Hibernate does in the servlet application.
+ */
+@Repository
+public class ReactiveFinancialRepository {
+
+    private static final String TABLE = AppConstants.TABLE_PREFIX + "address";
+
+    private static final String SELECT = "SELECT id, accounting_status, user, amount, created_at, seq FROM " + TABLE;
+
+    private final DatabaseClient client;
+
+    public ReactiveFinancialRepository(DatabaseClient client) {
+        this.client = client;
+    }
+
+    public Mono<FinancialEntity> findById(String id) {
+        return client.sql(SELECT + " WHERE id = :id")
+                .bind("id", id)
+                .map(ReactiveFinancialRepository::toRecord)
+                .one();
+    }
+
+    public Mono<FinancialEntity> lock(String id) {
+        return client.sql(SELECT + " WHERE id = :id FOR UPDATE")
+                .bind("id", id)
+                .map(ReactiveFinancialRepository::toRecord)
+                .one();
+    }
+
+    /**
+     * Every record by id, rows are fetched as the subscriber requests them.
+     */
+    public Flux<FinancialEntity> findAll() {
+        return client.sql(SELECT + " ORDER BY id")
+                .map(ReactiveFinancialRepository::toRecord)
+                .all();
+    }
+
+    // Keyset pagination, the primary key index both filters and orders
+    public Flux<FinancialEntity> findAfter(String after, int limit) {
+        return client.sql(SELECT + " WHERE id > :after ORDER BY id LIMIT :limit")
+                .bind("after", after)
+                .bind("limit", limit)
+                .map(ReactiveFinancialRepository::toRecord)
+                .all();
+    }
+
+    public Flux<FinancialEntity> findByUser(String user) {
+        return client.sql(SELECT + " WHERE user = :user")
+                .bind("user", user)
+                .map(ReactiveFinancialRepository::toRecord)
+                .all();
+    }
+
+    public Flux<FinancialEntity> findByUserAfter(String user, String after, long offset, int limit) {
+        return client.sql(SELECT + " WHERE user = :user AND id > :after ORDER BY id LIMIT :limit OFFSET :offset")
+                .bind("user", user)
+                .bind("after", after)
+                .bind("limit", limit)
+                .bind("offset", offset)
+                .map(ReactiveFinancialRepository::toRecord)
+                .all();
+    }
+
+    /**
+     * Keyset on (created_at, id) after the record ({@code afterCreatedAt}, {@code after}).
+     */
+    public Flux<FinancialEntity> findByUserCreatedBetween(String user, Instant afterCreatedAt, String after, Instant to,
+                                                          long offset, int limit) {
+        return client.sql(SELECT + " WHERE user = :user AND created_at >= :afterCreatedAt AND created_at < :to " +
+                        "AND (created_at > :afterCreatedAt OR id > :after) " +
+                        "ORDER BY created_at, id LIMIT :limit OFFSET :offset")
+                .bind("user", user)
+                .bind("afterCreatedAt", toTimestamp(afterCreatedAt))
+                .bind("after", after)
+                .bind("to", toTimestamp(to))
+                .bind("limit", limit)
+                .bind("offset", offset)
+                .map(ReactiveFinancialRepository::toRecord)
+                .all();
+    }
+
+    /**
+     * @return the signed sum of the ledger records of each user in cents, users without records are absent
+     */
+    public Mono<StringLongMap> sumByUserIn(Collection<String> users) {
+        return client.sql("SELECT user, SUM(CASE WHEN accounting_status = 'CREDITOR' THEN amount ELSE -amount END) " +
+                        "AS credit FROM " + TABLE + " WHERE user IN (:users) GROUP BY user")
+                .bind("users", users)
+                .map(row -> new Object[]{row.get("user", String.class), row.get("credit", BigDecimal.class)})
+                .all()
+                .collect(() -> new StringLongMap(users.size()),
+                        (sums, sum) -> sums.put((String) sum[0], Cents.of((BigDecimal) sum[1])));
+    }
+
+    public Mono<Void> insert(FinancialEntity record) {
+        return client.sql("INSERT INTO " + TABLE + " (id, accounting_status, user, amount, created_at, seq) " +
+                        "VALUES (:id, :status, :user, :amount, :createdAt, NEXT VALUE FOR wallet_ledger_seq)")
+                .bind("id", record.getId())
+                .bind("status", record.getStatus().name())
+                .bind("user", record.getUser())
+                .bind("amount", record.getAmount())
+                .bind("createdAt", toTimestamp(record.getCreatedAt()))
+                .then();
+    }
+
+    public Mono<Void> update(FinancialEntity record) {
+        return client.sql("UPDATE " + TABLE + " SET user = :user, amount = :amount WHERE id = :id")
+                .bind("id", record.getId())
+                .bind("user", record.getUser())
+                .bind("amount", record.getAmount())
+                .then();
+    }
+
+    public Mono<Void> delete(String id) {
+        return client.sql("DELETE FROM " + TABLE + " WHERE id = :id")
+                .bind("id", id)
+                .then();
+    }
+
+    private static FinancialEntity toRecord(Row row) {
+        String status = row.get("accounting_status", String.class);
+        LocalDateTime createdAt = row.get("created_at", LocalDateTime.class);
+
+        return FinancialEntity.builder()
+                .id(row.get("id", String.class))
+                .status(status == null ? null : AccountingStatus.valueOf(status))
+                .user(row.get("user", String.class))
+                .amount(row.get("amount", BigDecimal.class))
+                .createdAt(createdAt == null ? null : createdAt.atZone(ZoneId.systemDefault()).toInstant())
+                .sequence(row.get("seq", Long.class))
+                .build();
+    }
+
+    private static LocalDateTime toTimestamp(Instant instant) {
+        return LocalDateTime.ofInstant(instant, ZoneId.systemDefault());
+    }
+}
@@ -0,0 +1,58 @@
+package com.snw.reactive.repository;
+
+import com.snw.config.AppConstants;
+import com.snw.util.Cents;
+import com.snw.util.StringLongMap;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+
+@Repository
+public class ReactiveWalletRepository {
+
+    private static final String TABLE = AppConstants.TABLE_PREFIX + "wallet";
+
+    private final DatabaseClient client;
+
+    public ReactiveWalletRepository(DatabaseClient client) {
+        this.client = client;
+    }
+
+    public Mono<BigDecimal> findCredit(String user) {
+        return client.sql("SELECT credit FROM " + TABLE + " WHERE user = :user")
+                .bind("user", user)
+                .map(row -> row.get("credit", BigDecimal.class))
+                .one();
+    }
+
+    /**
+     * Locks the wallets of {@code users}, in user order so concurrent batches cannot deadlock on each other.
+     *
+     * @return the credit of each existing wallet in cents
+     */
+    public Mono<StringLongMap> lockAllIn(Collection<String> users) {
+        return client.sql("SELECT user, credit FROM " + TABLE + " WHERE user IN (:users) ORDER BY user FOR UPDATE")
+                .bind("users", users)
+                .map(row -> new Object[]{row.get("user", String.class), row.get("credit", BigDecimal.class)})
+                .all()
+                .collect(() -> new StringLongMap(users.size()),
+                        (wallets, wallet) -> wallets.put((String) wallet[0], Cents.of((BigDecimal) wallet[1])));
+    }
+
+    public Mono<Void> insert(String user, BigDecimal credit) {
+        return client.sql("INSERT INTO " + TABLE + " (user, credit, version) VALUES (:user, :credit, 0)")
+                .bind("user", user)
+                .bind("credit", credit)
+                .then();
+    }
+
+    public Mono<Void> update(String user, BigDecimal credit) {
+        return client.sql("UPDATE " + TABLE + " SET credit = :credit, version = version + 1 WHERE user = :user")
+                .bind("user", user)
+                .bind("credit", credit)
+                .then();
+    }
+}
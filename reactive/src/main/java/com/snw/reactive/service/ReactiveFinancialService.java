@@ -0,0 +1,129 @@
+package com.snw.reactive.service;
+
+import com.snw.domain.FinancialEntity;
+import com.snw.domain.enumeration.LedgerIdStrategy;
+import com.snw.domain.id.LedgerIds;
+import com.snw.exception.NoRecordFoundException;
+import com.snw.reactive.repository.ReactiveFinancialRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Map;
+
+@Service
+@Transactional
+public class ReactiveFinancialService {
+
+    private static final Instant END_OF_TIME = Instant.parse("9999-12-31T23:59:59Z");
+
+    private final ReactiveFinancialRepository repository;
+
+    private final LedgerIdStrategy idStrategy;
+
+    public ReactiveFinancialService(ReactiveFinancialRepository repository,
+                                    @Value("${wallet.ledger.id-strategy:TIME_ORDERED}") LedgerIdStrategy idStrategy) {
+        this.repository = repository;
+        this.idStrategy = idStrategy;
+    }
+
+    public Mono<FinancialEntity> save(FinancialEntity entity) {
+        entity.setId(LedgerIds.next(idStrategy));
+        entity.setCreatedAt(Instant.now());
+
+        return repository.insert(entity).thenReturn(entity);
+    }
+
+    @Transactional(readOnly = true)
+    public Flux<FinancialEntity> findAll() {
+        return repository.findAll();
+    }
+
+    @Transactional(readOnly = true)
+    public Flux<FinancialEntity> findAllAfter(String after, int limit) {
+        return repository.findAfter(after == null ? "" : after, limit);
+    }
+
+    public Mono<FinancialEntity> updateById(String id, FinancialEntity entity) {
+        return getByIdAndLock(id).flatMap(domain -> {
+            domain.setAmount(entity.getAmount());
+            domain.setUser(entity.getUser());
+
+            return repository.update(domain).thenReturn(domain);
+        });
+    }
+
+    public Mono<FinancialEntity> update(FinancialEntity entity) {
+        return updateById(entity.getId(), entity);
+    }
+
+    public Mono<FinancialEntity> partialUpdate(String id, Map<String, Object> changes) {
+        return getByIdAndLock(id).flatMap(domain -> {
+            changes.forEach((key, value) -> {
+                switch (key) {
+                    case "user":
+                        domain.setUser((String) value);
+                        break;
+                    case "amount":
+                        domain.setAmount(new BigDecimal((String) value));
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Invalid field: " + key);
+                }
+            });
+
+            return repository.update(domain).thenReturn(domain);
+        });
+    }
+
+    public Mono<Void> delete(String id) {
+        return getByIdAndLock(id).flatMap(domain -> repository.delete(id));
+    }
+
+    @Transactional(readOnly = true)
+    public Mono<FinancialEntity> getById(String id) {
+        return repository.findById(id).switchIfEmpty(notFound());
+    }
+
+    @Transactional(readOnly = true)
+    public Flux<FinancialEntity> getByUserId(String user) {
+        return repository.findByUser(user);
+    }
+
+    /**
+     * One page of the records of {@code user} after the {@code after} cursor (or from the start) and skipping
+     * {@code page} pages. By id, or by creation time then id when restricted to the records created in
+     * [{@code from}, {@code to}).
+     */
+    @Transactional(readOnly = true)
+    public Flux<FinancialEntity> getByUserId(String user, String after, int page, int limit, Instant from, Instant to) {
+        String cursor = after == null ? "" : after;
+        long offset = (long) page * limit;
+
+        if (from == null && to == null) {
+            return repository.findByUserAfter(user, cursor, offset, limit);
+        }
+
+        Instant start = from == null ? Instant.EPOCH : from;
+        Instant end = to == null ? END_OF_TIME : to;
+        if (after == null) {
+            return repository.findByUserCreatedBetween(user, start, "", end, offset, limit);
+        }
+        // A cursor before the range starts the range from its beginning
+        return getById(after).flatMapMany(record -> record.getCreatedAt() == null || record.getCreatedAt().isBefore(start) ?
+                repository.findByUserCreatedBetween(user, start, "", end, offset, limit) :
+                repository.findByUserCreatedBetween(user, record.getCreatedAt(), cursor, end, offset, limit));
+    }
+
+    private Mono<FinancialEntity> getByIdAndLock(String id) {
+        return repository.lock(id).switchIfEmpty(notFound());
+    }
+
+    private static Mono<FinancialEntity> notFound() {
+        return Mono.error(() -> new NoRecordFoundException("Financial entity not found"));
+    }
+}
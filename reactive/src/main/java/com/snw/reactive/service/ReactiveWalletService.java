@@ -0,0 +1,120 @@
+package com.snw.reactive.service;
+
+import com.snw.domain.FinancialEntity;
+import com.snw.domain.enumeration.BalanceMode;
+import com.snw.domain.enumeration.LedgerIdStrategy;
+import com.snw.domain.id.LedgerIds;
+import com.snw.exception.FinancialBoundaryException;
+import com.snw.exception.NoRecordFoundException;
+import com.snw.reactive.repository.ReactiveFinancialRepository;
+import com.snw.reactive.repository.ReactiveWalletRepository;
+import com.snw.service.BalanceRules;
+import com.snw.service.DeltaAggregator;
+import com.snw.util.Cents;
+import com.snw.util.StringLongMap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Credit of a batch with the rules of the servlet {@code WalletService} (pessimistic concurrency):
+ * the wallets are locked, the per-user sums checked against the balances and the ledger and wallets written,
+ * all in one transaction.
+ */
+@Service
+@Transactional
+public class ReactiveWalletService {
+
+    private final ReactiveFinancialRepository financialRepository;
+
+    private final ReactiveWalletRepository walletRepository;
+
+    private final BalanceMode mode;
+
+    private final LedgerIdStrategy idStrategy;
+
+    public ReactiveWalletService(ReactiveFinancialRepository financialRepository,
+                                 ReactiveWalletRepository walletRepository,
+                                 @Value("${wallet.balance.mode:LEDGER}") BalanceMode mode,
+                                 @Value("${wallet.ledger.id-strategy:TIME_ORDERED}") LedgerIdStrategy idStrategy) {
+        this.financialRepository = financialRepository;
+        this.walletRepository = walletRepository;
+        this.mode = mode;
+        this.idStrategy = idStrategy;
+    }
+
+    @Transactional(readOnly = true)
+    public Mono<BigDecimal> getCredit(String user) {
+        return walletRepository.findCredit(user)
+                .switchIfEmpty(Mono.error(() -> new NoRecordFoundException("Wallet entity not found")));
+    }
+
+    /**
+     * @return the new credit of every user of the batch
+     */
+    public Mono<Map<String, BigDecimal>> updateCredit(List<FinancialEntity> records) {
+        return Mono.fromCallable(() -> {
+                    BalanceRules.checkForMoreThanThousand(records);
+
+                    StringLongMap deltas = new StringLongMap();
+                    DeltaAggregator.aggregateInto(records, deltas);
+                    return deltas;
+                })
+                .flatMap(deltas -> {
+                    List<String> users = new ArrayList<>(deltas.size());
+                    deltas.forEach((user, amount) -> users.add(user));
+
+                    // One statement at a time, the transaction holds a single connection
+                    return walletRepository.lockAllIn(users).flatMap(wallets -> mode == BalanceMode.INCREMENTAL ?
+                            apply(records, deltas, wallets, wallets) :
+                            financialRepository.sumByUserIn(users)
+                                    .flatMap(ledger -> apply(records, deltas, wallets, ledger)));
+                });
+    }
+
+    private Mono<Map<String, BigDecimal>> apply(List<FinancialEntity> records,
+                                                StringLongMap deltas,
+                                                StringLongMap wallets,
+                                                StringLongMap actuals) {
+        Map<String, List<String>> violations = new HashMap<>();
+        Map<String, BigDecimal> credits = new HashMap<>();
+
+        deltas.forEach((user, amount) -> {
+            long actual = actuals.get(user, Cents.NONE);
+
+            List<String> userViolations = BalanceRules.violations(amount, actual);
+            if (!userViolations.isEmpty()) {
+                violations.put(user, userViolations);
+            }
+            credits.put(user, Cents.toAmount(actual == Cents.NONE ? amount : Cents.add(actual, amount)));
+        });
+
+        if (!violations.isEmpty()) {
+            return Mono.error(new FinancialBoundaryException(violations));
+        }
+
+        Instant now = Instant.now();
+        return Flux.fromIterable(records)
+                .concatMap(record -> {
+                    if (record.getId() == null) {
+                        record.setId(LedgerIds.next(idStrategy));
+                    }
+                    record.setCreatedAt(now);
+                    return financialRepository.insert(record);
+                })
+                .thenMany(Flux.fromIterable(credits.entrySet()))
+                .concatMap(credit -> wallets.containsKey(credit.getKey()) ?
+                        walletRepository.update(credit.getKey(), credit.getValue()) :
+                        walletRepository.insert(credit.getKey(), credit.getValue()))
+                .then(Mono.just(credits));
+    }
+}
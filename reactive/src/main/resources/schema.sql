@@ -0,0 +1,23 @@
+-- Same tables as the Hibernate generated schema of the servlet application
+CREATE TABLE IF NOT EXISTS wallet_address (
+    id varchar(50) NOT NULL,
+    amount decimal(10, 2),
+    created_at timestamp,
+    accounting_status varchar(255),
+    user varchar(255),
+    seq bigint,
+    PRIMARY KEY (id),
+    UNIQUE (seq)
+);
+CREATE INDEX IF NOT EXISTS idx_address_user_status_amount ON wallet_address (user, accounting_status, amount);
+CREATE INDEX IF NOT EXISTS idx_address_user_id ON wallet_address (user, id);
+CREATE INDEX IF NOT EXISTS idx_address_user_created_at ON wallet_address (user, created_at, id);
+CREATE INDEX IF NOT EXISTS idx_address_user_seq ON wallet_address (user, seq);
+CREATE SEQUENCE IF NOT EXISTS wallet_ledger_seq;
+
+CREATE TABLE IF NOT EXISTS wallet_wallet (
+    user varchar(50) NOT NULL,
+    credit decimal(10, 2),
+    version bigint,
+    PRIMARY KEY (user)
+);
@@ -0,0 +1,134 @@
+package com.snw.reactive;
+
+import com.snw.controller.dto.FinancialDto;
+import com.snw.controller.model.FinancialModel;
+import com.snw.domain.enumeration.AccountingStatus;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@AutoConfigureWebTestClient
+@SpringBootTest(classes = ReactiveWalletApplication.class, properties = {
+        "spring.r2dbc.url=r2dbc:h2:mem:///reactive?options=DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE"
+})
+class ReactiveWalletApiTest {
+
+    @Autowired
+    private WebTestClient client;
+
+    private static FinancialDto getRecord(AccountingStatus status, String user, String amount) {
+        return FinancialDto.builder().status(status).user(user).amount(new BigDecimal(amount)).build();
+    }
+
+    @Test
+    @DisplayName("Reactive Credit And Balance")
+    void TestAddCredit_WhenRecordsAreValid_BalanceIsUpdated() {
+        // Arrange
+        List<FinancialDto> records = List.of(getRecord(AccountingStatus.CREDITOR, "reactive1", "100.00"),
+                getRecord(AccountingStatus.DEBTOR, "reactive1", "25.50"));
+
+        // Act
+        client.post().uri("/api/v1/wallet").contentType(MediaType.APPLICATION_JSON).bodyValue(records)
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody().jsonPath("$[0].user").isEqualTo("reactive1").jsonPath("$[0].credit").isEqualTo(74.5);
+
+        // Assert
+        client.get().uri("/api/v1/wallet/reactive1")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class).isEqualTo("74.50");
+    }
+
+    @Test
+    @DisplayName("Reactive Credit Violating A Boundary")
+    void TestAddCredit_WhenBalanceGoesNegative_ShouldReturnViolations() {
+        // Arrange
+        client.post().uri("/api/v1/wallet").contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(List.of(getRecord(AccountingStatus.CREDITOR, "reactive2", "1.00")))
+                .exchange()
+                .expectStatus().isCreated();
+
+        // Act
+        WebTestClient.ResponseSpec response = client.post().uri("/api/v1/wallet")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(List.of(getRecord(AccountingStatus.DEBTOR, "reactive2", "2.00")))
+                .exchange();
+
+        // Assert
+        response.expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.reactive2[0]").exists();
+        client.get().uri("/api/v1/wallet/reactive2")
+                .exchange()
+                .expectBody(String.class).isEqualTo("1.00");
+    }
+
+    @Test
+    @DisplayName("Reactive Missing Wallet")
+    void TestGetBalance_WhenWalletDoesNotExist_ShouldReturnBadRequest() {
+        // Act & Assert
+        client.get().uri("/api/v1/wallet/reactive-missing")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.message").isEqualTo("Wallet entity not found");
+    }
+
+    @Test
+    @DisplayName("Reactive Create And Read Records")
+    void TestCreate_WhenRecordIsValid_ShouldBeReadableByUserAndPage() {
+        // Arrange
+        FinancialDto record = getRecord(AccountingStatus.CREDITOR, "reactive3", "10.00");
+
+        // Act
+        client.post().uri("/api/v1/financial").contentType(MediaType.APPLICATION_JSON).bodyValue(record)
+                .exchange()
+                .expectStatus().isCreated();
+        client.post().uri("/api/v1/financial").contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(FinancialDto.builder().id("given").status(AccountingStatus.CREDITOR).user("reactive3").amount(BigDecimal.ONE).build())
+                .exchange()
+                .expectStatus().isBadRequest();
+
+        // Assert
+        client.get().uri("/api/v1/financial/user/reactive3")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(FinancialModel.class).hasSize(1);
+        client.get().uri("/api/v1/financial/user/reactive3?limit=0")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    @DisplayName("Reactive NDJSON Stream")
+    void TestStreamAll_WhenRecordsExist_ShouldEmitOneRecordPerLine() {
+        // Arrange
+        List<FinancialDto> records = List.of(getRecord(AccountingStatus.CREDITOR, "reactive4", "1.00"),
+                getRecord(AccountingStatus.CREDITOR, "reactive4", "2.00"),
+                getRecord(AccountingStatus.CREDITOR, "reactive4", "3.00"));
+        client.post().uri("/api/v1/wallet").contentType(MediaType.APPLICATION_JSON).bodyValue(records)
+                .exchange()
+                .expectStatus().isCreated();
+
+        // Act
+        Flux<FinancialModel> stream = client.get().uri("/api/v1/financial/stream")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .returnResult(FinancialModel.class).getResponseBody();
+
+        // Assert
+        StepVerifier.create(stream.filter(model -> "reactive4".equals(model.getUser())))
+                .expectNextCount(3)
+                .verifyComplete();
+    }
+}
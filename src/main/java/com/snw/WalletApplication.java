@@ -1,11 +1,16 @@
 package com.snw;
 
+import com.snw.config.WalletProperties;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 
 @SpringBootApplication
+@EnableScheduling
 @EnableTransactionManagement
+@EnableConfigurationProperties(WalletProperties.class)
 public class WalletApplication {
 
 	public static void main(String[] args) {
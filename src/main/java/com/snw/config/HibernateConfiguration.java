@@ -0,0 +1,20 @@
+package com.snw.config;
+
+import com.snw.domain.id.LedgerIdGenerator;
+import com.snw.metrics.StatementCounter;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class HibernateConfiguration {
+
+    @Bean
+    public HibernatePropertiesCustomizer walletHibernatePropertiesCustomizer(WalletProperties properties) {
+        return hibernateProperties -> {
+            hibernateProperties.put(LedgerIdGenerator.STRATEGY_SETTING, properties.getLedger().getIdStrategy().name());
+            hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR, new StatementCounter());
+        };
+    }
+}
@@ -0,0 +1,34 @@
+package com.snw.config;
+
+import com.zaxxer.hikari.SQLExceptionOverride;
+
+import java.sql.SQLException;
+import java.util.function.Supplier;
+
+/**
+ * Hikari evicts a connection on any {@link java.sql.SQLTimeoutException}, H2 lock timeouts included.
+ * Lock conflicts provoked on purpose (a lock timeout of its own, {@code NOWAIT}, {@code SKIP_LOCKED}) keep their
+ * connection: the transaction goes on or rolls back normally and the session lock timeout can be restored.
+ */
+public class LockConflictExceptionOverride implements SQLExceptionOverride {
+
+    // H2 LOCK_TIMEOUT_1
+    private static final int LOCK_TIMEOUT = 50200;
+
+    private static final ThreadLocal<Boolean> EXPECTED = ThreadLocal.withInitial(() -> Boolean.FALSE);
+
+    public static <T> T expectingLockConflicts(Supplier<T> action) {
+        boolean previous = EXPECTED.get();
+        EXPECTED.set(Boolean.TRUE);
+        try {
+            return action.get();
+        } finally {
+            EXPECTED.set(previous);
+        }
+    }
+
+    @java.lang.Override
+    public Override adjudicate(SQLException e) {
+        return EXPECTED.get() && e.getErrorCode() == LOCK_TIMEOUT ? Override.DO_NOT_EVICT : Override.CONTINUE_EVICT;
+    }
+}
@@ -0,0 +1,39 @@
+package com.snw.config;
+
+import org.apache.coyote.AbstractProtocol;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * {@code wallet.threads.mode=VIRTUAL}: Tomcat serves every request on its own virtual thread instead of its
+ * worker pool, a request blocked on a lock or the database no longer holds one of {@code server.tomcat.threads.max}.
+ * The application task executor, used by the async controller variants and the MVC async requests, is replaced
+ * by virtual threads as well.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "wallet.threads", name = "mode", havingValue = "VIRTUAL")
+public class VirtualThreadConfiguration {
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService virtualThreadExecutor() {
+        return VirtualThreads.newExecutor();
+    }
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<AbstractProtocol<?>> virtualThreadProtocolHandlerCustomizer(
+            ExecutorService virtualThreadExecutor) {
+        return protocolHandler -> protocolHandler.setExecutor(virtualThreadExecutor);
+    }
+
+    @Bean(name = TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    public AsyncTaskExecutor applicationTaskExecutor(ExecutorService virtualThreadExecutor) {
+        return new TaskExecutorAdapter(virtualThreadExecutor);
+    }
+}
@@ -0,0 +1,244 @@
+package com.snw.config;
+
+import com.snw.domain.enumeration.AuditDurability;
+import com.snw.domain.enumeration.BalanceMode;
+import com.snw.domain.enumeration.ConcurrencyMode;
+import com.snw.domain.enumeration.LedgerIdStrategy;
+import com.snw.domain.enumeration.LockOperation;
+import com.snw.domain.enumeration.LockWaitMode;
+import com.snw.domain.enumeration.ThreadMode;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties(prefix = "wallet")
+public class WalletProperties {
+
+    private final Balance balance = new Balance();
+
+    private final Cache cache = new Cache();
+
+    private final Ledger ledger = new Ledger();
+
+    private final Lock lock = new Lock();
+
+    private final Pipeline pipeline = new Pipeline();
+
+    private final Engine engine = new Engine();
+
+    private final BulkImport bulkImport = new BulkImport();
+
+    private final Validation validation = new Validation();
+
+    private final Threads threads = new Threads();
+
+    private final Audit audit = new Audit();
+
+    private final Idempotency idempotency = new Idempotency();
+
+    @Data
+    public static class Balance {
+
+        private BalanceMode mode = BalanceMode.LEDGER;
+
+        private ConcurrencyMode concurrency = ConcurrencyMode.PESSIMISTIC;
+
+        private final Reconciler reconciler = new Reconciler();
+
+        private final Optimistic optimistic = new Optimistic();
+
+        private final Checkpoint checkpoint = new Checkpoint();
+    }
+
+    @Data
+    public static class Reconciler {
+
+        private boolean enabled = false;
+
+        private Duration interval = Duration.ofMinutes(5);
+    }
+
+    @Data
+    public static class Checkpoint {
+
+        private boolean enabled = true;
+
+        // Bounds the ledger tail summed on top of a checkpoint by a point-in-time query
+        private Duration interval = Duration.ofMinutes(1);
+    }
+
+    @Data
+    public static class Optimistic {
+
+        private int maxAttempts = 5;
+
+        private Duration initialBackoff = Duration.ofMillis(5);
+
+        private Duration maxBackoff = Duration.ofMillis(100);
+    }
+
+    @Data
+    public static class Cache {
+
+        private boolean enabled = true;
+
+        private long maximumSize = 100_000;
+
+        private Duration expireAfterWrite = Duration.ofMinutes(1);
+    }
+
+    @Data
+    public static class Ledger {
+
+        private LedgerIdStrategy idStrategy = LedgerIdStrategy.TIME_ORDERED;
+    }
+
+    @Data
+    public static class Lock {
+
+        private final Striping striping = new Striping();
+
+        // Wallets locked per SELECT ... FOR UPDATE, chunks are taken in user order
+        private int chunkSize = 500;
+
+        private final Map<LockOperation, Timeout> timeouts = new EnumMap<>(LockOperation.class);
+
+        private final Contention contention = new Contention();
+    }
+
+    @Data
+    public static class Timeout {
+
+        private LockWaitMode mode = LockWaitMode.WAIT;
+
+        // Unset keeps the lock timeout of the connection (LOCK_TIMEOUT of the JDBC URL)
+        private Duration timeout;
+    }
+
+    @Data
+    public static class Contention {
+
+        // Acquisitions at least this long count as contended for their users and endpoint
+        private Duration slowThreshold = Duration.ofMillis(50);
+
+        // Users tracked by the contention report
+        private long maximumUsers = 10_000;
+    }
+
+    @Data
+    public static class Striping {
+
+        private boolean enabled = false;
+
+        private int stripes = 1024;
+
+        private Duration maxWait = Duration.ofSeconds(2);
+    }
+
+    @Data
+    public static class Pipeline {
+
+        private boolean enabled = false;
+
+        private int maxBatchSize = 64;
+
+        private Duration maxLinger = Duration.ofMillis(2);
+
+        private int queueCapacity = 10_000;
+    }
+
+    @Data
+    public static class Engine {
+
+        private boolean enabled = false;
+
+        // 0 means one shard per available processor
+        private int shards = 0;
+
+        private final Writer writer = new Writer();
+
+        private final Journal journal = new Journal();
+    }
+
+    @Data
+    public static class Writer {
+
+        private int maxBatchSize = 256;
+
+        private Duration maxLinger = Duration.ofMillis(2);
+
+        private int queueCapacity = 10_000;
+    }
+
+    @Data
+    public static class Journal {
+
+        private boolean enabled = false;
+
+        private Path directory = Paths.get("journal");
+
+        private DataSize segmentSize = DataSize.ofMegabytes(64);
+
+        private int maxBatchSize = 256;
+
+        private int queueCapacity = 10_000;
+    }
+
+    @Data
+    public static class BulkImport {
+
+        // Ledger rows written per JDBC batch
+        private int chunkSize = 1000;
+    }
+
+    @Data
+    public static class Validation {
+
+        // Batches of at least this many records (or users for the boundary checks) are validated in parallel
+        private int parallelThreshold = 50_000;
+    }
+
+    @Data
+    public static class Threads {
+
+        private ThreadMode mode = ThreadMode.PLATFORM;
+    }
+
+    @Data
+    public static class Audit {
+
+        private boolean enabled = true;
+
+        private AuditDurability durability = AuditDurability.ASYNC;
+
+        // Committed transactions waiting for the writer
+        private int queueCapacity = 10_000;
+
+        // Events written per JDBC batch
+        private int maxBatchSize = 500;
+
+        // Events of one transaction kept in memory, the overflow is written in the transaction
+        private int maxPendingEvents = 10_000;
+
+        private Duration maxLinger = Duration.ofMillis(50);
+    }
+
+    @Data
+    public static class Idempotency {
+
+        // Time a key is remembered, retries arriving later are applied again
+        private Duration retention = Duration.ofHours(24);
+
+        // Keys kept in memory, the evicted ones are still found in the key table
+        private long maximumSize = 100_000;
+
+        private Duration purgeInterval = Duration.ofHours(1);
+    }
+}
@@ -0,0 +1,66 @@
+package com.snw.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.snw.controller.model.AuditModel;
+import com.snw.domain.AuditEntity;
+import com.snw.service.audit.AuditService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@RestController
+@RequestMapping("/api/v1/audit")
+public class AuditController {
+
+    private static final int DEFAULT_PAGE_SIZE = 100;
+
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private final AuditService service;
+
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public AuditController(AuditService service, ObjectMapper objectMapper) {
+        this.service = service;
+        this.objectMapper = objectMapper;
+    }
+
+    @GetMapping("/revision/{revision}")
+    public ResponseEntity<List<AuditModel>> getRevision(@PathVariable String revision) {
+        return new ResponseEntity<>(toModel(service.getRevision(revision)), HttpStatus.OK);
+    }
+
+    // The id of the last change is the "after" of the next page
+    @GetMapping("/{entityType}/{entityId}")
+    public ResponseEntity<List<AuditModel>> getHistory(@PathVariable String entityType,
+                                                       @PathVariable String entityId,
+                                                       @RequestParam(required = false) Long after,
+                                                       @RequestParam(required = false) Integer limit) {
+        int size = limit == null ? DEFAULT_PAGE_SIZE : limit;
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+
+        return new ResponseEntity<>(toModel(service.getHistory(entityType, entityId, after, size)), HttpStatus.OK);
+    }
+
+    private List<AuditModel> toModel(List<AuditEntity> entities) {
+        return entities.stream().map(this::toModel).collect(Collectors.toList());
+    }
+
+    private AuditModel toModel(AuditEntity entity) {
+        try {
+            return new AuditModel(entity.getId(), entity.getRevision(), entity.getEntityType(), entity.getEntityId(),
+                    entity.getOperation(), objectMapper.readTree(entity.getState()), entity.getChangedAt());
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
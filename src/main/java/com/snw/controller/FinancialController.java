@@ -1,30 +1,57 @@
 package com.snw.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
 import com.snw.controller.dto.FinancialDto;
 import com.snw.controller.mapper.FinancialMapper;
 import com.snw.controller.model.FinancialModel;
 import com.snw.domain.FinancialEntity;
 import com.snw.service.FinancialService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME;
 
 @RestController
 @RequestMapping("/api")
 public class FinancialController {
 
+    private static final int DEFAULT_PAGE_SIZE = 100;
+
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private static final String APPLICATION_NDJSON = "application/x-ndjson";
+
     private final FinancialMapper mapper;
 
     private final FinancialService service;
 
+    private final ObjectMapper objectMapper;
+
+    private final AsyncTaskExecutor executor;
+
     @Autowired
-    public FinancialController(FinancialMapper mapper, FinancialService service) {
+    public FinancialController(FinancialMapper mapper,
+                               FinancialService service,
+                               ObjectMapper objectMapper,
+                               @Qualifier(APPLICATION_TASK_EXECUTOR_BEAN_NAME) AsyncTaskExecutor executor) {
         this.mapper = mapper;
         this.service = service;
+        this.objectMapper = objectMapper;
+        this.executor = executor;
     }
 
     @PostMapping("/v1/financial")
@@ -41,6 +68,19 @@ public class FinancialController {
         return new ResponseEntity<>(model, HttpStatus.CREATED);
     }
 
+    @PostMapping("/v1/financial/async")
+    public CompletableFuture<ResponseEntity<FinancialModel>> createAsync(@RequestBody FinancialDto dto) {
+
+        if (dto.getId() != null) {
+            return CompletableFuture.completedFuture(new ResponseEntity<>(HttpStatus.BAD_REQUEST));
+        }
+
+        FinancialEntity entity = mapper.toEntity(dto);
+
+        return CompletableFuture.supplyAsync(() -> service.save(entity), executor)
+                .thenApply(saved -> new ResponseEntity<>(mapper.toModel(saved), HttpStatus.CREATED));
+    }
+
     @GetMapping("/v1/financial")
     public ResponseEntity<List<FinancialModel>> findAll() {
         List<FinancialEntity> entities = service.findAll();
@@ -48,6 +88,38 @@ public class FinancialController {
         return new ResponseEntity<>(mapper.toModel(entities), HttpStatus.OK);
     }
 
+    @GetMapping(value = "/v1/financial", params = "limit")
+    public ResponseEntity<List<FinancialModel>> findAllAfter(@RequestParam(required = false) String after,
+                                                             @RequestParam int limit) {
+
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+
+        // The id of the last record is the "after" of the next page
+        List<FinancialEntity> entities = service.findAllAfter(after, limit);
+
+        return new ResponseEntity<>(mapper.toModel(entities), HttpStatus.OK);
+    }
+
+    @GetMapping(value = "/v1/financial/stream", produces = APPLICATION_NDJSON)
+    public ResponseEntity<StreamingResponseBody> streamAll() {
+        StreamingResponseBody body = output -> {
+            // One JSON document per line, written as the records are read
+            try (SequenceWriter writer = objectMapper.writer().withRootValueSeparator("\n").writeValues(output)) {
+                service.streamAll(entity -> {
+                    try {
+                        writer.write(mapper.toModel(entity));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(APPLICATION_NDJSON)).body(body);
+    }
+
     @PutMapping("v1/financial")
     public ResponseEntity<FinancialModel> update(@RequestBody FinancialDto dto) {
 
@@ -106,9 +178,37 @@ public class FinancialController {
         return new ResponseEntity<>(model, HttpStatus.OK);
     }
 
+    @GetMapping("v1/financial/async/{id}")
+    public CompletableFuture<ResponseEntity<FinancialModel>> getByIdAsync(@PathVariable String id) {
+        return CompletableFuture.supplyAsync(() -> service.getById(id), executor)
+                .thenApply(entity -> new ResponseEntity<>(mapper.toModel(entity), HttpStatus.OK));
+    }
+
+    @GetMapping("v1/financial/async/user/{user}")
+    public CompletableFuture<ResponseEntity<List<FinancialModel>>> getByUserIdAsync(@PathVariable String user) {
+        return CompletableFuture.supplyAsync(() -> service.getByUserId(user), executor)
+                .thenApply(entities -> new ResponseEntity<>(mapper.toModel(entities), HttpStatus.OK));
+    }
+
     @GetMapping("v1/financial/user/{user}")
-    public ResponseEntity<List<FinancialModel>> getByUserId(@PathVariable String user) {
-        List<FinancialEntity> entities = service.getByUserId(user);
+    public ResponseEntity<List<FinancialModel>> getByUserId(@PathVariable String user,
+                                                            @RequestParam(required = false) String after,
+                                                            @RequestParam(required = false) Integer page,
+                                                            @RequestParam(required = false) Integer limit,
+                                                            @RequestParam(required = false) Instant from,
+                                                            @RequestParam(required = false) Instant to) {
+        List<FinancialEntity> entities;
+
+        if (after == null && page == null && limit == null && from == null && to == null) {
+            entities = service.getByUserId(user);
+        } else {
+            int size = limit == null ? DEFAULT_PAGE_SIZE : limit;
+            // Either a cursor or a page number, not both
+            if (size < 1 || size > MAX_PAGE_SIZE || (page != null && (page < 0 || after != null))) {
+                return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+            }
+            entities = service.getByUserId(user, after, page == null ? 0 : page, size, from, to);
+        }
         List<FinancialModel> models = mapper.toModel(entities);
 
         return new ResponseEntity<>(models, HttpStatus.OK);
@@ -3,50 +3,123 @@ package com.snw.controller;
 import com.snw.controller.dto.FinancialDto;
 import com.snw.controller.mapper.FinancialMapper;
 import com.snw.controller.mapper.WalletMapper;
+import com.snw.controller.model.ImportModel;
 import com.snw.controller.model.WalletModel;
 import com.snw.domain.FinancialEntity;
 import com.snw.domain.WalletEntity;
+import com.snw.service.BalanceCheckpointService;
+import com.snw.service.ImportResult;
+import com.snw.service.WalletCreditService;
+import com.snw.service.WalletImportService;
 import com.snw.service.WalletService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.InputStream;
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME;
 
 @RestController
 @RequestMapping("/api/v1/wallet")
 public class WalletController {
 
+    private static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+
+    private static final int MAX_IDEMPOTENCY_KEY = 100;
+
     private final FinancialMapper financialMapper;
 
     private final WalletMapper walletMapper;
 
     private final WalletService service;
 
+    private final WalletCreditService creditService;
+
+    private final WalletImportService importService;
+
+    private final BalanceCheckpointService checkpointService;
+
+    private final AsyncTaskExecutor executor;
+
     @Autowired
     public WalletController(FinancialMapper financialMapper,
                             WalletMapper walletMapper,
-                            WalletService service) {
+                            WalletService service,
+                            WalletCreditService creditService,
+                            WalletImportService importService,
+                            BalanceCheckpointService checkpointService,
+                            @Qualifier(APPLICATION_TASK_EXECUTOR_BEAN_NAME) AsyncTaskExecutor executor) {
         this.financialMapper = financialMapper;
         this.walletMapper = walletMapper;
         this.service = service;
+        this.creditService = creditService;
+        this.importService = importService;
+        this.checkpointService = checkpointService;
+        this.executor = executor;
     }
 
+    // Retries sent with the same Idempotency-Key get the response of the first request
     @PostMapping()
-    public ResponseEntity<List<WalletModel>> addCredit(@RequestBody List<FinancialDto> records) {
+    public ResponseEntity<List<WalletModel>> addCredit(@RequestBody List<FinancialDto> records,
+                                                       @RequestHeader(value = IDEMPOTENCY_KEY, required = false)
+                                                       String idempotencyKey) {
+        if (idempotencyKey != null && (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_IDEMPOTENCY_KEY)) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+
         List<FinancialEntity> financialEntities = financialMapper.toEntity(records);
 
-        List<WalletEntity> walletEntities = service.updateCredit(financialEntities);
+        List<WalletEntity> walletEntities = creditService.credit(financialEntities, idempotencyKey);
 
         return new ResponseEntity<>(walletMapper.toModel(walletEntities), HttpStatus.CREATED);
     }
 
+    @PostMapping("/async")
+    public CompletableFuture<ResponseEntity<List<WalletModel>>> addCreditAsync(
+            @RequestBody List<FinancialDto> records,
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        if (idempotencyKey != null && (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_IDEMPOTENCY_KEY)) {
+            return CompletableFuture.completedFuture(new ResponseEntity<>(HttpStatus.BAD_REQUEST));
+        }
+
+        List<FinancialEntity> financialEntities = financialMapper.toEntity(records);
+
+        // The request thread is released right away, the response is written when the credit completes
+        return creditService.creditAsync(financialEntities, idempotencyKey, executor)
+                .thenApply(walletEntities -> new ResponseEntity<>(walletMapper.toModel(walletEntities), HttpStatus.CREATED));
+    }
+
+    @PostMapping(value = "/import", consumes = "application/x-ndjson")
+    public ResponseEntity<ImportModel> importCredit(InputStream records) {
+        // Raw body, records are parsed one by one while they are imported
+        ImportResult result = importService.importRecords(records);
+
+        return new ResponseEntity<>(new ImportModel(result.getRecords(), result.getUsers()), HttpStatus.CREATED);
+    }
+
     @GetMapping("/{user}")
     public ResponseEntity<BigDecimal> getBalance(@PathVariable String user) {
         WalletEntity entity = service.getByUser(user);
 
         return new ResponseEntity<>(walletMapper.toModel(entity).getCredit(), HttpStatus.OK);
     }
+
+    // Balance after the ledger record with sequence (or created at the latest at) asOf
+    @GetMapping(value = "/{user}", params = "asOf")
+    public ResponseEntity<BigDecimal> getBalanceAsOf(@PathVariable String user, @RequestParam String asOf) {
+        return new ResponseEntity<>(checkpointService.getBalanceAsOf(user, asOf), HttpStatus.OK);
+    }
+
+    @GetMapping("/async/{user}")
+    public CompletableFuture<ResponseEntity<BigDecimal>> getBalanceAsync(@PathVariable String user) {
+        return CompletableFuture.supplyAsync(() -> service.getByUser(user), executor)
+                .thenApply(entity -> new ResponseEntity<>(walletMapper.toModel(entity).getCredit(), HttpStatus.OK));
+    }
 }
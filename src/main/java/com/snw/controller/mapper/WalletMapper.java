@@ -4,12 +4,14 @@ package com.snw.controller.mapper;
 import com.snw.controller.model.WalletModel;
 import com.snw.domain.WalletEntity;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 
 import java.util.List;
 
 @Mapper(componentModel = "spring", uses = {})
 public interface WalletMapper {
 
+    @Mapping(target = "id", ignore = true)
     WalletModel toModel(WalletEntity entity);
 
     List<WalletModel> toModel(List<WalletEntity> entity);
@@ -0,0 +1,24 @@
+package com.snw.controller.model;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.snw.domain.enumeration.AuditOperation;
+import lombok.*;
+
+import java.time.Instant;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@EqualsAndHashCode
+public class AuditModel {
+
+    private Long id;
+    private String revision;
+    private String entityType;
+    private String entityId;
+    private AuditOperation operation;
+    private JsonNode state;
+    private Instant changedAt;
+
+}
@@ -20,4 +20,8 @@ public class FinancialModel {
 
     private BigDecimal amount;
 
+    // Position in the ledger, usable as the asOf of a balance query
+    @EqualsAndHashCode.Exclude
+    private Long sequence;
+
 }
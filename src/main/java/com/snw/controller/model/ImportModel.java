@@ -0,0 +1,15 @@
+package com.snw.controller.model;
+
+import lombok.*;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@EqualsAndHashCode
+public class ImportModel {
+
+    private long records;
+    private int users;
+
+}
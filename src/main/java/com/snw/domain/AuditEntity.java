@@ -0,0 +1,50 @@
+package com.snw.domain;
+
+import com.snw.config.AppConstants;
+import com.snw.domain.enumeration.AuditOperation;
+import lombok.*;
+
+import javax.persistence.*;
+import java.time.Instant;
+
+/**
+ * One change of an audited entity; all the changes of a transaction share its revision.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = AppConstants.TABLE_PREFIX + "audit", indexes = {
+        @Index(name = "idx_audit_entity_id", columnList = "entity_type, entity_id, id"),
+        @Index(name = "idx_audit_revision", columnList = "revision")
+})
+public class AuditEntity {
+
+    // Write order, pages of the history of an entity are keyed on it
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Long id;
+
+    // Time-ordered, a revision sorts after the ones of transactions that started auditing before
+    @Column(name = "revision", length = 36)
+    private String revision;
+
+    @Column(name = "entity_type", length = 20)
+    private String entityType;
+
+    @Column(name = "entity_id", length = 50)
+    private String entityId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "operation", length = 10)
+    private AuditOperation operation;
+
+    // JSON object of the audited fields
+    @Column(name = "state", length = 1000)
+    private String state;
+
+    @Column(name = "changed_at")
+    private Instant changedAt;
+}
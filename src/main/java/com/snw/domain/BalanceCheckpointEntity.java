@@ -0,0 +1,42 @@
+package com.snw.domain;
+
+import com.snw.config.AppConstants;
+import lombok.*;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+/**
+ * Balance of a user made of all its ledger records up to (and including) a ledger sequence.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@IdClass(BalanceCheckpointEntity.Key.class)
+@Table(name = AppConstants.TABLE_PREFIX + "checkpoint")
+public class BalanceCheckpointEntity {
+
+    @Id
+    @Column(name = "user", length = 50)
+    private String user;
+
+    @Id
+    @Column(name = "seq")
+    private Long sequence;
+
+    @Column(precision = 10, scale = 2, name = "balance")
+    private BigDecimal balance;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+
+        private String user;
+
+        private Long sequence;
+    }
+}
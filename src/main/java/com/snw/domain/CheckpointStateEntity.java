@@ -0,0 +1,27 @@
+package com.snw.domain;
+
+import com.snw.config.AppConstants;
+import lombok.*;
+
+import javax.persistence.*;
+
+/**
+ * Single row holding the sequence the balance checkpoints have been taken up to.
+ * Locked by the checkpointer and by the ledger edits, which must not interleave.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = AppConstants.TABLE_PREFIX + "checkpoint_state")
+public class CheckpointStateEntity {
+
+    public static final int ID = 1;
+
+    @Id
+    @Column(name = "id")
+    private Integer id;
+
+    @Column(name = "horizon")
+    private Long horizon;
+}
@@ -2,11 +2,13 @@ package com.snw.domain;
 
 import com.snw.config.AppConstants;
 import com.snw.domain.enumeration.AccountingStatus;
+import com.snw.domain.id.LedgerSequenceListener;
 import lombok.*;
 import org.hibernate.annotations.GenericGenerator;
 
 import javax.persistence.*;
 import java.math.BigDecimal;
+import java.time.Instant;
 
 @Data
 @Builder
@@ -14,12 +16,18 @@ import java.math.BigDecimal;
 @AllArgsConstructor
 @EqualsAndHashCode(of = "id", doNotUseGetters = true, callSuper = false)
 @Entity
-@Table(name = AppConstants.TABLE_PREFIX + "address")
+@EntityListeners(LedgerSequenceListener.class)
+@Table(name = AppConstants.TABLE_PREFIX + "address", indexes = {
+        @Index(name = "idx_address_user_status_amount", columnList = "user, accounting_status, amount"),
+        @Index(name = "idx_address_user_id", columnList = "user, id"),
+        @Index(name = "idx_address_user_created_at", columnList = "user, created_at, id"),
+        @Index(name = "idx_address_user_seq", columnList = "user, seq")
+})
 public class FinancialEntity {
 
     @Id
-    @GeneratedValue(generator = "system-uuid")
-    @GenericGenerator(name = "system-uuid", strategy = "uuid2")
+    @GeneratedValue(generator = "ledger-id")
+    @GenericGenerator(name = "ledger-id", strategy = "com.snw.domain.id.LedgerIdGenerator")
     @Column(name = "id", unique = true, length = 50)
     private String id;
 
@@ -33,4 +41,26 @@ public class FinancialEntity {
     @Column(precision = 10, scale = 2, name = "amount")
     private BigDecimal amount;
 
+    @Column(name = "created_at")
+    private Instant createdAt;
+
+    // Position in the ledger, see LedgerSequence
+    @Column(name = "seq", unique = true, updatable = false)
+    private Long sequence;
+
+    /**
+     * Forgets the id and ledger sequence given by a rolled back attempt, so a retry inserts the record afresh.
+     */
+    public void resetForRetry() {
+        id = null;
+        sequence = null;
+    }
+
+    @PrePersist
+    void markCreated() {
+        if (createdAt == null) {
+            createdAt = Instant.now();
+        }
+    }
+
 }
@@ -0,0 +1,61 @@
+package com.snw.domain;
+
+import com.snw.config.AppConstants;
+import lombok.*;
+import org.springframework.data.domain.Persistable;
+
+import javax.persistence.*;
+import java.time.Instant;
+
+/**
+ * Response of a credit request sent with an {@code Idempotency-Key}, replayed to the retries of the request.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = AppConstants.TABLE_PREFIX + "idempotency", indexes = {
+        @Index(name = "idx_idempotency_created_at", columnList = "created_at")
+})
+public class IdempotencyKeyEntity implements Persistable<String> {
+
+    @Id
+    @Column(name = "idempotency_key", length = 100)
+    private String key;
+
+    // Hash of the records, a key reused for another request is rejected
+    @Column(name = "fingerprint", length = 44)
+    private String fingerprint;
+
+    // JSON object of the credit of each user
+    @Lob
+    @Column(name = "response")
+    private String response;
+
+    @Column(name = "created_at")
+    private Instant createdAt;
+
+    // Keys are only inserted, save() persists them without a SELECT
+    @Transient
+    @Builder.Default
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private boolean newEntity = true;
+
+    @Override
+    public String getId() {
+        return key;
+    }
+
+    @Override
+    public boolean isNew() {
+        return newEntity;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.newEntity = false;
+    }
+}
@@ -2,11 +2,9 @@ package com.snw.domain;
 
 import com.snw.config.AppConstants;
 import lombok.*;
+import org.springframework.data.domain.Persistable;
 
-import javax.persistence.Column;
-import javax.persistence.Entity;
-import javax.persistence.Id;
-import javax.persistence.Table;
+import javax.persistence.*;
 import java.math.BigDecimal;
 
 @Data
@@ -16,7 +14,7 @@ import java.math.BigDecimal;
 @EqualsAndHashCode(of = "id", doNotUseGetters = true, callSuper = false)
 @Entity
 @Table(name = AppConstants.TABLE_PREFIX + "wallet")
-public class WalletEntity {
+public class WalletEntity implements Persistable<String> {
 
     @Id
     @Column(name = "user", unique = true, length = 50)
@@ -25,4 +23,37 @@ public class WalletEntity {
     @Column(precision = 10, scale = 2, name = "credit")
     private BigDecimal credit;
 
+    @Version
+    @Column(name = "version")
+    private Long version;
+
+    // Lets saveAll() persist new wallets directly instead of merging them (no extra SELECT per user)
+    @Transient
+    @Builder.Default
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private boolean newEntity = true;
+
+    public WalletEntity(String user, BigDecimal credit) {
+        this.user = user;
+        this.credit = credit;
+        this.newEntity = true;
+    }
+
+    @Override
+    public String getId() {
+        return user;
+    }
+
+    @Override
+    public boolean isNew() {
+        return newEntity;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.newEntity = false;
+    }
+
 }
@@ -0,0 +1,6 @@
+package com.snw.domain.enumeration;
+
+public enum AuditDurability {
+    ASYNC, // written in batches by a background writer after commit, lost if the process dies before
+    TRANSACTIONAL // written in the audited transaction, one extra JDBC batch per commit
+}
@@ -0,0 +1,7 @@
+package com.snw.domain.enumeration;
+
+public enum AuditOperation {
+    CREATE,
+    UPDATE,
+    DELETE
+}
@@ -0,0 +1,6 @@
+package com.snw.domain.enumeration;
+
+public enum BalanceMode {
+    LEDGER, // wallet credit is recomputed from the ledger (wallet_address) on every batch
+    INCREMENTAL // wallet credit is the running total, only the batch deltas are applied
+}
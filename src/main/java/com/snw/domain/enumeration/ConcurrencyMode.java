@@ -0,0 +1,6 @@
+package com.snw.domain.enumeration;
+
+public enum ConcurrencyMode {
+    PESSIMISTIC, // wallet rows are locked (SELECT ... FOR UPDATE) for the whole credit transaction
+    OPTIMISTIC // wallet rows are updated conditionally on their version, conflicts are retried
+}
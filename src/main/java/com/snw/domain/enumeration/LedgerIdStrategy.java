@@ -0,0 +1,6 @@
+package com.snw.domain.enumeration;
+
+public enum LedgerIdStrategy {
+    UUID2, // random (version 4) UUID
+    TIME_ORDERED // version 7 UUID, prefixed by the creation time in milliseconds
+}
@@ -0,0 +1,35 @@
+package com.snw.domain.enumeration;
+
+/**
+ * Operations taking pessimistic row locks, each one with its own lock timeout.
+ */
+public enum LockOperation {
+    // Wallets of a credit batch
+    CREDIT(true, false),
+    // Wallets of a bulk import
+    IMPORT(true, false),
+    // A ledger record being edited or deleted
+    RECORD(false, false),
+    // Checkpoint state of the scheduled checkpoint, another holder means a checkpoint is already running
+    CHECKPOINT(false, true);
+
+    private final boolean wallets;
+
+    private final boolean skippable;
+
+    LockOperation(boolean wallets, boolean skippable) {
+        this.wallets = wallets;
+        this.skippable = skippable;
+    }
+
+    /**
+     * @return whether the locked keys are users, rather than record ids or the checkpoint state
+     */
+    public boolean isOnWallets() {
+        return wallets;
+    }
+
+    public boolean isSkippable() {
+        return skippable;
+    }
+}
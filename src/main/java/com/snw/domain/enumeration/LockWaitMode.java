@@ -0,0 +1,13 @@
+package com.snw.domain.enumeration;
+
+/**
+ * What a pessimistic lock request does when another transaction holds the row.
+ */
+public enum LockWaitMode {
+    // Waits up to the lock timeout of the operation (or of the connection when it has none)
+    WAIT,
+    // Fails right away
+    NOWAIT,
+    // Goes on without the row, only for operations that can skip their work
+    SKIP_LOCKED
+}
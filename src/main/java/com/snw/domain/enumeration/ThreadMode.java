@@ -0,0 +1,6 @@
+package com.snw.domain.enumeration;
+
+public enum ThreadMode {
+    PLATFORM, // requests are served by the fixed Tomcat worker pool
+    VIRTUAL // one virtual thread per request and per async service call, needs a Java 21 runtime
+}
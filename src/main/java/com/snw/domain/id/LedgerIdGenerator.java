@@ -0,0 +1,40 @@
+package com.snw.domain.id;
+
+import com.snw.domain.enumeration.LedgerIdStrategy;
+import org.hibernate.HibernateException;
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.io.Serializable;
+import java.util.Properties;
+
+/**
+ * Generates the string ids of the ledger records.
+ * <p>
+ * The strategy is read from the {@link #STRATEGY_SETTING} Hibernate setting, the ids come from {@link LedgerIds}.
+ */
+public class LedgerIdGenerator implements IdentifierGenerator {
+
+    public static final String STRATEGY_SETTING = "wallet.ledger.id_strategy";
+
+    private LedgerIdStrategy strategy = LedgerIdStrategy.TIME_ORDERED;
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+        Object setting = serviceRegistry.getService(ConfigurationService.class)
+                .getSettings().get(STRATEGY_SETTING);
+
+        if (setting != null) {
+            strategy = LedgerIdStrategy.valueOf(setting.toString().trim().toUpperCase());
+        }
+    }
+
+    @Override
+    public Serializable generate(SharedSessionContractImplementor session, Object object) throws HibernateException {
+        return LedgerIds.next(strategy);
+    }
+}
@@ -0,0 +1,41 @@
+package com.snw.domain.id;
+
+import com.snw.domain.enumeration.LedgerIdStrategy;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ids of the ledger records, free of any persistence dependency so every writer can assign them.
+ * Time-ordered ids keep the inserts at the right end of the primary key index instead of spreading them all over it.
+ */
+public final class LedgerIds {
+
+    // Last issued (timestamp << 12 | counter), keeps ids monotonic inside the same millisecond
+    private static final AtomicLong LAST_TIMESTAMP = new AtomicLong();
+
+    private LedgerIds() {
+    }
+
+    public static String next(LedgerIdStrategy strategy) {
+        return strategy == LedgerIdStrategy.UUID2 ? UUID.randomUUID().toString() : timeOrdered().toString();
+    }
+
+    /**
+     * @return a version 7 UUID: 48 bits unix millis, 4 bits version, 12 bits counter, 2 bits variant, 62 random bits
+     */
+    public static UUID timeOrdered() {
+        return timeOrdered(System.currentTimeMillis());
+    }
+
+    static UUID timeOrdered(long currentTimeMillis) {
+        long now = currentTimeMillis << 12;
+        long next = LAST_TIMESTAMP.updateAndGet(prev -> Math.max(prev + 1, now));
+
+        long mostSigBits = ((next >>> 12) << 16) | 0x7000L | (next & 0xFFFL);
+        long leastSigBits = (ThreadLocalRandom.current().nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+
+        return new UUID(mostSigBits, leastSigBits);
+    }
+}
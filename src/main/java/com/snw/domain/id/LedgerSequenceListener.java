@@ -0,0 +1,26 @@
+package com.snw.domain.id;
+
+import com.snw.domain.FinancialEntity;
+import com.snw.repository.LedgerSequence;
+
+import javax.persistence.PrePersist;
+
+/**
+ * Gives a ledger sequence to the records persisted one by one; batch writers assign theirs upfront in one round trip.
+ * Instantiated by Spring through Hibernate's bean container.
+ */
+public class LedgerSequenceListener {
+
+    private final LedgerSequence ledgerSequence;
+
+    public LedgerSequenceListener(LedgerSequence ledgerSequence) {
+        this.ledgerSequence = ledgerSequence;
+    }
+
+    @PrePersist
+    void assignSequence(FinancialEntity entity) {
+        if (entity.getSequence() == null) {
+            entity.setSequence(ledgerSequence.next());
+        }
+    }
+}
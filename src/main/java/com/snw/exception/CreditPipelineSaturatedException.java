@@ -0,0 +1,16 @@
+
+package com.snw.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class CreditPipelineSaturatedException extends RuntimeException {
+	public CreditPipelineSaturatedException() {
+		super("Too many pending credit requests, try again later");
+	}
+
+	public CreditPipelineSaturatedException(String message) {
+		super(message);
+	}
+}
@@ -1,5 +1,9 @@
 package com.snw.exception;
 
+import com.snw.metrics.WalletMetrics;
+import com.snw.metrics.WalletMetrics.Conflict;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.PessimisticLockingFailureException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -19,11 +23,18 @@ import java.util.Date;
 @RestController
 public class ExceptionHandlerAdvice extends ResponseEntityExceptionHandler {
 
+    private final WalletMetrics metrics;
+
+    public ExceptionHandlerAdvice(WalletMetrics metrics) {
+        this.metrics = metrics;
+    }
+
     @ExceptionHandler(TransactionSystemException.class)
     public ResponseEntity<String> handlePessimisticLockException(TransactionSystemException ex, WebRequest request) {
         Throwable cause = ex.getRootCause();
 
         if (cause instanceof SQLException) {
+            metrics.recordConflict(Conflict.PESSIMISTIC);
             ExceptionResponse exceptionResponse = new ExceptionResponse(new Date(),
                     "The entity has been locked by another transaction",
                     cause.getMessage());
@@ -33,6 +44,58 @@ public class ExceptionHandlerAdvice extends ResponseEntityExceptionHandler {
         }
     }
 
+    @ExceptionHandler(PessimisticLockingFailureException.class)
+    public ResponseEntity<String> handlePessimisticLockingFailureException(PessimisticLockingFailureException ex,
+                                                                           WebRequest request) {
+        metrics.recordConflict(Conflict.PESSIMISTIC);
+        ExceptionResponse exceptionResponse = new ExceptionResponse(new Date(),
+                "The entity has been locked by another transaction",
+                ex.getMostSpecificCause().getMessage());
+        return new ResponseEntity(exceptionResponse, HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler(UserLockTimeoutException.class)
+    public ResponseEntity<String> handleUserLockTimeoutException(UserLockTimeoutException ex, WebRequest request) {
+        metrics.recordConflict(Conflict.STRIPED);
+        ExceptionResponse exceptionResponse = new ExceptionResponse(new Date(), ex.getMessage(),
+                request.getDescription(false));
+        return new ResponseEntity(exceptionResponse, HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<String> handleOptimisticLockingFailureException(OptimisticLockingFailureException ex,
+                                                                          WebRequest request) {
+        metrics.recordConflict(Conflict.OPTIMISTIC);
+        ExceptionResponse exceptionResponse = new ExceptionResponse(new Date(),
+                "The entity has been changed by another transaction",
+                ex.getMessage());
+        return new ResponseEntity(exceptionResponse, HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler(CreditPipelineSaturatedException.class)
+    public ResponseEntity<String> handleCreditPipelineSaturatedException(CreditPipelineSaturatedException ex,
+                                                                         WebRequest request) {
+        ExceptionResponse exceptionResponse = new ExceptionResponse(new Date(), ex.getMessage(),
+                request.getDescription(false));
+        return new ResponseEntity(exceptionResponse, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    @ExceptionHandler(IdempotencyKeyInUseException.class)
+    public ResponseEntity<String> handleIdempotencyKeyInUseException(IdempotencyKeyInUseException ex,
+                                                                     WebRequest request) {
+        ExceptionResponse exceptionResponse = new ExceptionResponse(new Date(), ex.getMessage(),
+                request.getDescription(false));
+        return new ResponseEntity(exceptionResponse, HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler(IdempotencyKeyMismatchException.class)
+    public ResponseEntity<String> handleIdempotencyKeyMismatchException(IdempotencyKeyMismatchException ex,
+                                                                        WebRequest request) {
+        ExceptionResponse exceptionResponse = new ExceptionResponse(new Date(), ex.getMessage(),
+                request.getDescription(false));
+        return new ResponseEntity(exceptionResponse, HttpStatus.UNPROCESSABLE_ENTITY);
+    }
+
     @ExceptionHandler(IllegalArgumentException.class)
     public ResponseEntity<String> handleIllegalArgumentException(IllegalArgumentException ex, WebRequest request) {
         ExceptionResponse exceptionResponse = new ExceptionResponse(new Date(), ex.getMessage(),
@@ -0,0 +1,12 @@
+package com.snw.exception;
+
+/**
+ * The key of a credit has been stored by another request (e.g. on another instance) in the meantime.
+ * Not a {@link org.springframework.dao.DataIntegrityViolationException}, so the credit is not retried:
+ * the response stored with the key is replayed instead.
+ */
+public class IdempotencyKeyConflictException extends RuntimeException {
+	public IdempotencyKeyConflictException(Throwable cause) {
+		super("The Idempotency-Key has been stored by another request", cause);
+	}
+}
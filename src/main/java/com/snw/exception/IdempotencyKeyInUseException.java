@@ -0,0 +1,15 @@
+package com.snw.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class IdempotencyKeyInUseException extends RuntimeException {
+	public IdempotencyKeyInUseException() {
+		super("A request with the same Idempotency-Key is in progress");
+	}
+
+	public IdempotencyKeyInUseException(String message) {
+		super(message);
+	}
+}
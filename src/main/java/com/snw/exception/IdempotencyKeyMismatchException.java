@@ -0,0 +1,15 @@
+package com.snw.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.UNPROCESSABLE_ENTITY)
+public class IdempotencyKeyMismatchException extends RuntimeException {
+	public IdempotencyKeyMismatchException() {
+		super("The Idempotency-Key has been used for another request");
+	}
+
+	public IdempotencyKeyMismatchException(String message) {
+		super(message);
+	}
+}
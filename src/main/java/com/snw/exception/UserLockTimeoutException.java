@@ -0,0 +1,25 @@
+
+package com.snw.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class UserLockTimeoutException extends RuntimeException {
+	public UserLockTimeoutException() {
+		super("The wallet is locked by another request");
+	}
+
+	public UserLockTimeoutException(String message) {
+		super(message);
+	}
+
+	public UserLockTimeoutException(Throwable cause) {
+		super(cause);
+	}
+
+	public UserLockTimeoutException(String message,
+									Throwable cause) {
+		super(message, cause);
+	}
+}
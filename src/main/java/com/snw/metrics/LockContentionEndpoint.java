@@ -0,0 +1,39 @@
+package com.snw.metrics;
+
+import com.snw.service.lock.LockContention;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * {@code /actuator/locks}: the application view of the row lock contention, plus the database sessions
+ * blocked right now, with the statement of their blocker.
+ */
+@Component
+@Endpoint(id = "locks")
+public class LockContentionEndpoint {
+
+    private static final String BLOCKED_SESSIONS = "SELECT s.ID AS session, s.STATEMENT AS statement, " +
+            "s.STATEMENT_START AS since, s.BLOCKER_ID AS blocker, b.STATEMENT AS blockerStatement " +
+            "FROM INFORMATION_SCHEMA.SESSIONS s LEFT JOIN INFORMATION_SCHEMA.SESSIONS b ON b.ID = s.BLOCKER_ID " +
+            "WHERE s.BLOCKER_ID IS NOT NULL ORDER BY s.STATEMENT_START";
+
+    private final LockContention contention;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public LockContentionEndpoint(LockContention contention, JdbcTemplate jdbcTemplate) {
+        this.contention = contention;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @ReadOperation
+    public Map<String, Object> locks() {
+        Map<String, Object> report = contention.report();
+        report.put("blockedSessions", jdbcTemplate.queryForList(BLOCKED_SESSIONS));
+        return report;
+    }
+}
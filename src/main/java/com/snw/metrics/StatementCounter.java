@@ -0,0 +1,28 @@
+package com.snw.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Counts the SQL statements Hibernate prepares on the current thread, a cheap replacement for
+ * {@code hibernate.generate_statistics} which is global and synchronized.
+ */
+public class StatementCounter implements StatementInspector {
+
+    private static final ThreadLocal<int[]> COUNT = ThreadLocal.withInitial(() -> new int[1]);
+
+    @Override
+    public String inspect(String sql) {
+        COUNT.get()[0]++;
+        return sql;
+    }
+
+    /**
+     * @return the statements counted on this thread since the previous call
+     */
+    public static int reset() {
+        int[] count = COUNT.get();
+        int statements = count[0];
+        count[0] = 0;
+        return statements;
+    }
+}
@@ -0,0 +1,90 @@
+package com.snw.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Meters of the credit hot path, created once so recording is a plain field access.
+ * <p>
+ * The phases cover the work done inside {@code updateCredit}; the ledger and wallet rows are only
+ * flushed at commit, their cost shows in {@code http.server.requests} and in the statement counts.
+ */
+@Component
+public class WalletMetrics {
+
+    public enum CreditPhase {
+        VALIDATION, AGGREGATION, LOCK, LEDGER_SUM, BOUNDARY, UPSERT, SAVE;
+
+        private final String tag = name().toLowerCase(Locale.ROOT).replace('_', '-');
+    }
+
+    public enum Conflict {
+        PESSIMISTIC, OPTIMISTIC, STRIPED;
+
+        private final String tag = name().toLowerCase(Locale.ROOT);
+    }
+
+    private final Map<CreditPhase, Timer> phases = new EnumMap<>(CreditPhase.class);
+
+    private final Map<Conflict, Counter> conflicts = new EnumMap<>(Conflict.class);
+
+    private final DistributionSummary batchSize;
+
+    private final DistributionSummary batchUsers;
+
+    public WalletMetrics(MeterRegistry registry) {
+        for (CreditPhase phase : CreditPhase.values()) {
+            phases.put(phase, Timer.builder("wallet.credit.phase")
+                    .description("Time spent in each phase of a credit")
+                    .tag("phase", phase.tag)
+                    // The row lock wait is the phase worth a histogram
+                    .publishPercentileHistogram(phase == CreditPhase.LOCK)
+                    .register(registry));
+        }
+        for (Conflict conflict : Conflict.values()) {
+            conflicts.put(conflict, Counter.builder("wallet.lock.conflicts")
+                    .description("Requests answered with 409 because of a lock conflict")
+                    .tag("type", conflict.tag)
+                    .register(registry));
+        }
+
+        this.batchSize = DistributionSummary.builder("wallet.credit.batch.size")
+                .description("Records per credit batch")
+                .baseUnit("records")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.batchUsers = DistributionSummary.builder("wallet.credit.batch.users")
+                .description("Distinct users per credit batch")
+                .baseUnit("users")
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    public void recordBatch(int records, int users) {
+        batchSize.record(records);
+        batchUsers.record(users);
+    }
+
+    /**
+     * Records the time elapsed since {@code start} against the phase.
+     *
+     * @return the current {@link System#nanoTime()}, the start of the next phase
+     */
+    public long recordPhase(CreditPhase phase, long start) {
+        long now = System.nanoTime();
+        phases.get(phase).record(now - start, TimeUnit.NANOSECONDS);
+        return now;
+    }
+
+    public void recordConflict(Conflict conflict) {
+        conflicts.get(conflict).increment();
+    }
+}
@@ -0,0 +1,19 @@
+package com.snw.repository;
+
+import com.snw.domain.AuditEntity;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface AuditRepository extends JpaRepository<AuditEntity, Long> {
+
+    List<AuditEntity> findByEntityTypeAndEntityIdAndIdGreaterThanOrderById(String entityType,
+                                                                           String entityId,
+                                                                           Long after,
+                                                                           Pageable pageable);
+
+    List<AuditEntity> findByRevisionOrderById(String revision);
+}
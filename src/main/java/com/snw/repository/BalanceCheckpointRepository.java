@@ -0,0 +1,35 @@
+package com.snw.repository;
+
+import com.snw.domain.BalanceCheckpointEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface BalanceCheckpointRepository extends JpaRepository<BalanceCheckpointEntity, BalanceCheckpointEntity.Key> {
+
+    Optional<BalanceCheckpointEntity> findFirstByUserAndSequenceLessThanEqualOrderBySequenceDesc(String user,
+                                                                                                 Long sequence);
+
+    @Query("SELECT c FROM BalanceCheckpointEntity c WHERE c.user IN :users AND c.sequence = " +
+            "(SELECT MAX(l.sequence) FROM BalanceCheckpointEntity l WHERE l.user = c.user)")
+    List<BalanceCheckpointEntity> findLatestIn(@Param("users") Collection<String> users);
+
+    @Query("SELECT MAX(c.sequence) FROM BalanceCheckpointEntity c WHERE c.user = :user")
+    Long findLatestSequence(@Param("user") String user);
+
+    // Moves a record amount in or out of every checkpoint taken after it
+    @Modifying
+    @Query("UPDATE BalanceCheckpointEntity c SET c.balance = c.balance + :delta " +
+            "WHERE c.user = :user AND c.sequence >= :sequence")
+    int addFrom(@Param("user") String user,
+                @Param("sequence") Long sequence,
+                @Param("delta") BigDecimal delta);
+}
@@ -0,0 +1,19 @@
+package com.snw.repository;
+
+import com.snw.domain.CheckpointStateEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.LockModeType;
+import java.util.Optional;
+
+@Repository
+public interface CheckpointStateRepository extends JpaRepository<CheckpointStateEntity, Integer> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM CheckpointStateEntity s WHERE s.id = :id")
+    Optional<CheckpointStateEntity> lock(@Param("id") Integer id);
+}
@@ -2,24 +2,79 @@ package com.snw.repository;
 
 
 import com.snw.domain.FinancialEntity;
+import com.snw.domain.WalletEntity;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
 @Repository
 public interface FinancialRepository extends JpaRepository<FinancialEntity, String> {
 
-    // @Transactional
+    // The H2 dialect ignores javax.persistence.lock.timeout, PessimisticLocks sets the timeout of the RECORD lock
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     @Query("SELECT e FROM FinancialEntity e WHERE e.id = :id")
-    // @QueryHints({@QueryHint(name = "javax.persistence.lock.timeout", value="1000")})
-    // @QueryHints({@QueryHint(name = "jakarta.persistence.lock.timeout", value="1000")})
     FinancialEntity lock(@Param("id") String id);
 
+    // Single statement edits of a record already locked by lock(id), the persistence context is bypassed
+    @Modifying
+    @Query("UPDATE FinancialEntity e SET e.user = :user, e.amount = :amount WHERE e.id = :id")
+    int updateLocked(@Param("id") String id, @Param("user") String user, @Param("amount") BigDecimal amount);
+
+    @Modifying
+    @Query("DELETE FROM FinancialEntity e WHERE e.id = :id")
+    int deleteLocked(@Param("id") String id);
+
     List<FinancialEntity> findByUser(String user);
+
+    // Keyset pagination, the primary key index both filters and orders
+    List<FinancialEntity> findByIdGreaterThanOrderByIdAsc(String after, Pageable pageable);
+
+    List<FinancialEntity> findByUserAndIdGreaterThanOrderByIdAsc(String user, String after, Pageable pageable);
+
+    // Keyset on (created_at, id) after the record (afterCreatedAt, after), the (user, created_at, id) index
+    // bounds the scan to the page
+    @Query("SELECT e FROM FinancialEntity e WHERE e.user = :user " +
+            "AND e.createdAt >= :afterCreatedAt AND e.createdAt < :to " +
+            "AND (e.createdAt > :afterCreatedAt OR e.id > :after) ORDER BY e.createdAt, e.id")
+    List<FinancialEntity> findByUserCreatedBetween(@Param("user") String user,
+                                                   @Param("afterCreatedAt") Instant afterCreatedAt,
+                                                   @Param("after") String after,
+                                                   @Param("to") Instant to,
+                                                   Pageable pageable);
+
+    // Per-user sums of a range of the ledger, served by the unique index on the sequence
+    @Query("SELECT new com.snw.domain.WalletEntity(fe.user, " +
+            "SUM(CASE WHEN fe.status = 'CREDITOR' THEN fe.amount ELSE -fe.amount END)) " +
+            "FROM FinancialEntity fe " +
+            "WHERE fe.sequence > :from AND fe.sequence <= :to " +
+            "GROUP BY fe.user")
+    List<WalletEntity> sumByUserBetween(@Param("from") Long from, @Param("to") Long to);
+
+    // Served by the (user, seq) index, null when the range is empty
+    @Query("SELECT SUM(CASE WHEN fe.status = 'CREDITOR' THEN fe.amount ELSE -fe.amount END) " +
+            "FROM FinancialEntity fe " +
+            "WHERE fe.user = :user AND fe.sequence > :from AND fe.sequence <= :to")
+    BigDecimal sumOfUserBetween(@Param("user") String user, @Param("from") Long from, @Param("to") Long to);
+
+    @Query("SELECT e.sequence FROM FinancialEntity e WHERE e.user = :user AND e.createdAt <= :at " +
+            "ORDER BY e.createdAt DESC, e.sequence DESC")
+    List<Long> findSequencesOfUserUntil(@Param("user") String user, @Param("at") Instant at, Pageable pageable);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT e FROM FinancialEntity e ORDER BY e.id")
+    Stream<FinancialEntity> streamAll();
 }
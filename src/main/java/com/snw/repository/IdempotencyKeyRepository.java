@@ -0,0 +1,18 @@
+package com.snw.repository;
+
+import com.snw.domain.IdempotencyKeyEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+
+@Repository
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKeyEntity, String> {
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyKeyEntity k WHERE k.createdAt < :before")
+    int deleteCreatedBefore(@Param("before") Instant before);
+}
@@ -0,0 +1,170 @@
+package com.snw.repository;
+
+import com.snw.config.AppConstants;
+import com.snw.domain.FinancialEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Allocates the monotonically increasing ledger sequence of the financial records from a database sequence.
+ * <p>
+ * Every transaction that allocated values is tracked until it completes, so {@link #horizon()} knows the highest
+ * sequence below which no record can still appear: values are allocated in order but committed in any order.
+ * The tracking is in-process, the application must be the only writer of the ledger.
+ */
+@Repository
+public class LedgerSequence {
+
+    public static final String SEQUENCE = AppConstants.TABLE_PREFIX + "ledger_seq";
+
+    private static final String NEXT_VALUES = "SELECT NEXT VALUE FOR " + SEQUENCE + " FROM SYSTEM_RANGE(1, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // Lowest value allocated by each running transaction
+    private final Map<Object, Long> inFlight = new ConcurrentHashMap<>();
+
+    // Shared by the allocations, exclusive for the horizon: an allocation is never seen without its transaction
+    private final ReadWriteLock allocation = new ReentrantReadWriteLock();
+
+    // Highest horizon handed out, only ever grows
+    private volatile long highestHorizon;
+
+    public LedgerSequence(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        jdbcTemplate.execute("CREATE SEQUENCE IF NOT EXISTS " + SEQUENCE);
+    }
+
+    public long next() {
+        return next(1)[0];
+    }
+
+    /**
+     * @return {@code count} new values, ascending
+     */
+    public long[] next(int count) {
+        allocation.readLock().lock();
+        try {
+            long[] values = query(count);
+            track(values[0]);
+            return values;
+        } finally {
+            allocation.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gives a new sequence, in list order, to every record in one round trip. A value left by a rolled back attempt
+     * is replaced: its transaction is not tracked anymore, the horizon may already have passed it.
+     */
+    public void assign(List<FinancialEntity> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+
+        long[] values = next(records.size());
+        for (int index = 0; index < values.length; index++) {
+            records.get(index).setSequence(values[index]);
+        }
+    }
+
+    /**
+     * Keeps {@code sequence} below every horizon until the current transaction completes, unless a horizon
+     * already passed it.
+     *
+     * @return {@code true} when no horizon has reached {@code sequence} nor will before the transaction completes
+     */
+    public boolean holdIfAhead(long sequence) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return false;
+        }
+
+        allocation.readLock().lock();
+        try {
+            if (sequence <= highestHorizon) {
+                return false;
+            }
+            track(sequence);
+            return true;
+        } finally {
+            allocation.readLock().unlock();
+        }
+    }
+
+    /**
+     * Records a horizon handed out before this instance, such as the one of the latest persisted checkpoint.
+     */
+    public void passed(long horizon) {
+        allocation.writeLock().lock();
+        try {
+            highestHorizon = Math.max(highestHorizon, horizon);
+        } finally {
+            allocation.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return the highest sequence up to which every record has been committed or rolled back
+     */
+    public long horizon() {
+        allocation.writeLock().lock();
+        try {
+            long horizon = query(1)[0] - 1;
+            for (long lowest : inFlight.values()) {
+                horizon = Math.min(horizon, lowest - 1);
+            }
+            highestHorizon = Math.max(highestHorizon, horizon);
+            return horizon;
+        } finally {
+            allocation.writeLock().unlock();
+        }
+    }
+
+    private long[] query(int count) {
+        long[] values = jdbcTemplate.queryForList(NEXT_VALUES, Long.class, count).stream()
+                .mapToLong(Long::longValue)
+                .sorted()
+                .toArray();
+        if (values.length != count) {
+            throw new IllegalStateException("Expected " + count + " ledger sequence values, got " + values.length);
+        }
+        return values;
+    }
+
+    private void track(long lowest) {
+        // Outside a transaction the record is visible as soon as it is written
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof Allocation && ((Allocation) synchronization).owner() == this) {
+                inFlight.merge(synchronization, lowest, Math::min);
+                return;
+            }
+        }
+
+        Allocation transaction = new Allocation();
+        inFlight.put(transaction, lowest);
+        TransactionSynchronizationManager.registerSynchronization(transaction);
+    }
+
+    private class Allocation implements TransactionSynchronization {
+
+        private LedgerSequence owner() {
+            return LedgerSequence.this;
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            inFlight.remove(this);
+        }
+    }
+}
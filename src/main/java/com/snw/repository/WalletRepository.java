@@ -4,24 +4,24 @@ package com.snw.repository;
 import com.snw.domain.WalletEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import javax.persistence.LockModeType;
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 
 @Repository
 public interface WalletRepository extends JpaRepository<WalletEntity, String> {
 
+    // Callers go through PessimisticLocks, which sorts and chunks the users and applies the lock timeout
     @Lock(LockModeType.PESSIMISTIC_WRITE)
-
-    @Query("SELECT e FROM WalletEntity e WHERE e.user  IN :users")
-    List<WalletEntity> lockAllIn(@Param("users") Set<String> users);
-
-    @Query("SELECT e FROM WalletEntity e WHERE e.user = :user")
-    WalletEntity getWithLock(@Param("user") String user);
+    @Query("SELECT e FROM WalletEntity e WHERE e.user IN :users ORDER BY e.user")
+    List<WalletEntity> lockAllIn(@Param("users") Collection<String> users);
 
     @Query(value =
             "SELECT " +
@@ -31,4 +31,23 @@ public interface WalletRepository extends JpaRepository<WalletEntity, String> {
                     "GROUP BY fe.user")
     List<WalletEntity> groupByUser();
 
+    // Served by the (user, accounting_status, amount) index of the ledger table
+    @Query(value =
+            "SELECT " +
+                    " new com.snw.domain.WalletEntity(fe.user, " +
+                    "SUM(CASE WHEN fe.status = 'CREDITOR' THEN fe.amount ELSE -fe.amount END))" +
+                    "FROM FinancialEntity fe " +
+                    "WHERE fe.user IN :users " +
+                    "GROUP BY fe.user")
+    List<WalletEntity> groupByUserIn(@Param("users") Set<String> users);
+
+    // Optimistic credit: applies only if nobody changed the wallet since it was read and the result stays in bounds
+    @Modifying
+    @Query("UPDATE WalletEntity e SET e.credit = e.credit + :delta, e.version = e.version + 1 " +
+            "WHERE e.user = :user AND e.version = :version " +
+            "AND e.credit + :delta BETWEEN 0 AND 1000000")
+    int addCredit(@Param("user") String user,
+                  @Param("delta") BigDecimal delta,
+                  @Param("version") Long version);
+
 }
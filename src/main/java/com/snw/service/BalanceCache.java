@@ -0,0 +1,75 @@
+package com.snw.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.snw.config.WalletProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Read-through cache of the wallet balances, bounded by size and time since write.
+ * Writers evict the users they touch once their transaction has committed, so a reader never
+ * caches a balance that could still be rolled back. Hits, misses and evictions are published
+ * as the {@code cache.*} metrics of the {@code balance} cache.
+ */
+@Component
+public class BalanceCache {
+
+    private final Cache<String, BigDecimal> cache;
+
+    private final boolean enabled;
+
+    public BalanceCache(WalletProperties properties, MeterRegistry meterRegistry) {
+        WalletProperties.Cache settings = properties.getCache();
+
+        this.enabled = settings.isEnabled();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(settings.getMaximumSize())
+                .expireAfterWrite(settings.getExpireAfterWrite())
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "balance");
+    }
+
+    /**
+     * @return the cached balance, or the one returned by {@code loader} (not cached when {@code null})
+     */
+    public BigDecimal get(String user, Function<String, BigDecimal> loader) {
+        return enabled ? cache.get(user, loader) : loader.apply(user);
+    }
+
+    /**
+     * Evicts the users after the commit of the current transaction, right away when there is none.
+     */
+    public void evictAfterCommit(Collection<String> users) {
+        if (!enabled) {
+            return;
+        }
+
+        // Copy, the caller may keep mutating its collection until the commit
+        List<String> evicted = users.stream().filter(Objects::nonNull).collect(Collectors.toList());
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            cache.invalidateAll(evicted);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                cache.invalidateAll(evicted);
+            }
+        });
+    }
+}
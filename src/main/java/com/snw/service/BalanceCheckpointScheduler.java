@@ -0,0 +1,22 @@
+package com.snw.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConditionalOnProperty(prefix = "wallet.balance.checkpoint", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class BalanceCheckpointScheduler {
+
+    private final BalanceCheckpointService checkpointService;
+
+    public BalanceCheckpointScheduler(BalanceCheckpointService checkpointService) {
+        this.checkpointService = checkpointService;
+    }
+
+    @Scheduled(fixedDelayString = "${wallet.balance.checkpoint.interval:PT1M}",
+            initialDelayString = "${wallet.balance.checkpoint.interval:PT1M}")
+    public void checkpoint() {
+        checkpointService.checkpoint();
+    }
+}
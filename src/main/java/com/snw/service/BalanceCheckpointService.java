@@ -0,0 +1,215 @@
+package com.snw.service;
+
+import com.snw.config.AppConstants;
+import com.snw.domain.BalanceCheckpointEntity;
+import com.snw.domain.CheckpointStateEntity;
+import com.snw.domain.FinancialEntity;
+import com.snw.domain.WalletEntity;
+import com.snw.domain.enumeration.AccountingStatus;
+import com.snw.domain.enumeration.LockOperation;
+import com.snw.exception.NoRecordFoundException;
+import com.snw.repository.BalanceCheckpointRepository;
+import com.snw.repository.CheckpointStateRepository;
+import com.snw.repository.FinancialRepository;
+import com.snw.repository.LedgerSequence;
+import com.snw.service.lock.PessimisticLocks;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Point-in-time balances as the latest checkpoint of the user plus the tail of its ledger after it.
+ * <p>
+ * Checkpoints are taken at the sequence horizon, for every user with records since the previous horizon,
+ * so a user never has records between its latest checkpoint and the horizon and a tail never spans
+ * more than one checkpoint interval of that user's activity.
+ */
+@Slf4j
+@Service
+@Transactional
+public class BalanceCheckpointService {
+
+    private static final String INSERT_CHECKPOINT = "INSERT INTO " + AppConstants.TABLE_PREFIX + "checkpoint " +
+            "(user, seq, balance) VALUES (?, ?, ?)";
+
+    // Users whose latest checkpoint is read per query
+    private static final int USER_CHUNK = 1000;
+
+    private final FinancialRepository financialRepository;
+
+    private final BalanceCheckpointRepository checkpointRepository;
+
+    private final CheckpointStateRepository stateRepository;
+
+    private final LedgerSequence ledgerSequence;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final PessimisticLocks locks;
+
+    public BalanceCheckpointService(FinancialRepository financialRepository,
+                                    BalanceCheckpointRepository checkpointRepository,
+                                    CheckpointStateRepository stateRepository,
+                                    LedgerSequence ledgerSequence,
+                                    JdbcTemplate jdbcTemplate,
+                                    PessimisticLocks locks) {
+        this.financialRepository = financialRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.stateRepository = stateRepository;
+        this.ledgerSequence = ledgerSequence;
+        this.jdbcTemplate = jdbcTemplate;
+        this.locks = locks;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        CheckpointStateEntity state = stateRepository.findById(CheckpointStateEntity.ID)
+                .orElseGet(() -> stateRepository.save(new CheckpointStateEntity(CheckpointStateEntity.ID, 0L)));
+        // Checkpoints of a previous run cover records too
+        ledgerSequence.passed(state.getHorizon());
+    }
+
+    /**
+     * Checkpoints every user with ledger records between the previous horizon and the current one.
+     *
+     * @return the number of checkpoints written, 0 when skipped because another checkpoint is running
+     */
+    public int checkpoint() {
+        Optional<CheckpointStateEntity> locked = locks.lockCheckpointState(LockOperation.CHECKPOINT);
+        if (locked.isEmpty()) {
+            log.debug("Checkpoint state is locked, skipping this checkpoint");
+            return 0;
+        }
+        CheckpointStateEntity state = locked.get();
+        long from = state.getHorizon();
+        long to = ledgerSequence.horizon();
+        if (to <= from) {
+            return 0;
+        }
+
+        List<WalletEntity> deltas = financialRepository.sumByUserBetween(from, to);
+        List<Object[]> checkpoints = new ArrayList<>(deltas.size());
+
+        for (int start = 0; start < deltas.size(); start += USER_CHUNK) {
+            List<WalletEntity> chunk = deltas.subList(start, Math.min(start + USER_CHUNK, deltas.size()));
+            Map<String, BigDecimal> latest = checkpointRepository
+                    .findLatestIn(chunk.stream().map(WalletEntity::getUser).collect(Collectors.toList())).stream()
+                    .collect(Collectors.toMap(BalanceCheckpointEntity::getUser, BalanceCheckpointEntity::getBalance));
+
+            chunk.forEach(delta -> checkpoints.add(new Object[]{delta.getUser(), to,
+                    latest.getOrDefault(delta.getUser(), BigDecimal.ZERO).add(delta.getCredit())}));
+        }
+
+        if (!checkpoints.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_CHECKPOINT, checkpoints);
+        }
+        state.setHorizon(to);
+
+        log.debug("Checkpointed {} users up to ledger sequence {}", checkpoints.size(), to);
+        return checkpoints.size();
+    }
+
+    /**
+     * @param asOf a ledger sequence, or an ISO-8601 instant resolved to the last record of the user created at
+     *             or before it
+     * @return the balance made of the records of the user up to {@code asOf}
+     */
+    @Transactional(readOnly = true)
+    public BigDecimal getBalanceAsOf(String user, String asOf) {
+        if (!asOf.isEmpty() && asOf.chars().allMatch(Character::isDigit)) {
+            return getBalanceAsOf(user, Long.parseLong(asOf));
+        }
+
+        Instant at;
+        try {
+            at = Instant.parse(asOf);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("asOf must be a ledger sequence or an ISO-8601 instant");
+        }
+
+        List<Long> sequences = financialRepository.findSequencesOfUserUntil(user, at, PageRequest.of(0, 1));
+        if (sequences.isEmpty() || sequences.get(0) == null) {
+            throw new NoRecordFoundException("Wallet entity not found");
+        }
+        return getBalanceAsOf(user, sequences.get(0));
+    }
+
+    @Transactional(readOnly = true)
+    public BigDecimal getBalanceAsOf(String user, long sequence) {
+        Optional<BalanceCheckpointEntity> checkpoint =
+                checkpointRepository.findFirstByUserAndSequenceLessThanEqualOrderBySequenceDesc(user, sequence);
+        long from = checkpoint.map(BalanceCheckpointEntity::getSequence).orElse(0L);
+
+        BigDecimal tail = financialRepository.sumOfUserBetween(user, from, sequence);
+        if (checkpoint.isEmpty() && tail == null) {
+            throw new NoRecordFoundException("Wallet entity not found");
+        }
+
+        BigDecimal balance = checkpoint.map(BalanceCheckpointEntity::getBalance).orElse(BigDecimal.ZERO);
+        return tail == null ? balance : balance.add(tail);
+    }
+
+    /**
+     * Keeps the checkpoints in line with an edited ledger record: its previous amount is taken out of the
+     * checkpoints of its previous user and its current amount added to the ones of its current user.
+     *
+     * @param previous the record before the edit
+     * @param current  the record after the edit, {@code null} when it has been deleted
+     */
+    public void onRecordChanged(FinancialEntity previous, FinancialEntity current) {
+        if (previous.getSequence() == null) {
+            return;
+        }
+
+        long sequence = previous.getSequence();
+        if (ledgerSequence.holdIfAhead(sequence)) {
+            // Not part of any checkpoint yet, nor of one taken before this edit commits
+            return;
+        }
+        long horizon = lockState(LockOperation.RECORD).getHorizon();
+        if (sequence > horizon) {
+            // Not part of any checkpoint yet
+            return;
+        }
+
+        checkpointRepository.addFrom(previous.getUser(), sequence, delta(previous).negate());
+        if (current == null) {
+            return;
+        }
+        checkpointRepository.addFrom(current.getUser(), sequence, delta(current));
+
+        // A user moved onto the record may have no checkpoint covering it, its latest one becomes the horizon
+        Long latest = checkpointRepository.findLatestSequence(current.getUser());
+        if (latest == null || latest < sequence) {
+            BigDecimal base = latest == null ? BigDecimal.ZERO : checkpointRepository
+                    .findById(new BalanceCheckpointEntity.Key(current.getUser(), latest))
+                    .map(BalanceCheckpointEntity::getBalance)
+                    .orElse(BigDecimal.ZERO);
+            jdbcTemplate.update(INSERT_CHECKPOINT, current.getUser(), horizon, base.add(delta(current)));
+        }
+    }
+
+    private CheckpointStateEntity lockState(LockOperation operation) {
+        return locks.lockCheckpointState(operation)
+                .orElseThrow(() -> new IllegalStateException("Checkpoint state has not been initialized"));
+    }
+
+    // Same sign rule as the ledger sums
+    private static BigDecimal delta(FinancialEntity record) {
+        BigDecimal amount = record.getAmount() == null ? BigDecimal.ZERO : record.getAmount();
+        return record.getStatus() == AccountingStatus.CREDITOR ? amount : amount.negate();
+    }
+}
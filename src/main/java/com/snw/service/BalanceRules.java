@@ -0,0 +1,140 @@
+package com.snw.service;
+
+import com.snw.domain.FinancialEntity;
+import com.snw.util.Cents;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Boundary rules of a wallet, shared by every credit path (database, pipeline and in-memory engine).
+ */
+public final class BalanceRules {
+
+    public static final String MINIMUM_BOUNDARY_VIOLATION = "Record amount constraints minimum boundary (0)";
+
+    public static final String MAXIMUM_BOUNDARY_VIOLATION = "Record amount constraints maximum boundary (1,000,000)";
+
+    private static final BigDecimal MAX_RECORD_AMOUNT = new BigDecimal("1000");
+
+    private static final BigDecimal MAX_BALANCE = new BigDecimal(1_000_000L);
+
+    private static final long MAX_BALANCE_CENTS = 100_000_000L;
+
+    private BalanceRules() {
+    }
+
+    public static void checkForMoreThanThousand(List<FinancialEntity> records) {
+        for (FinancialEntity record : records) {
+            checkForMoreThanThousand(record);
+        }
+    }
+
+    public static void checkForMoreThanThousand(FinancialEntity record) {
+        if (isMoreThanThousand(record)) {
+            throw moreThanThousand();
+        }
+    }
+
+    /**
+     * Same check as {@link #checkForMoreThanThousand(List)} spread over the common fork-join pool.
+     */
+    public static void checkForMoreThanThousandParallel(List<FinancialEntity> records) {
+        // Thrown from the caller, a worker exception would be rethrown as a copy wrapping it
+        if (records.parallelStream().anyMatch(BalanceRules::isMoreThanThousand)) {
+            throw moreThanThousand();
+        }
+    }
+
+    /**
+     * @param amount sum of the user records in the batch
+     * @param actual current balance of the user, {@code null} if the user has no wallet yet
+     * @return the violated boundaries, empty if the batch can be applied
+     */
+    public static List<String> violations(BigDecimal amount, BigDecimal actual) {
+        List<String> userConstraintResult = null;
+
+        if (amount.signum() == -1) {
+            userConstraintResult = add(userConstraintResult, MINIMUM_BOUNDARY_VIOLATION);
+        }
+
+        if (amount.compareTo(MAX_BALANCE) > 0) {
+            userConstraintResult = add(userConstraintResult, MAXIMUM_BOUNDARY_VIOLATION);
+        }
+
+        if (actual != null) {
+            // Check if sum is negative
+            if (actual.compareTo(amount) < 0) {
+                userConstraintResult = add(userConstraintResult, MINIMUM_BOUNDARY_VIOLATION);
+            }
+
+            // BigDecimal is an immutable class, so actual amount stays the same
+            if (actual.add(amount).compareTo(MAX_BALANCE) > 0) {
+                userConstraintResult = add(userConstraintResult, MAXIMUM_BOUNDARY_VIOLATION);
+            }
+        }
+
+        return userConstraintResult == null ? Collections.emptyList() : userConstraintResult;
+    }
+
+    /**
+     * Same rules as {@link #violations(BigDecimal, BigDecimal)} on amounts in cents, allocates only when violated.
+     *
+     * @param actual current balance of the user, {@link Cents#NONE} if the user has no wallet yet
+     */
+    public static List<String> violations(long amount, long actual) {
+        List<String> userConstraintResult = null;
+
+        if (amount < 0) {
+            userConstraintResult = add(userConstraintResult, MINIMUM_BOUNDARY_VIOLATION);
+        }
+
+        if (amount > MAX_BALANCE_CENTS) {
+            userConstraintResult = add(userConstraintResult, MAXIMUM_BOUNDARY_VIOLATION);
+        }
+
+        if (actual != Cents.NONE) {
+            if (actual < amount) {
+                userConstraintResult = add(userConstraintResult, MINIMUM_BOUNDARY_VIOLATION);
+            }
+
+            if (Cents.add(actual, amount) > MAX_BALANCE_CENTS) {
+                userConstraintResult = add(userConstraintResult, MAXIMUM_BOUNDARY_VIOLATION);
+            }
+        }
+
+        return userConstraintResult == null ? Collections.emptyList() : userConstraintResult;
+    }
+
+    /**
+     * @return the signed amount of the record in cents, credits positive and debits negative; amounts with more
+     * decimals than the column are rounded as they are stored
+     */
+    public static long delta(FinancialEntity record) {
+        long cents = Cents.round(record.getAmount());
+        switch (record.getStatus()) {
+            case CREDITOR:
+                return cents;
+            case DEBTOR:
+                return -cents;
+            default:
+                return 0L;
+        }
+    }
+
+    private static boolean isMoreThanThousand(FinancialEntity record) {
+        return record.getAmount().compareTo(MAX_RECORD_AMOUNT) > 0;
+    }
+
+    private static IllegalArgumentException moreThanThousand() {
+        return new IllegalArgumentException("Record amount cannot be greater than 1000");
+    }
+
+    private static List<String> add(List<String> result, String violation) {
+        List<String> list = result == null ? new ArrayList<>(2) : result;
+        list.add(violation);
+        return list;
+    }
+}
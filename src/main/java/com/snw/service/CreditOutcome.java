@@ -0,0 +1,32 @@
+package com.snw.service;
+
+import com.snw.domain.WalletEntity;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Result of one credit request inside a group commit: its wallets or the exception that rejected it.
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class CreditOutcome {
+
+    private final List<WalletEntity> wallets;
+
+    private final RuntimeException exception;
+
+    public static CreditOutcome accepted(List<WalletEntity> wallets) {
+        return new CreditOutcome(wallets, null);
+    }
+
+    public static CreditOutcome rejected(RuntimeException exception) {
+        return new CreditOutcome(null, exception);
+    }
+
+    public boolean isAccepted() {
+        return exception == null;
+    }
+}
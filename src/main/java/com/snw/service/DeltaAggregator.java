@@ -0,0 +1,117 @@
+package com.snw.service;
+
+import com.snw.domain.FinancialEntity;
+import com.snw.util.StringLongMap;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Sums the records of a batch per user, in cents, in a single pass over an open-addressing map.
+ * <p>
+ * Batches below the parallel threshold reuse a per-thread map; bigger batches are split
+ * over the common fork-join pool and the partial maps merged.
+ */
+public final class DeltaAggregator {
+
+    // Records summed by one fork-join leaf
+    private static final int LEAF_SIZE = 8_192;
+
+    // A pooled map that grew beyond this is dropped instead of being cleared and kept forever
+    private static final int MAX_POOLED_USERS = 65_536;
+
+    private static final ThreadLocal<StringLongMap> POOL = ThreadLocal.withInitial(StringLongMap::new);
+
+    private DeltaAggregator() {
+    }
+
+    /**
+     * @param parallelThreshold batch size from which the batch is split, {@code wallet.validation.parallel-threshold}
+     * @return the signed sum per user; below the parallel threshold it is the calling thread's pooled map,
+     * only valid until the next call on the same thread
+     */
+    public static StringLongMap aggregate(List<FinancialEntity> records, int parallelThreshold) {
+        if (isParallel(records.size(), parallelThreshold)) {
+            return aggregateParallel(records);
+        }
+
+        StringLongMap deltas = POOL.get();
+        if (deltas.size() > MAX_POOLED_USERS) {
+            deltas = new StringLongMap();
+            POOL.set(deltas);
+        } else {
+            deltas.clear();
+        }
+
+        aggregateInto(records, deltas);
+        return deltas;
+    }
+
+    public static void aggregateInto(List<FinancialEntity> records, StringLongMap target) {
+        aggregateInto(records, 0, records.size(), target);
+    }
+
+    public static StringLongMap aggregateParallel(List<FinancialEntity> records) {
+        try {
+            return ForkJoinPool.commonPool().invoke(new AggregateTask(records, 0, records.size()));
+        } catch (RuntimeException e) {
+            // A failure in another worker is rethrown as a copy wrapping it, surface the original one
+            Throwable cause = e.getCause();
+            throw cause != null && cause.getClass() == e.getClass() ? (RuntimeException) cause : e;
+        }
+    }
+
+    /**
+     * @return whether a batch of {@code size} is worth splitting, never on a single core where the split
+     * and merge are pure overhead
+     */
+    public static boolean isParallel(int size, int parallelThreshold) {
+        return size >= parallelThreshold && ForkJoinPool.getCommonPoolParallelism() > 1;
+    }
+
+    private static void aggregateInto(List<FinancialEntity> records, int from, int to, StringLongMap target) {
+        for (int index = from; index < to; index++) {
+            FinancialEntity record = records.get(index);
+            target.addTo(record.getUser(), BalanceRules.delta(record));
+        }
+    }
+
+    private static class AggregateTask extends RecursiveTask<StringLongMap> {
+
+        private final List<FinancialEntity> records;
+
+        private final int from;
+
+        private final int to;
+
+        private AggregateTask(List<FinancialEntity> records, int from, int to) {
+            this.records = records;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected StringLongMap compute() {
+            if (to - from <= LEAF_SIZE) {
+                StringLongMap partial = new StringLongMap();
+                aggregateInto(records, from, to, partial);
+                return partial;
+            }
+
+            int middle = (from + to) >>> 1;
+            AggregateTask left = new AggregateTask(records, from, middle);
+            left.fork();
+            StringLongMap right = new AggregateTask(records, middle, to).compute();
+            StringLongMap merged = left.join();
+
+            // Merge the smaller map into the bigger one
+            if (merged.size() < right.size()) {
+                right.addAll(merged);
+                return right;
+            }
+            merged.addAll(right);
+            return merged;
+        }
+    }
+}
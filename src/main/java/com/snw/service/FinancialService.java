@@ -1,66 +1,125 @@
 package com.snw.service;
 
 import com.snw.domain.FinancialEntity;
+import com.snw.domain.WalletEntity;
+import com.snw.domain.enumeration.AuditOperation;
+import com.snw.domain.enumeration.LockOperation;
 import com.snw.exception.NoRecordFoundException;
 import com.snw.repository.FinancialRepository;
+import com.snw.repository.WalletRepository;
+import com.snw.service.audit.AuditEvent;
+import com.snw.service.audit.AuditTrail;
+import com.snw.service.engine.ShardedWalletEngine;
+import com.snw.service.lock.PessimisticLocks;
+import com.snw.util.Cents;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.EntityManager;
 import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 @Transactional
 public class FinancialService {
 
+    private static final Instant END_OF_TIME = Instant.parse("9999-12-31T23:59:59Z");
+
     private final FinancialRepository repository;
 
-    public FinancialService(FinancialRepository repository) {
+    private final WalletRepository walletRepository;
+
+    private final BalanceCache balanceCache;
+
+    private final EntityManager entityManager;
+
+    private final BalanceCheckpointService checkpointService;
+
+    private final PessimisticLocks locks;
+
+    private final AuditTrail auditTrail;
+
+    private final ShardedWalletEngine engine;
+
+    public FinancialService(FinancialRepository repository,
+                            WalletRepository walletRepository,
+                            BalanceCache balanceCache,
+                            EntityManager entityManager,
+                            BalanceCheckpointService checkpointService,
+                            PessimisticLocks locks,
+                            AuditTrail auditTrail,
+                            ShardedWalletEngine engine) {
         this.repository = repository;
+        this.walletRepository = walletRepository;
+        this.balanceCache = balanceCache;
+        this.entityManager = entityManager;
+        this.checkpointService = checkpointService;
+        this.locks = locks;
+        this.auditTrail = auditTrail;
+        this.engine = engine;
     }
 
     public FinancialEntity save(FinancialEntity entity) {
-        return repository.save(entity);
+        balanceCache.evictAfterCommit(Collections.singleton(entity.getUser()));
+        FinancialEntity saved = repository.save(entity);
+        applyToWallets(null, saved);
+        return saved;
     }
 
     public List<FinancialEntity> findAll() {
         return repository.findAll();
     }
 
-    public FinancialEntity updateById(String id, FinancialEntity entity) {
-        FinancialEntity domain = getById(id);
+    /**
+     * @return at most {@code limit} records with an id greater than {@code after} (from the start when null), by id
+     */
+    @Transactional(readOnly = true)
+    public List<FinancialEntity> findAllAfter(String after, int limit) {
+        return repository.findByIdGreaterThanOrderByIdAsc(after == null ? "" : after, PageRequest.of(0, limit));
+    }
 
-        // Lock the entity for update
-        repository.lock(id);
+    /**
+     * Hands every record, by id, to {@code consumer} while reading them from a cursor.
+     * Records are detached once consumed, the persistence context does not grow with the ledger.
+     */
+    @Transactional(readOnly = true)
+    public void streamAll(Consumer<FinancialEntity> consumer) {
+        try (Stream<FinancialEntity> records = repository.streamAll()) {
+            records.forEach(record -> {
+                consumer.accept(record);
+                entityManager.detach(record);
+            });
+        }
+    }
+
+    public FinancialEntity updateById(String id, FinancialEntity entity) {
+        FinancialEntity previous = lockById(id);
+        FinancialEntity domain = copyOf(previous);
 
         domain.setAmount(entity.getAmount());
         domain.setUser(entity.getUser());
         // May add more setters (But I think this entity should be immutable - readonly - for security reasons)
 
-        repository.saveAndFlush(domain);
-        return domain;
+        return write(previous, domain);
     }
 
     public FinancialEntity update(FinancialEntity entity) {
-        FinancialEntity domain = getById(entity.getId());
-
-        // Lock the entity for update
-        repository.lock(entity.getId());
-
-        domain.setAmount(entity.getAmount());
-        domain.setUser(entity.getUser());
-        // May add more setters (But I think this entity should be immutable - readonly - for security reasons)
-
-        repository.saveAndFlush(domain);
-        return domain;
+        return updateById(entity.getId(), entity);
     }
 
     public FinancialEntity partialUpdate(String id, Map<String, Object> changes) {
-        FinancialEntity domain = getById(id);
-
-        // Lock the entity for update
-        repository.lock(id);
+        FinancialEntity previous = lockById(id);
+        FinancialEntity domain = copyOf(previous);
 
         // Apply the updates to the entity
         changes.forEach((key, value) -> {
@@ -76,17 +135,18 @@ public class FinancialService {
             }
         });
 
-        repository.saveAndFlush(domain);
-        return domain;
+        return write(previous, domain);
     }
 
     public void delete(String id) {
-        FinancialEntity domain = getById(id);
-
-        // Lock the entity for update
-        repository.lock(id);
+        FinancialEntity domain = lockById(id);
+        entityManager.detach(domain);
+        balanceCache.evictAfterCommit(Collections.singleton(domain.getUser()));
 
-        repository.delete(domain);
+        repository.deleteLocked(id);
+        applyToWallets(domain, null);
+        auditTrail.record(Collections.singletonList(AuditEvent.of(domain, AuditOperation.DELETE)));
+        checkpointService.onRecordChanged(domain, null);
     }
 
     public FinancialEntity getById(String id) {
@@ -95,10 +155,7 @@ public class FinancialService {
     }
 
     public FinancialEntity getByIdAndLock(String id) {
-        FinancialEntity entity = repository.lock(id);
-        if (entity == null) {
-            new NoRecordFoundException("Financial entity not found");
-        }
+        FinancialEntity entity = lockById(id);
         try {
             Thread.sleep(5000);
         } catch (Exception e){
@@ -107,7 +164,111 @@ public class FinancialService {
         return entity;
     }
 
+    /**
+     * Reads and locks the record with a single SELECT ... FOR UPDATE.
+     */
+    public FinancialEntity lockById(String id) {
+        FinancialEntity entity = locks.lockRecord(id);
+        if (entity == null) {
+            throw new NoRecordFoundException("Financial entity not found");
+        }
+        return entity;
+    }
+
+    /**
+     * Writes the changes of a locked record with a single UPDATE. The locked record is detached first so the
+     * persistence context neither flushes it again nor keeps a stale copy.
+     */
+    private FinancialEntity write(FinancialEntity previous, FinancialEntity domain) {
+        entityManager.detach(previous);
+        balanceCache.evictAfterCommit(Arrays.asList(previous.getUser(), domain.getUser()));
+
+        repository.updateLocked(domain.getId(), domain.getUser(), domain.getAmount());
+        applyToWallets(previous, domain);
+        // Bulk statements bypass the Hibernate listeners
+        auditTrail.record(Collections.singletonList(AuditEvent.of(domain, AuditOperation.UPDATE)));
+        checkpointService.onRecordChanged(previous, domain);
+        return domain;
+    }
+
+    /**
+     * Moves the wallet credit of the users of a record by the change of their ledger sum, under the wallet locks,
+     * so the credit stays the running total of the ledger (the balance of the incremental and optimistic modes).
+     *
+     * @param previous the record before the change, {@code null} when created
+     * @param current  the record after the change, {@code null} when deleted
+     */
+    private void applyToWallets(FinancialEntity previous, FinancialEntity current) {
+        Map<String, Long> deltas = new HashMap<>(4);
+        if (previous != null) {
+            deltas.merge(previous.getUser(), -delta(previous), Long::sum);
+        }
+        if (current != null) {
+            deltas.merge(current.getUser(), delta(current), Long::sum);
+        }
+        deltas.values().removeIf(delta -> delta == 0L);
+        if (deltas.isEmpty()) {
+            return;
+        }
+        engine.invalidateAfterCommit(deltas.keySet());
+
+        Map<String, WalletEntity> wallets = new HashMap<>(deltas.size() * 2);
+        locks.lockWallets(LockOperation.RECORD, deltas.keySet())
+                .forEach(wallet -> wallets.put(wallet.getUser(), wallet));
+
+        List<WalletEntity> created = new ArrayList<>();
+        deltas.forEach((user, delta) -> {
+            WalletEntity wallet = wallets.get(user);
+            if (wallet == null) {
+                created.add(new WalletEntity(user, Cents.toAmount(delta)));
+            } else {
+                // Managed, written (and audited) on flush
+                wallet.setCredit(Cents.toAmount(Cents.add(Cents.of(wallet.getCredit()), delta)));
+            }
+        });
+        walletRepository.saveAll(created);
+    }
+
+    private static long delta(FinancialEntity record) {
+        return record.getStatus() == null || record.getAmount() == null ? 0L : BalanceRules.delta(record);
+    }
+
+    private static FinancialEntity copyOf(FinancialEntity entity) {
+        return FinancialEntity.builder()
+                .id(entity.getId())
+                .status(entity.getStatus())
+                .user(entity.getUser())
+                .amount(entity.getAmount())
+                .createdAt(entity.getCreatedAt())
+                .sequence(entity.getSequence())
+                .build();
+    }
+
     public List<FinancialEntity> getByUserId(String user) {
         return repository.findByUser(user);
     }
+
+    /**
+     * One page of the records of {@code user} after the {@code after} cursor (or from the start) and skipping
+     * {@code page} pages. By id, or by creation time then id when restricted to the records created in
+     * [{@code from}, {@code to}).
+     */
+    @Transactional(readOnly = true)
+    public List<FinancialEntity> getByUserId(String user, String after, int page, int limit, Instant from, Instant to) {
+        Pageable pageable = PageRequest.of(page, limit);
+        String cursor = after == null ? "" : after;
+
+        if (from == null && to == null) {
+            return repository.findByUserAndIdGreaterThanOrderByIdAsc(user, cursor, pageable);
+        }
+
+        Instant start = from == null ? Instant.EPOCH : from;
+        Instant cursorCreatedAt = after == null ? null : getById(after).getCreatedAt();
+        // A cursor before the range starts the range from its beginning
+        if (cursorCreatedAt == null || cursorCreatedAt.isBefore(start)) {
+            return repository.findByUserCreatedBetween(user, start, "", to == null ? END_OF_TIME : to, pageable);
+        }
+        return repository.findByUserCreatedBetween(user, cursorCreatedAt, cursor,
+                to == null ? END_OF_TIME : to, pageable);
+    }
 }
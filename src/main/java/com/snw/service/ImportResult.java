@@ -0,0 +1,16 @@
+package com.snw.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Totals of a bulk import.
+ */
+@Getter
+@AllArgsConstructor
+public class ImportResult {
+
+    private final long records;
+
+    private final int users;
+}
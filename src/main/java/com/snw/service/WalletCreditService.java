@@ -0,0 +1,194 @@
+package com.snw.service;
+
+import com.snw.config.AppConstants;
+import com.snw.config.WalletProperties;
+import com.snw.domain.FinancialEntity;
+import com.snw.domain.WalletEntity;
+import com.snw.domain.enumeration.ConcurrencyMode;
+import com.snw.service.engine.ShardedWalletEngine;
+import com.snw.service.idempotency.IdempotencyService;
+import com.snw.service.lock.StripedUserLock;
+import com.snw.service.pipeline.CreditPipeline;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Entry point of the credit requests, decides how a batch reaches {@link WalletService#updateCredit(List)}.
+ * Not transactional on purpose, anything it holds (e.g. user locks) has to outlive the commit
+ * and optimistic conflicts are retried with a fresh transaction.
+ */
+@Service
+public class WalletCreditService {
+
+    private static final String DUPLICATE_KEY = "23505";
+
+    private static final String WALLET_TABLE = "." + (AppConstants.TABLE_PREFIX + "wallet(").toUpperCase(Locale.ROOT);
+
+    private final WalletService walletService;
+
+    private final StripedUserLock userLock;
+
+    private final CreditPipeline pipeline;
+
+    private final ShardedWalletEngine engine;
+
+    private final WalletProperties properties;
+
+    private final IdempotencyService idempotency;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public WalletCreditService(WalletService walletService,
+                               StripedUserLock userLock,
+                               CreditPipeline pipeline,
+                               ShardedWalletEngine engine,
+                               WalletProperties properties,
+                               IdempotencyService idempotency,
+                               TransactionTemplate transactionTemplate) {
+        this.walletService = walletService;
+        this.userLock = userLock;
+        this.pipeline = pipeline;
+        this.engine = engine;
+        this.properties = properties;
+        this.idempotency = idempotency;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    public List<WalletEntity> credit(List<FinancialEntity> records) {
+        if (engine.isEnabled()) {
+            return join(engine.submit(records));
+        }
+
+        if (pipeline.isEnabled()) {
+            return join(pipeline.submit(records));
+        }
+
+        Set<String> users = records.stream().map(FinancialEntity::getUser).collect(Collectors.toSet());
+
+        return userLock.executeLocked(users, () -> withRetry(records, () -> walletService.updateCredit(records)));
+    }
+
+    /**
+     * Same as {@link #credit(List)}, applied once per {@code idempotencyKey} (when not {@code null}):
+     * a retry gets the response of the first request without taking any lock.
+     * The key is stored in the transaction of the credit, so keyed credits always take the direct path:
+     * the engine and the pipeline commit before a key could be stored.
+     */
+    public List<WalletEntity> credit(List<FinancialEntity> records, String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return credit(records);
+        }
+
+        return idempotency.execute(idempotencyKey, records, claim -> {
+            Set<String> users = records.stream().map(FinancialEntity::getUser).collect(Collectors.toSet());
+            if (engine.isEnabled()) {
+                // The store may trail the credits acknowledged by the engine
+                join(engine.applied());
+            }
+
+            return userLock.executeLocked(users, () -> withRetry(records, () -> transactionTemplate.execute(status -> {
+                List<WalletEntity> wallets = walletService.updateCredit(records);
+                idempotency.persist(claim, wallets);
+                // Written around the engine, its shards reload these balances after the commit
+                engine.invalidateAfterCommit(users);
+                return wallets;
+            })));
+        });
+    }
+
+    /**
+     * Same as {@link #credit(List)} without blocking the caller: the engine and the pipeline complete the future
+     * themselves, the direct path runs on {@code executor}. With an {@code idempotencyKey},
+     * {@link #credit(List, String)} runs on {@code executor} whatever the path.
+     */
+    public CompletableFuture<List<WalletEntity>> creditAsync(List<FinancialEntity> records,
+                                                             String idempotencyKey,
+                                                             Executor executor) {
+        if (idempotencyKey != null) {
+            return CompletableFuture.supplyAsync(() -> credit(records, idempotencyKey), executor);
+        }
+
+        if (engine.isEnabled()) {
+            return engine.submit(records);
+        }
+
+        if (pipeline.isEnabled()) {
+            return pipeline.submit(records);
+        }
+
+        return CompletableFuture.supplyAsync(() -> credit(records), executor);
+    }
+
+    private <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            // Surface the original exception, so the controller advice maps it as usual
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private <T> T withRetry(List<FinancialEntity> records, Supplier<T> action) {
+        if (properties.getBalance().getConcurrency() != ConcurrencyMode.OPTIMISTIC) {
+            return action.get();
+        }
+
+        WalletProperties.Optimistic optimistic = properties.getBalance().getOptimistic();
+        Duration backoff = optimistic.getInitialBackoff();
+
+        for (int attempt = 1; ; attempt++) {
+            // A key stored by another request is an IdempotencyKeyConflictException, replayed and not retried
+            try {
+                return action.get();
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= optimistic.getMaxAttempts()) {
+                    throw e;
+                }
+            } catch (DataIntegrityViolationException e) {
+                if (!isWalletInsertRace(e) || attempt >= optimistic.getMaxAttempts()) {
+                    throw e;
+                }
+            }
+
+            sleep(backoff);
+            records.forEach(FinancialEntity::resetForRetry);
+            backoff = backoff.multipliedBy(2).compareTo(optimistic.getMaxBackoff()) > 0 ?
+                    optimistic.getMaxBackoff() : backoff.multipliedBy(2);
+        }
+    }
+
+    // A concurrent first credit of the same user, the retry finds its wallet; any other violation fails again
+    private static boolean isWalletInsertRace(DataIntegrityViolationException e) {
+        Throwable cause = e.getMostSpecificCause();
+        return cause instanceof SQLException && DUPLICATE_KEY.equals(((SQLException) cause).getSQLState())
+                && String.valueOf(cause.getMessage()).toUpperCase(Locale.ROOT).contains(WALLET_TABLE);
+    }
+
+    private void sleep(Duration backoff) {
+        // Full jitter, so the conflicting requests do not retry in lockstep
+        long millis = ThreadLocalRandom.current().nextLong(backoff.toMillis() + 1);
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OptimisticLockingFailureException("Interrupted while waiting to retry", e);
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.snw.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.snw.config.WalletProperties;
+import com.snw.controller.dto.FinancialDto;
+import com.snw.domain.FinancialEntity;
+import com.snw.domain.WalletEntity;
+import com.snw.domain.enumeration.BalanceMode;
+import com.snw.domain.enumeration.LockOperation;
+import com.snw.exception.FinancialBoundaryException;
+import com.snw.repository.WalletRepository;
+import com.snw.service.engine.DatabaseLedgerWriter;
+import com.snw.service.engine.ShardedWalletEngine;
+import com.snw.service.lock.PessimisticLocks;
+import com.snw.util.Cents;
+import com.snw.util.StringLongMap;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Bulk credit import from a stream of NDJSON records, in one transaction.
+ * <p>
+ * Records are parsed one at a time, written in chunks and only their per-user delta is kept,
+ * so memory is bounded by the number of distinct users instead of the number of records.
+ * The boundaries are checked on the totals once the stream is consumed, any violation rolls the import back.
+ */
+@Service
+@Transactional
+public class WalletImportService {
+
+    private static final int USER_CHUNK = 1000;
+
+    private static final StringLongMap NO_DELTAS = new StringLongMap();
+
+    private final DatabaseLedgerWriter ledgerWriter;
+
+    private final WalletRepository walletRepository;
+
+    private final EntityManager entityManager;
+
+    private final ObjectReader reader;
+
+    private final WalletProperties properties;
+
+    private final PessimisticLocks locks;
+
+    private final ShardedWalletEngine engine;
+
+    public WalletImportService(DatabaseLedgerWriter ledgerWriter,
+                               WalletRepository walletRepository,
+                               EntityManager entityManager,
+                               ObjectMapper objectMapper,
+                               WalletProperties properties,
+                               PessimisticLocks locks,
+                               ShardedWalletEngine engine) {
+        this.ledgerWriter = ledgerWriter;
+        this.walletRepository = walletRepository;
+        this.entityManager = entityManager;
+        this.reader = objectMapper.readerFor(FinancialDto.class);
+        this.properties = properties;
+        this.locks = locks;
+        this.engine = engine;
+    }
+
+    public ImportResult importRecords(InputStream input) {
+        int chunkSize = properties.getBulkImport().getChunkSize();
+        List<FinancialEntity> chunk = new ArrayList<>(chunkSize);
+        StringLongMap deltas = new StringLongMap();
+        long count = 0;
+
+        try (MappingIterator<FinancialDto> lines = reader.readValues(input)) {
+            while (lines.hasNextValue()) {
+                FinancialEntity record = toRecord(lines.nextValue(), count + 1);
+                deltas.addTo(record.getUser(), BalanceRules.delta(record));
+                chunk.add(record);
+                count++;
+
+                if (chunk.size() == chunkSize) {
+                    ledgerWriter.write(chunk, NO_DELTAS);
+                    chunk.clear();
+                }
+            }
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid record at line " + (count + 1) + ": " + e.getOriginalMessage());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        ledgerWriter.write(chunk, NO_DELTAS);
+
+        checkForConstraints(deltas);
+        ledgerWriter.write(Collections.emptyList(), deltas);
+        invalidateEngine(deltas);
+
+        return new ImportResult(count, deltas.size());
+    }
+
+    private void invalidateEngine(StringLongMap deltas) {
+        if (!engine.isEnabled()) {
+            return;
+        }
+
+        // Written around the engine, its shards must reload these balances
+        List<String> users = new ArrayList<>(deltas.size());
+        deltas.forEach((user, cents) -> users.add(user));
+        engine.invalidateAfterCommit(users);
+    }
+
+    private FinancialEntity toRecord(FinancialDto dto, long line) {
+        if (dto.getStatus() == null || dto.getUser() == null || dto.getAmount() == null) {
+            throw new IllegalArgumentException("Record at line " + line + " must have a status, a user and an amount");
+        }
+
+        FinancialEntity record = FinancialEntity.builder()
+                .status(dto.getStatus())
+                .user(dto.getUser())
+                .amount(dto.getAmount())
+                .build();
+        BalanceRules.checkForMoreThanThousand(record);
+        return record;
+    }
+
+    private void checkForConstraints(StringLongMap deltas) {
+        Map<String, List<String>> violations = new HashMap<>();
+        StringLongMap corrections = new StringLongMap();
+        List<String> users = new ArrayList<>(USER_CHUNK);
+
+        deltas.forEach((user, cents) -> {
+            users.add(user);
+            if (users.size() == USER_CHUNK) {
+                checkForConstraints(users, deltas, violations, corrections);
+                users.clear();
+            }
+        });
+        checkForConstraints(users, deltas, violations, corrections);
+
+        if (!violations.isEmpty()) {
+            throw new FinancialBoundaryException(violations);
+        }
+        corrections.forEach(deltas::addTo);
+    }
+
+    /**
+     * In ledger mode, also collects per user the difference between the ledger balance and the stored credit:
+     * added to the delta, the wallet ends up at the checked balance plus the import, like {@code updateCredit}.
+     */
+    private void checkForConstraints(List<String> users, StringLongMap deltas, Map<String, List<String>> violations,
+                                     StringLongMap corrections) {
+        if (users.isEmpty()) {
+            return;
+        }
+
+        Set<String> userSet = new HashSet<>(users);
+        StringLongMap wallets = toBalances(locks.lockWallets(LockOperation.IMPORT, userSet));
+        // The imported rows are already in the ledger, take them out of its sums to get the balances before the import
+        StringLongMap ledger = properties.getBalance().getMode() == BalanceMode.INCREMENTAL ?
+                null : toBalances(walletRepository.groupByUserIn(userSet));
+
+        for (String user : users) {
+            long amount = deltas.get(user, 0L);
+            long actual = wallets.get(user, Cents.NONE);
+            if (ledger != null) {
+                long before = ledger.get(user, 0L) - amount;
+                long stored = actual == Cents.NONE ? 0L : actual;
+                if (before != stored) {
+                    corrections.put(user, before - stored);
+                }
+                actual = actual == Cents.NONE && before == 0L ? Cents.NONE : before;
+            }
+
+            List<String> userViolations = BalanceRules.violations(amount, actual);
+            if (!userViolations.isEmpty()) {
+                violations.put(user, userViolations);
+            }
+        }
+
+        // The wallets are updated through JDBC, nothing to keep in the persistence context
+        entityManager.clear();
+    }
+
+    private static StringLongMap toBalances(List<WalletEntity> wallets) {
+        StringLongMap balances = new StringLongMap(wallets.size());
+        wallets.forEach(wallet -> balances.put(wallet.getUser(), Cents.of(wallet.getCredit())));
+        return balances;
+    }
+}
@@ -0,0 +1,75 @@
+package com.snw.service;
+
+import com.snw.domain.WalletEntity;
+import com.snw.repository.WalletRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Compares the running wallet credits (incremental balance mode) against the ledger sum
+ * and reports every user whose wallet has drifted away from its financial records.
+ */
+@Slf4j
+@Service
+@Transactional(readOnly = true)
+@ConditionalOnProperty(prefix = "wallet.balance.reconciler", name = "enabled", havingValue = "true")
+public class WalletReconciliationService {
+
+    private final WalletRepository walletRepository;
+
+    public WalletReconciliationService(WalletRepository walletRepository) {
+        this.walletRepository = walletRepository;
+    }
+
+    @Scheduled(fixedDelayString = "${wallet.balance.reconciler.interval:PT5M}")
+    public void reconcile() {
+        Map<String, BigDecimal> drift = findDrift();
+
+        if (drift.isEmpty()) {
+            log.debug("Wallet balances are in line with the ledger");
+            return;
+        }
+
+        drift.forEach((user, difference) ->
+                log.warn("Wallet of user '{}' drifted from the ledger by {}", user, difference));
+    }
+
+    /**
+     * @return drift (wallet credit - ledger sum) for each user that does not match
+     */
+    public Map<String, BigDecimal> findDrift() {
+        Map<String, BigDecimal> drift = new HashMap<>();
+        Map<String, BigDecimal> ledger = toMap(walletRepository.groupByUser());
+        Map<String, BigDecimal> wallets = toMap(walletRepository.findAll());
+
+        wallets.forEach((user, credit) -> {
+            BigDecimal difference = credit.subtract(ledger.getOrDefault(user, BigDecimal.ZERO));
+            if (difference.signum() != 0) {
+                drift.put(user, difference);
+            }
+        });
+
+        // Users that have financial records but no wallet at all
+        ledger.forEach((user, sum) -> {
+            if (!wallets.containsKey(user) && sum.signum() != 0) {
+                drift.put(user, sum.negate());
+            }
+        });
+
+        return drift;
+    }
+
+    private Map<String, BigDecimal> toMap(List<WalletEntity> records) {
+        return records.stream().collect(Collectors.toMap(WalletEntity::getUser,
+                val -> val.getCredit() == null ? BigDecimal.ZERO : val.getCredit()));
+    }
+}
@@ -1,23 +1,40 @@
 package com.snw.service;
 
+import com.snw.config.WalletProperties;
 import com.snw.domain.FinancialEntity;
 import com.snw.domain.WalletEntity;
+import com.snw.domain.enumeration.AuditOperation;
+import com.snw.domain.enumeration.BalanceMode;
+import com.snw.domain.enumeration.ConcurrencyMode;
+import com.snw.domain.enumeration.LockOperation;
 import com.snw.exception.FinancialBoundaryException;
 import com.snw.exception.NoRecordFoundException;
+import com.snw.metrics.WalletMetrics;
+import com.snw.metrics.WalletMetrics.CreditPhase;
 import com.snw.repository.FinancialRepository;
+import com.snw.repository.LedgerSequence;
 import com.snw.repository.WalletRepository;
+import com.snw.service.audit.AuditEvent;
+import com.snw.service.audit.AuditTrail;
+import com.snw.service.lock.PessimisticLocks;
+import com.snw.util.Cents;
+import com.snw.util.StringLongMap;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.AbstractMap.SimpleImmutableEntry;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
-import static java.util.stream.Collectors.groupingBy;
-
 @Service
 @Transactional
 public class WalletService {
@@ -26,39 +43,78 @@ public class WalletService {
 
     private final WalletRepository walletRepository;
 
+    private final WalletProperties properties;
+
+    private final BalanceCache balanceCache;
+
+    private final WalletMetrics metrics;
+
+    private final LedgerSequence ledgerSequence;
+
+    private final AuditTrail auditTrail;
+
+    private final PessimisticLocks locks;
+
     public WalletService(FinancialRepository financialRepository,
-                         WalletRepository walletRepository) {
+                         WalletRepository walletRepository,
+                         WalletProperties properties,
+                         BalanceCache balanceCache,
+                         WalletMetrics metrics,
+                         LedgerSequence ledgerSequence,
+                         AuditTrail auditTrail,
+                         PessimisticLocks locks) {
         this.financialRepository = financialRepository;
         this.walletRepository = walletRepository;
+        this.properties = properties;
+        this.balanceCache = balanceCache;
+        this.metrics = metrics;
+        this.ledgerSequence = ledgerSequence;
+        this.auditTrail = auditTrail;
+        this.locks = locks;
     }
 
     public WalletEntity getByUser(String user) {
-        return walletRepository
-                .findById(user).orElseThrow(() -> new NoRecordFoundException("Wallet entity not found"));
+        BigDecimal credit = balanceCache.get(user, key ->
+                walletRepository.findById(key).map(WalletEntity::getCredit).orElse(null));
+
+        if (credit == null) {
+            throw new NoRecordFoundException("Wallet entity not found");
+        }
+        return new WalletEntity(user, credit);
     }
 
     public List<WalletEntity> updateCredit(List<FinancialEntity> inputRecords) {
+        if (properties.getBalance().getConcurrency() == ConcurrencyMode.OPTIMISTIC) {
+            return updateCreditOptimistic(inputRecords);
+        }
 
         List<WalletEntity> entities = new ArrayList<>();
+        long phase = System.nanoTime();
 
         // Validate (amount < 1000) for all records
         checkForMoreThanThousand(inputRecords);
+        phase = metrics.recordPhase(CreditPhase.VALIDATION, phase);
 
         // Extracting input/actual balance for each user
         Map<String, BigDecimal> inputUsersBalance = extractInputRecordsToSumByUser(inputRecords);
+        metrics.recordBatch(inputRecords.size(), inputUsersBalance.size());
+        phase = metrics.recordPhase(CreditPhase.AGGREGATION, phase);
 
         // Since we are fetching/validating/updating in bulk, so we should lock all target records
-        walletRepository.lockAllIn(inputUsersBalance.keySet());
+        Map<String, WalletEntity> lockedWallets =
+                convertWalletListToMap(locks.lockWallets(LockOperation.CREDIT, inputUsersBalance.keySet()));
+        phase = metrics.recordPhase(CreditPhase.LOCK, phase);
 
-        // get summery using "group by user"
-        Map<String, BigDecimal> actualUsersBalance =
-                convertUserBalanceListToMap(walletRepository.groupByUser());
+        Map<String, BigDecimal> actualUsersBalance = loadActualBalances(inputUsersBalance.keySet(), lockedWallets);
+        phase = metrics.recordPhase(CreditPhase.LEDGER_SUM, phase);
 
         // Validate boundary constraints in lock mode
         checkForConstraints(inputUsersBalance, actualUsersBalance);
+        phase = metrics.recordPhase(CreditPhase.BOUNDARY, phase);
 
         inputUsersBalance.forEach((user, amount) -> {
-            WalletEntity walletEntity = walletRepository.getWithLock(user);
+            // Reuse the rows already loaded (and locked) by lockWallets
+            WalletEntity walletEntity = lockedWallets.get(user);
             BigDecimal actualAmount = actualUsersBalance.get(user) == null ?
                     new BigDecimal(0) : actualUsersBalance.get(user);
 
@@ -68,86 +124,223 @@ public class WalletService {
             }
 
             walletEntity.setCredit(amount.add(actualAmount));
-
-            // save or update and flush(release) immediately
-            entities.add(walletRepository.saveAndFlush(walletEntity));
+            entities.add(walletEntity);
         });
+        phase = metrics.recordPhase(CreditPhase.UPSERT, phase);
 
+        // Inserts/updates of all wallets go out as JDBC batches together with the records on flush
+        walletRepository.saveAll(entities);
+        // Sequenced while the wallets are locked, the ledger order of a user is its commit order
+        ledgerSequence.assign(inputRecords);
         financialRepository.saveAll(inputRecords);
+        balanceCache.evictAfterCommit(inputUsersBalance.keySet());
+        metrics.recordPhase(CreditPhase.SAVE, phase);
 
         // Save the records
         return entities;
     }
 
-    private Map<String, BigDecimal> convertUserBalanceListToMap(List<WalletEntity> records) {
-        return records.stream().collect(Collectors.toMap(key -> key.getUser(), val -> val.getCredit()));
+    /**
+     * Applies several independent credit requests in one transaction (group commit).
+     * Each request is validated on its own, against the balances left by the requests accepted
+     * before it, so its outcome is the same as if the requests had been committed one by one.
+     * The wallets are locked whatever {@code wallet.balance.concurrency}, see {@code CreditPipeline}.
+     *
+     * @return one outcome per request, in the same order
+     */
+    public List<CreditOutcome> updateCreditGroup(List<List<FinancialEntity>> requests) {
+
+        List<CreditOutcome> outcomes = new ArrayList<>(requests.size());
+        List<Map<String, BigDecimal>> inputs = new ArrayList<>(requests.size());
+        Set<String> users = new HashSet<>();
+
+        // Per record validation and aggregation, a broken request only rejects itself
+        for (List<FinancialEntity> records : requests) {
+            try {
+                checkForMoreThanThousand(records);
+                Map<String, BigDecimal> inputUsersBalance = extractInputRecordsToSumByUser(records);
+                users.addAll(inputUsersBalance.keySet());
+                inputs.add(inputUsersBalance);
+                outcomes.add(null);
+            } catch (RuntimeException e) {
+                inputs.add(null);
+                outcomes.add(CreditOutcome.rejected(e));
+            }
+        }
+
+        if (users.isEmpty()) {
+            return outcomes;
+        }
+
+        Map<String, WalletEntity> lockedWallets =
+                convertWalletListToMap(locks.lockWallets(LockOperation.CREDIT, users));
+        Map<String, BigDecimal> runningUsersBalance = new HashMap<>(loadActualBalances(users, lockedWallets));
+        Set<String> touchedUsers = new HashSet<>();
+        List<FinancialEntity> acceptedRecords = new ArrayList<>();
+
+        for (int index = 0; index < requests.size(); index++) {
+            Map<String, BigDecimal> inputUsersBalance = inputs.get(index);
+            if (inputUsersBalance == null) {
+                continue;
+            }
+
+            try {
+                checkForConstraints(inputUsersBalance, runningUsersBalance);
+            } catch (FinancialBoundaryException e) {
+                outcomes.set(index, CreditOutcome.rejected(e));
+                continue;
+            }
+
+            List<WalletEntity> entities = new ArrayList<>();
+            inputUsersBalance.forEach((user, amount) -> {
+                BigDecimal credit = amount.add(runningUsersBalance.getOrDefault(user, BigDecimal.ZERO));
+                runningUsersBalance.put(user, credit);
+                touchedUsers.add(user);
+                entities.add(new WalletEntity(user, credit));
+            });
+
+            acceptedRecords.addAll(requests.get(index));
+            outcomes.set(index, CreditOutcome.accepted(entities));
+        }
+
+        // One write per wallet, whatever the number of requests that touched it
+        List<WalletEntity> wallets = new ArrayList<>(touchedUsers.size());
+        touchedUsers.forEach(user -> {
+            WalletEntity walletEntity = lockedWallets.getOrDefault(user, new WalletEntity(user, null));
+            walletEntity.setCredit(runningUsersBalance.get(user));
+            wallets.add(walletEntity);
+        });
+
+        walletRepository.saveAll(wallets);
+        ledgerSequence.assign(acceptedRecords);
+        financialRepository.saveAll(acceptedRecords);
+        balanceCache.evictAfterCommit(touchedUsers);
+
+        return outcomes;
     }
 
-    private Map<String, BigDecimal> extractInputRecordsToSumByUser(List<FinancialEntity> inputRecords) {
-        Map<String, BigDecimal> inputUsersBalance = new HashMap<>();
-        Map<String, List<FinancialEntity>> inputRecordsByUsers = inputRecords.stream()
-                .collect(groupingBy(FinancialEntity::getUser));
-
-        inputRecordsByUsers.forEach((user, records) -> {
-            BigDecimal amount = new BigDecimal(0);
-            for (FinancialEntity item : records) {
-                switch (item.getStatus()) {
-                    case CREDITOR:
-                        amount = amount.add(item.getAmount());
-                        break;
-                    case DEBTOR:
-                        amount = amount.subtract(item.getAmount());
-                        break;
-                    default:
-                        continue;
+    /**
+     * Validates against an unlocked read of the wallets and applies each delta with a conditional
+     * (version checked) update, the wallet credit is used as the running total.
+     *
+     * @throws OptimisticLockingFailureException if a wallet changed after it was read, the caller may retry
+     */
+    private List<WalletEntity> updateCreditOptimistic(List<FinancialEntity> inputRecords) {
+
+        List<WalletEntity> entities = new ArrayList<>();
+        List<WalletEntity> newWallets = new ArrayList<>();
+        List<AuditEvent> updated = new ArrayList<>();
+
+        checkForMoreThanThousand(inputRecords);
+
+        Map<String, BigDecimal> inputUsersBalance = extractInputRecordsToSumByUser(inputRecords);
+        metrics.recordBatch(inputRecords.size(), inputUsersBalance.size());
+
+        // No locks are held while validating
+        Map<String, WalletEntity> wallets =
+                convertWalletListToMap(walletRepository.findAllById(inputUsersBalance.keySet()));
+        Map<String, BigDecimal> actualUsersBalance = convertUserBalanceListToMap(wallets.values());
+
+        checkForConstraints(inputUsersBalance, actualUsersBalance);
+
+        inputUsersBalance.forEach((user, amount) -> {
+            WalletEntity walletEntity = wallets.get(user);
+
+            if (walletEntity == null) {
+                // A concurrent first credit of the same user fails on the primary key and is retried
+                walletEntity = new WalletEntity(user, amount);
+                newWallets.add(walletEntity);
+            } else {
+                if (walletRepository.addCredit(user, amount, walletEntity.getVersion()) == 0) {
+                    throw new OptimisticLockingFailureException("Wallet of user " + user + " has been changed");
                 }
+                // The managed entity is left untouched, the update above already wrote the new credit
+                walletEntity = new WalletEntity(user, walletEntity.getCredit().add(amount));
+                // The update bypasses Hibernate, so its audit event is recorded here
+                updated.add(AuditEvent.of(WalletEntity.builder().user(user).credit(walletEntity.getCredit())
+                        .version(wallets.get(user).getVersion() + 1).build(), AuditOperation.UPDATE));
             }
-            inputUsersBalance.put(user, amount);
+            entities.add(walletEntity);
         });
+
+        walletRepository.saveAll(newWallets);
+        ledgerSequence.assign(inputRecords);
+        financialRepository.saveAll(inputRecords);
+        balanceCache.evictAfterCommit(inputUsersBalance.keySet());
+        auditTrail.record(updated);
+
+        return entities;
+    }
+
+    private Map<String, BigDecimal> loadActualBalances(Set<String> users, Map<String, WalletEntity> lockedWallets) {
+        // In incremental mode the locked wallets already hold the running totals,
+        // otherwise get summery using "group by user" restricted to the given users
+        return properties.getBalance().getMode() == BalanceMode.INCREMENTAL ?
+                convertUserBalanceListToMap(lockedWallets.values()) :
+                convertUserBalanceListToMap(walletRepository.groupByUserIn(users));
+    }
+
+    private Map<String, BigDecimal> convertUserBalanceListToMap(Collection<WalletEntity> records) {
+        return records.stream().collect(Collectors.toMap(key -> key.getUser(), val -> val.getCredit()));
+    }
+
+    private Map<String, WalletEntity> convertWalletListToMap(List<WalletEntity> records) {
+        return records.stream().collect(Collectors.toMap(WalletEntity::getUser, Function.identity()));
+    }
+
+    Map<String, BigDecimal> extractInputRecordsToSumByUser(List<FinancialEntity> inputRecords) {
+        StringLongMap deltas = DeltaAggregator.aggregate(inputRecords, parallelThreshold());
+
+        Map<String, BigDecimal> inputUsersBalance = new HashMap<>((int) (deltas.size() / 0.75f) + 1);
+        deltas.forEach((user, cents) -> inputUsersBalance.put(user, Cents.toAmount(cents)));
         return inputUsersBalance;
     }
 
-    private void checkForMoreThanThousand(List<FinancialEntity> records) {
-        for (FinancialEntity record : records) {
-            if (record.getAmount().compareTo(new BigDecimal("1000")) > 0) {
-                throw new IllegalArgumentException("Record amount cannot be greater than 1000");
-            }
+    void checkForMoreThanThousand(List<FinancialEntity> records) {
+        if (DeltaAggregator.isParallel(records.size(), parallelThreshold())) {
+            BalanceRules.checkForMoreThanThousandParallel(records);
+        } else {
+            BalanceRules.checkForMoreThanThousand(records);
         }
     }
 
-    private void checkForConstraints(Map<String, BigDecimal> input, Map<String, BigDecimal> actual) {
+    void checkForConstraints(Map<String, BigDecimal> input, Map<String, BigDecimal> actual) {
 
-        Map<String, List<String>> constraintViolationMap = new HashMap<>();
+        Map<String, List<String>> constraintViolationMap =
+                violations(input, actual, DeltaAggregator.isParallel(input.size(), parallelThreshold()));
 
-        input.forEach((user, amount) -> {
-            List<String> userConstraintResult = new ArrayList<>();
+        if (!constraintViolationMap.isEmpty()) {
+            throw new FinancialBoundaryException(constraintViolationMap);
+        }
+    }
 
-            if (amount.signum() == -1) {
-                userConstraintResult.add("Record amount constraints minimum boundary (0)");
-            }
+    static Map<String, List<String>> violations(Map<String, BigDecimal> input,
+                                                Map<String, BigDecimal> actual,
+                                                boolean parallel) {
+        if (parallel) {
+            // Each user is checked on its own, the merged map is the same as the sequential one
+            return input.entrySet().parallelStream()
+                    .map(entry -> new SimpleImmutableEntry<>(entry.getKey(),
+                            BalanceRules.violations(entry.getValue(), actual.get(entry.getKey()))))
+                    .filter(entry -> !entry.getValue().isEmpty())
+                    .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+        }
 
-            if (amount.compareTo(new BigDecimal(1_000_000L)) > 0) {
-                userConstraintResult.add("Record amount constraints maximum boundary (1,000,000)");
-            }
-            if (actual.get(user) != null) {
-                // Check if sum is negative
-                if (actual.get(user).compareTo(amount) < 0) {
-                    userConstraintResult.add("Record amount constraints minimum boundary (0)");
-                }
+        Map<String, List<String>> constraintViolationMap = new HashMap<>();
+
+        input.forEach((user, amount) -> {
+            List<String> userConstraintResult = BalanceRules.violations(amount, actual.get(user));
 
-                // BigDecimal is an immutable class, so actual amount stays the same
-                if (actual.get(user).add(amount).compareTo(new BigDecimal(1_000_000L)) > 0) {
-                    userConstraintResult.add("Record amount constraints maximum boundary (1,000,000)");
-                }
-            }
             if (userConstraintResult.size() > 0) {
                 constraintViolationMap.put(user, userConstraintResult);
             }
         });
 
-        if (!constraintViolationMap.isEmpty()) {
-            throw new FinancialBoundaryException(constraintViolationMap);
-        }
+        return constraintViolationMap;
+    }
+
+    private int parallelThreshold() {
+        return properties.getValidation().getParallelThreshold();
     }
 
 }
@@ -0,0 +1,83 @@
+package com.snw.service.audit;
+
+import com.snw.domain.FinancialEntity;
+import com.snw.domain.WalletEntity;
+import com.snw.domain.enumeration.AuditOperation;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Change of an audited entity captured during a transaction: a copy of the audited fields, serialized
+ * only by the audit writer.
+ */
+public final class AuditEvent {
+
+    public static final String FINANCIAL = "financial";
+
+    public static final String WALLET = "wallet";
+
+    private final String entityType;
+
+    private final String entityId;
+
+    private final AuditOperation operation;
+
+    private final Map<String, Object> state;
+
+    private final Instant changedAt = Instant.now();
+
+    private AuditEvent(String entityType, String entityId, AuditOperation operation, Map<String, Object> state) {
+        this.entityType = entityType;
+        this.entityId = entityId;
+        this.operation = operation;
+        this.state = state;
+    }
+
+    public static AuditEvent of(FinancialEntity record, AuditOperation operation) {
+        Map<String, Object> state = new LinkedHashMap<>(8);
+        state.put("status", record.getStatus());
+        state.put("user", record.getUser());
+        state.put("amount", record.getAmount());
+        state.put("seq", record.getSequence());
+        return new AuditEvent(FINANCIAL, record.getId(), operation, state);
+    }
+
+    public static AuditEvent of(WalletEntity wallet, AuditOperation operation) {
+        Map<String, Object> state = new LinkedHashMap<>(4);
+        state.put("credit", wallet.getCredit());
+        state.put("version", wallet.getVersion());
+        return new AuditEvent(WALLET, wallet.getUser(), operation, state);
+    }
+
+    /**
+     * A wallet changed in place by SQL, only the applied delta is known.
+     */
+    public static AuditEvent ofWalletDelta(String user, BigDecimal delta) {
+        Map<String, Object> state = new LinkedHashMap<>(2);
+        state.put("delta", delta);
+        return new AuditEvent(WALLET, user, AuditOperation.UPDATE, state);
+    }
+
+    public String getEntityType() {
+        return entityType;
+    }
+
+    public String getEntityId() {
+        return entityId;
+    }
+
+    public AuditOperation getOperation() {
+        return operation;
+    }
+
+    public Map<String, Object> getState() {
+        return state;
+    }
+
+    public Instant getChangedAt() {
+        return changedAt;
+    }
+}
@@ -0,0 +1,78 @@
+package com.snw.service.audit;
+
+import com.snw.domain.FinancialEntity;
+import com.snw.domain.WalletEntity;
+import com.snw.domain.enumeration.AuditOperation;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.*;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * Turns the inserts, updates and deletes Hibernate flushes for the ledger records and the wallets into audit events.
+ */
+@Component
+public class AuditEventListener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final AuditTrail auditTrail;
+
+    public AuditEventListener(EntityManagerFactory entityManagerFactory, AuditTrail auditTrail) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.auditTrail = auditTrail;
+    }
+
+    @PostConstruct
+    void register() {
+        if (!auditTrail.isEnabled()) {
+            return;
+        }
+
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        record(event.getSession(), event.getEntity(), AuditOperation.CREATE);
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        record(event.getSession(), event.getEntity(), AuditOperation.UPDATE);
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        record(event.getSession(), event.getEntity(), AuditOperation.DELETE);
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    // Still abstract in Hibernate 5.6, only called through requiresPostCommitHandling
+    @Override
+    @Deprecated
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return requiresPostCommitHandling(persister);
+    }
+
+    private void record(SessionImplementor session, Object entity, AuditOperation operation) {
+        if (entity instanceof FinancialEntity) {
+            auditTrail.record(session, AuditEvent.of((FinancialEntity) entity, operation));
+        } else if (entity instanceof WalletEntity) {
+            auditTrail.record(session, AuditEvent.of((WalletEntity) entity, operation));
+        }
+    }
+}
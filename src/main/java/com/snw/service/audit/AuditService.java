@@ -0,0 +1,48 @@
+package com.snw.service.audit;
+
+import com.snw.domain.AuditEntity;
+import com.snw.exception.NoRecordFoundException;
+import com.snw.repository.AuditRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Reads the audit trail. Revisions written by the background writer show up shortly after their commit.
+ */
+@Service
+@Transactional(readOnly = true)
+public class AuditService {
+
+    private final AuditRepository repository;
+
+    public AuditService(AuditRepository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * @return at most {@code limit} changes of the entity with an id greater than {@code after}
+     * (from the start when null), oldest first
+     */
+    public List<AuditEntity> getHistory(String entityType, String entityId, Long after, int limit) {
+        if (!AuditEvent.FINANCIAL.equals(entityType) && !AuditEvent.WALLET.equals(entityType)) {
+            throw new IllegalArgumentException("Unknown audited entity " + entityType);
+        }
+
+        return repository.findByEntityTypeAndEntityIdAndIdGreaterThanOrderById(entityType, entityId,
+                after == null ? 0L : after, PageRequest.of(0, limit));
+    }
+
+    /**
+     * @return every change made by the transaction of the revision
+     */
+    public List<AuditEntity> getRevision(String revision) {
+        List<AuditEntity> changes = repository.findByRevisionOrderById(revision);
+        if (changes.isEmpty()) {
+            throw new NoRecordFoundException("Revision " + revision + " not found.");
+        }
+        return changes;
+    }
+}
@@ -0,0 +1,285 @@
+package com.snw.service.audit;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.snw.config.AppConstants;
+import com.snw.config.WalletProperties;
+import com.snw.domain.enumeration.AuditDurability;
+import com.snw.domain.id.LedgerIds;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects the audit events of each transaction and writes them off the write path.
+ * <p>
+ * Events are kept in memory next to the Hibernate session of the transaction. On commit they get a revision and
+ * are either queued for the background writer (bounded, a full queue drops the revision and counts it) or, with
+ * the {@code TRANSACTIONAL} durability, written in one JDBC batch right before the commit. A rollback drops them.
+ * A transaction holding more than {@code max-pending-events} (a bulk import) writes the overflow in the transaction,
+ * its memory stays bounded.
+ */
+@Slf4j
+@Component
+public class AuditTrail {
+
+    private static final String INSERT_AUDIT = "INSERT INTO " + AppConstants.TABLE_PREFIX + "audit " +
+            "(revision, entity_type, entity_id, operation, state, changed_at) VALUES (?, ?, ?, ?, ?, ?)";
+
+    private final WalletProperties.Audit settings;
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ObjectMapper objectMapper;
+
+    private final Map<SessionImplementor, Revision> pending = new ConcurrentHashMap<>();
+
+    private final BlockingQueue<Revision> queue;
+
+    private final Counter written;
+
+    private final Counter dropped;
+
+    private volatile boolean running;
+
+    private Thread writer;
+
+    public AuditTrail(WalletProperties properties,
+                      EntityManagerFactory entityManagerFactory,
+                      JdbcTemplate jdbcTemplate,
+                      TransactionTemplate transactionTemplate,
+                      ObjectMapper objectMapper,
+                      MeterRegistry registry) {
+        this.settings = properties.getAudit();
+        this.entityManagerFactory = entityManagerFactory;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.queue = new ArrayBlockingQueue<>(settings.getQueueCapacity());
+
+        this.written = Counter.builder("wallet.audit.events").tag("outcome", "written").register(registry);
+        this.dropped = Counter.builder("wallet.audit.events").tag("outcome", "dropped").register(registry);
+        registry.gauge("wallet.audit.queue", queue, BlockingQueue::size);
+    }
+
+    public boolean isEnabled() {
+        return settings.isEnabled();
+    }
+
+    /**
+     * Adds the event to the revision of the transaction the session belongs to.
+     */
+    public void record(SessionImplementor session, AuditEvent event) {
+        if (!settings.isEnabled()) {
+            return;
+        }
+
+        pending.computeIfAbsent(session, this::open).add(event);
+    }
+
+    /**
+     * Adds the events to the revision of the current transaction, for changes made through JDBC.
+     */
+    public void record(Collection<AuditEvent> events) {
+        if (!settings.isEnabled() || events.isEmpty()) {
+            return;
+        }
+
+        EntityManager entityManager = EntityManagerFactoryUtils.getTransactionalEntityManager(entityManagerFactory);
+        if (entityManager == null) {
+            // Not transactional, the changes are already committed
+            Revision revision = new Revision(null);
+            revision.events.addAll(events);
+            revision.commit();
+            return;
+        }
+
+        Revision revision = pending.computeIfAbsent(entityManager.unwrap(SessionImplementor.class),
+                this::open);
+        events.forEach(revision::add);
+    }
+
+    private Revision open(SessionImplementor session) {
+        Revision revision = new Revision(session);
+        session.getActionQueue().registerProcess((AfterTransactionCompletionProcess) revision);
+        if (settings.getDurability() == AuditDurability.TRANSACTIONAL) {
+            session.getActionQueue().registerProcess((BeforeTransactionCompletionProcess) revision);
+        }
+        return revision;
+    }
+
+    private void enqueue(Revision revision) {
+        startIfNeeded();
+        if (!queue.offer(revision)) {
+            dropped.increment(revision.events.size());
+            log.warn("Audit queue is full, dropping revision {} of {} events", revision.id, revision.events.size());
+        }
+    }
+
+    private synchronized void startIfNeeded() {
+        if (writer == null) {
+            running = true;
+            writer = new Thread(this::drain, "audit-writer");
+            writer.setDaemon(true);
+            writer.start();
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        Thread thread;
+        synchronized (this) {
+            thread = writer;
+        }
+        if (thread != null) {
+            thread.join(TimeUnit.SECONDS.toMillis(10));
+        }
+    }
+
+    private void drain() {
+        List<Revision> batch = new ArrayList<>();
+
+        while (running || !queue.isEmpty()) {
+            try {
+                Revision first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+
+                batch.add(first);
+                int events = first.events.size();
+                long deadline = System.nanoTime() + settings.getMaxLinger().toNanos();
+                while (events < settings.getMaxBatchSize()) {
+                    Revision next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                    events += next.events.size();
+                }
+
+                List<Object[]> rows = new ArrayList<>(events);
+                batch.forEach(revision -> revision.events.forEach(event -> rows.add(row(revision.id, event))));
+                transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_AUDIT, rows));
+                written.increment(rows.size());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                int events = batch.stream().mapToInt(revision -> revision.events.size()).sum();
+                dropped.increment(events);
+                log.error("Audit writer failed to persist {} revisions", batch.size(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private Object[] row(String revision, AuditEvent event) {
+        try {
+            return new Object[]{revision, event.getEntityType(), event.getEntityId(), event.getOperation().name(),
+                    objectMapper.writeValueAsString(event.getState()), Timestamp.from(event.getChangedAt())};
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * The events of one transaction.
+     */
+    private class Revision implements BeforeTransactionCompletionProcess, AfterTransactionCompletionProcess {
+
+        private final SessionImplementor session;
+
+        private final List<AuditEvent> events = new ArrayList<>();
+
+        private final String id = LedgerIds.timeOrdered().toString();
+
+        private long persisted;
+
+        private Revision(SessionImplementor session) {
+            this.session = session;
+        }
+
+        private void add(AuditEvent event) {
+            events.add(event);
+            if (events.size() >= settings.getMaxPendingEvents()) {
+                insert(session.getJdbcCoordinator().getLogicalConnection().getPhysicalConnection());
+            }
+        }
+
+        @Override
+        public void doBeforeTransactionCompletion(SessionImplementor session) {
+            // Events may still be added by the flush, which runs before
+            pending.remove(this.session);
+            insert(session.getJdbcCoordinator().getLogicalConnection().getPhysicalConnection());
+        }
+
+        @Override
+        public void doAfterTransactionCompletion(boolean success, SharedSessionContractImplementor session) {
+            pending.remove(this.session);
+            if (success) {
+                commit();
+            }
+        }
+
+        private void commit() {
+            written.increment(persisted);
+            if (!events.isEmpty()) {
+                enqueue(this);
+            }
+        }
+
+        // Writes the events in the audited transaction
+        private void insert(Connection connection) {
+            if (events.isEmpty()) {
+                return;
+            }
+
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_AUDIT)) {
+                for (AuditEvent event : events) {
+                    Object[] row = row(id, event);
+                    for (int index = 0; index < row.length; index++) {
+                        statement.setObject(index + 1, row[index]);
+                    }
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            } catch (SQLException e) {
+                throw new IllegalStateException("Could not write the audit revision " + id, e);
+            }
+            persisted += events.size();
+            events.clear();
+        }
+    }
+}
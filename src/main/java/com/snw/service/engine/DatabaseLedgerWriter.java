@@ -0,0 +1,280 @@
+package com.snw.service.engine;
+
+import com.snw.config.AppConstants;
+import com.snw.config.WalletProperties;
+import com.snw.domain.FinancialEntity;
+import com.snw.domain.WalletEntity;
+import com.snw.domain.enumeration.AuditOperation;
+import com.snw.domain.enumeration.LedgerIdStrategy;
+import com.snw.domain.id.LedgerIds;
+import com.snw.exception.CreditPipelineSaturatedException;
+import com.snw.repository.LedgerSequence;
+import com.snw.service.BalanceCache;
+import com.snw.service.audit.AuditEvent;
+import com.snw.service.audit.AuditTrail;
+import com.snw.util.Cents;
+import com.snw.util.StringLongMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes the engine appends straight to the relational store: one writer thread, many appends per transaction,
+ * ledger rows and wallet deltas through JDBC batches.
+ */
+@Slf4j
+@Component
+public class DatabaseLedgerWriter implements LedgerWriter {
+
+    private static final String INSERT_RECORD = "INSERT INTO " + AppConstants.TABLE_PREFIX + "address " +
+            "(id, accounting_status, user, amount, created_at, seq) VALUES (?, ?, ?, ?, ?, ?)";
+
+    private static final String UPDATE_WALLET = "UPDATE " + AppConstants.TABLE_PREFIX + "wallet " +
+            "SET credit = credit + ?, version = version + 1 WHERE user = ?";
+
+    private static final String INSERT_WALLET = "INSERT INTO " + AppConstants.TABLE_PREFIX + "wallet " +
+            "(user, credit, version) VALUES (?, ?, 0)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final WalletProperties.Writer settings;
+
+    private final LedgerIdStrategy idStrategy;
+
+    private final BalanceCache balanceCache;
+
+    private final LedgerSequence ledgerSequence;
+
+    private final AuditTrail auditTrail;
+
+    private final BlockingQueue<PendingAppend> queue;
+
+    private volatile boolean running;
+
+    private volatile boolean stopped;
+
+    private Thread writer;
+
+    public DatabaseLedgerWriter(JdbcTemplate jdbcTemplate,
+                                TransactionTemplate transactionTemplate,
+                                WalletProperties properties,
+                                BalanceCache balanceCache,
+                                LedgerSequence ledgerSequence,
+                                AuditTrail auditTrail) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.settings = properties.getEngine().getWriter();
+        this.idStrategy = properties.getLedger().getIdStrategy();
+        this.balanceCache = balanceCache;
+        this.ledgerSequence = ledgerSequence;
+        this.auditTrail = auditTrail;
+        this.queue = new ArrayBlockingQueue<>(settings.getQueueCapacity());
+    }
+
+    @Override
+    public CompletableFuture<Void> append(List<FinancialEntity> records, StringLongMap deltas) {
+        PendingAppend pending = new PendingAppend(records, deltas);
+
+        if (stopped) {
+            pending.future.completeExceptionally(stopped());
+            return pending.future;
+        }
+        startIfNeeded();
+        if (!queue.offer(pending)) {
+            pending.future.completeExceptionally(new CreditPipelineSaturatedException());
+            return pending.future;
+        }
+
+        // stop() may have run since the check and the writer may be gone, take the append back if still queued
+        if (stopped && queue.remove(pending)) {
+            pending.future.completeExceptionally(stopped());
+        }
+
+        return pending.future;
+    }
+
+    private synchronized void startIfNeeded() {
+        if (writer == null && !stopped) {
+            running = true;
+            writer = new Thread(this::drain, "ledger-writer");
+            writer.setDaemon(true);
+            writer.start();
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        stopped = true;
+        running = false;
+        Thread thread;
+        synchronized (this) {
+            thread = writer;
+        }
+        if (thread != null) {
+            thread.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        // Left by a writer that did not finish in time or was interrupted
+        failPending();
+    }
+
+    private void failPending() {
+        PendingAppend pending;
+        while ((pending = queue.poll()) != null) {
+            pending.future.completeExceptionally(stopped());
+        }
+    }
+
+    private static CreditPipelineSaturatedException stopped() {
+        return new CreditPipelineSaturatedException("The ledger writer is stopped, try again later");
+    }
+
+    /**
+     * Applies appends to the relational store synchronously, in the caller's transaction if there is one.
+     * Records without an id or creation time get one, values assigned upfront (e.g. by the journal) are kept.
+     * The ledger sequence is always allocated in the current transaction. The changes are audited as they bypass
+     * Hibernate.
+     */
+    public void write(List<FinancialEntity> records, StringLongMap deltas) {
+        records.forEach(record -> {
+            if (record.getId() == null) {
+                record.setId(LedgerIds.next(idStrategy));
+            }
+            if (record.getCreatedAt() == null) {
+                record.setCreatedAt(Instant.now());
+            }
+        });
+        if (!records.isEmpty()) {
+            ledgerSequence.assign(records);
+            jdbcTemplate.batchUpdate(INSERT_RECORD, records, records.size(), (statement, record) -> {
+                statement.setString(1, record.getId());
+                statement.setString(2, record.getStatus() == null ? null : record.getStatus().name());
+                statement.setString(3, record.getUser());
+                statement.setBigDecimal(4, record.getAmount());
+                statement.setTimestamp(5, Timestamp.from(record.getCreatedAt()));
+                statement.setLong(6, record.getSequence());
+            });
+        }
+
+        List<AuditEvent> events = new ArrayList<>(auditTrail.isEnabled() ? records.size() + deltas.size() : 0);
+        if (auditTrail.isEnabled()) {
+            records.forEach(record -> events.add(AuditEvent.of(record, AuditOperation.CREATE)));
+        }
+
+        if (deltas.isEmpty()) {
+            auditTrail.record(events);
+            return;
+        }
+
+        List<Object[]> updates = new ArrayList<>(deltas.size());
+        List<String> users = new ArrayList<>(deltas.size());
+        deltas.forEach((user, cents) -> {
+            updates.add(new Object[]{Cents.toAmount(cents), user});
+            users.add(user);
+        });
+        balanceCache.evictAfterCommit(users);
+
+        int[][] counts = jdbcTemplate.batchUpdate(UPDATE_WALLET, updates, updates.size(),
+                (statement, row) -> {
+                    statement.setBigDecimal(1, (BigDecimal) row[0]);
+                    statement.setString(2, (String) row[1]);
+                });
+
+        // Users without a wallet row yet
+        List<Object[]> inserts = new ArrayList<>();
+        int index = 0;
+        for (int[] chunk : counts) {
+            for (int count : chunk) {
+                String user = users.get(index);
+                BigDecimal delta = (BigDecimal) updates.get(index)[0];
+                if (count == 0) {
+                    inserts.add(new Object[]{user, delta});
+                    if (auditTrail.isEnabled()) {
+                        events.add(AuditEvent.of(
+                                WalletEntity.builder().user(user).credit(delta).version(0L).build(),
+                                AuditOperation.CREATE));
+                    }
+                } else if (auditTrail.isEnabled()) {
+                    events.add(AuditEvent.ofWalletDelta(user, delta));
+                }
+                index++;
+            }
+        }
+        if (!inserts.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_WALLET, inserts);
+        }
+        auditTrail.record(events);
+    }
+
+    private void drain() {
+        List<PendingAppend> batch = new ArrayList<>(settings.getMaxBatchSize());
+
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingAppend first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+
+                batch.add(first);
+                long deadline = System.nanoTime() + settings.getMaxLinger().toNanos();
+                while (batch.size() < settings.getMaxBatchSize()) {
+                    PendingAppend next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                List<FinancialEntity> records = new ArrayList<>();
+                StringLongMap deltas = new StringLongMap(batch.size());
+                batch.forEach(pending -> {
+                    records.addAll(pending.records);
+                    deltas.addAll(pending.deltas);
+                });
+
+                transactionTemplate.executeWithoutResult(status -> write(records, deltas));
+                batch.forEach(pending -> pending.future.complete(null));
+            } catch (InterruptedException e) {
+                // Nothing drains the appends anymore, reject them from now on
+                Thread.currentThread().interrupt();
+                stopped = true;
+                batch.forEach(pending -> pending.future.completeExceptionally(stopped()));
+                failPending();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Ledger writer failed to persist {} appends", batch.size(), e);
+                batch.forEach(pending -> pending.future.completeExceptionally(e));
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private static class PendingAppend {
+
+        private final List<FinancialEntity> records;
+
+        private final StringLongMap deltas;
+
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        private PendingAppend(List<FinancialEntity> records, StringLongMap deltas) {
+            this.records = records;
+            this.deltas = deltas;
+        }
+    }
+}
@@ -0,0 +1,350 @@
+package com.snw.service.engine;
+
+import com.snw.config.AppConstants;
+import com.snw.config.WalletProperties;
+import com.snw.domain.FinancialEntity;
+import com.snw.domain.enumeration.LedgerIdStrategy;
+import com.snw.domain.id.LedgerIds;
+import com.snw.exception.CreditPipelineSaturatedException;
+import com.snw.util.StringLongMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-ahead {@link LedgerWriter}: appends are acknowledged as soon as they are fsynced to the {@link LedgerJournal},
+ * the relational store is updated afterwards by a background thread through {@link DatabaseLedgerWriter#write}.
+ * <p>
+ * Appends queued while the journal is syncing are written and synced together (group fsync).
+ * Entries not applied to the store when the application stops are replayed on the next start.
+ * Readers of the store that need every acknowledged append (e.g. a shard reloading balances) wait on {@link #applied()}.
+ */
+@Slf4j
+@Primary
+@Component
+@ConditionalOnProperty(prefix = "wallet.engine.journal", name = "enabled", havingValue = "true")
+public class JournalLedgerWriter implements LedgerWriter {
+
+    private static final String RECORD_EXISTS = "SELECT COUNT(*) FROM " + AppConstants.TABLE_PREFIX + "address " +
+            "WHERE id = ?";
+
+    private static final long APPLY_RETRY_MILLIS = 1000;
+
+    private final DatabaseLedgerWriter database;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final WalletProperties.Journal settings;
+
+    private final LedgerIdStrategy idStrategy;
+
+    private final LedgerJournal journal;
+
+    private final BlockingQueue<PendingAppend> appends;
+
+    private final BlockingQueue<LedgerJournal.Entry> applies;
+
+    private volatile boolean running;
+
+    private volatile Throwable failure;
+
+    private Thread writer;
+
+    private Thread applier;
+
+    // Journal entries acknowledged and applied to the store, and the callers waiting for a count to be applied
+    private final Object progress = new Object();
+
+    private long acknowledgedEntries;
+
+    private long appliedEntries;
+
+    private boolean applierStopped;
+
+    private final NavigableMap<Long, CompletableFuture<Void>> appliedWaiters = new TreeMap<>();
+
+    public JournalLedgerWriter(DatabaseLedgerWriter database,
+                               JdbcTemplate jdbcTemplate,
+                               TransactionTemplate transactionTemplate,
+                               WalletProperties properties) {
+        this.database = database;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.settings = properties.getEngine().getJournal();
+        this.idStrategy = properties.getLedger().getIdStrategy();
+        this.journal = new LedgerJournal(settings.getDirectory(), (int) settings.getSegmentSize().toBytes());
+        this.appends = new ArrayBlockingQueue<>(settings.getQueueCapacity());
+        this.applies = new ArrayBlockingQueue<>(settings.getQueueCapacity());
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        replay(journal.recover());
+        journal.open();
+
+        running = true;
+        writer = new Thread(this::write, "journal-writer");
+        writer.setDaemon(true);
+        writer.start();
+
+        applier = new Thread(this::apply, "journal-applier");
+        applier.setDaemon(true);
+        applier.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException, IOException {
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(10));
+        applier.join(TimeUnit.SECONDS.toMillis(10));
+        journal.close();
+        // Left by threads that did not finish in time or were interrupted, journaled entries are replayed on restart
+        failPending();
+        failWaiters();
+    }
+
+    @Override
+    public CompletableFuture<Void> applied() {
+        synchronized (progress) {
+            if (appliedEntries >= acknowledgedEntries) {
+                return CompletableFuture.completedFuture(null);
+            }
+            if (applierStopped) {
+                return CompletableFuture.failedFuture(stopped());
+            }
+            return appliedWaiters.computeIfAbsent(acknowledgedEntries, count -> new CompletableFuture<>());
+        }
+    }
+
+    @Override
+    public CompletableFuture<Void> append(List<FinancialEntity> records, StringLongMap deltas) {
+        // The ids and creation times are part of the journal entry, so a replay inserts the same rows
+        Instant now = Instant.now();
+        records.forEach(record -> {
+            if (record.getId() == null) {
+                record.setId(LedgerIds.next(idStrategy));
+            }
+            if (record.getCreatedAt() == null) {
+                record.setCreatedAt(now);
+            }
+        });
+
+        PendingAppend pending = new PendingAppend(records, deltas);
+        if (failure != null) {
+            pending.future.completeExceptionally(failure);
+            return pending.future;
+        }
+        if (!running) {
+            pending.future.completeExceptionally(stopped());
+            return pending.future;
+        }
+        if (!appends.offer(pending)) {
+            pending.future.completeExceptionally(new CreditPipelineSaturatedException());
+            return pending.future;
+        }
+
+        // stop() may have run since the check and the writer may be gone, take the append back if still queued
+        if (!running && appends.remove(pending)) {
+            pending.future.completeExceptionally(stopped());
+        }
+
+        return pending.future;
+    }
+
+    private void failPending() {
+        PendingAppend pending;
+        while ((pending = appends.poll()) != null) {
+            pending.future.completeExceptionally(stopped());
+        }
+    }
+
+    private void failWaiters() {
+        List<CompletableFuture<Void>> waiters;
+        synchronized (progress) {
+            applierStopped = true;
+            waiters = new ArrayList<>(appliedWaiters.values());
+            appliedWaiters.clear();
+        }
+        waiters.forEach(waiter -> waiter.completeExceptionally(stopped()));
+    }
+
+    private static CreditPipelineSaturatedException stopped() {
+        return new CreditPipelineSaturatedException("The ledger writer is stopped, try again later");
+    }
+
+    private void replay(List<LedgerJournal.Entry> entries) {
+        int replayed = 0;
+        for (LedgerJournal.Entry entry : entries) {
+            if (entry.records.isEmpty() || isApplied(entry)) {
+                continue;
+            }
+            transactionTemplate.executeWithoutResult(status -> database.write(entry.records, entry.deltas));
+            replayed++;
+        }
+
+        if (!entries.isEmpty()) {
+            log.info("Journal recovery: {} entries found, {} replayed", entries.size(), replayed);
+        }
+    }
+
+    private boolean isApplied(LedgerJournal.Entry entry) {
+        // Each entry is applied in one transaction, its first record tells whether it made it to the store
+        Integer found = jdbcTemplate.queryForObject(RECORD_EXISTS, Integer.class, entry.records.get(0).getId());
+        return found != null && found > 0;
+    }
+
+    private void write() {
+        List<PendingAppend> batch = new ArrayList<>(settings.getMaxBatchSize());
+        List<LedgerJournal.Entry> written = new ArrayList<>(settings.getMaxBatchSize());
+
+        while (running || !appends.isEmpty()) {
+            try {
+                PendingAppend first = appends.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+
+                // No linger, whatever queued up during the previous fsync goes into this one
+                batch.add(first);
+                appends.drainTo(batch, settings.getMaxBatchSize() - 1);
+
+                for (PendingAppend pending : batch) {
+                    try {
+                        long segment = journal.append(pending.records, pending.deltas);
+                        written.add(new LedgerJournal.Entry(segment, pending.records, pending.deltas));
+                    } catch (IllegalArgumentException e) {
+                        pending.future.completeExceptionally(e);
+                    }
+                }
+                journal.sync();
+
+                synchronized (progress) {
+                    acknowledgedEntries += written.size();
+                }
+                for (PendingAppend pending : batch) {
+                    pending.future.complete(null);
+                }
+                for (LedgerJournal.Entry entry : written) {
+                    applies.put(entry);
+                }
+            } catch (InterruptedException e) {
+                // Nothing drains the appends anymore, reject them from now on
+                Thread.currentThread().interrupt();
+                running = false;
+                batch.forEach(pending -> pending.future.completeExceptionally(stopped()));
+                failPending();
+                return;
+            } catch (IOException | RuntimeException e) {
+                // Durability of the batch is unknown, stop accepting appends rather than acknowledging a gap
+                log.error("Journal failed, rejecting all further appends", e);
+                failure = e;
+                batch.forEach(pending -> pending.future.completeExceptionally(e));
+                appends.forEach(pending -> pending.future.completeExceptionally(e));
+                return;
+            } finally {
+                batch.clear();
+                written.clear();
+            }
+        }
+    }
+
+    private void apply() {
+        List<LedgerJournal.Entry> batch = new ArrayList<>(settings.getMaxBatchSize());
+
+        while (running || writer.isAlive() || !applies.isEmpty()) {
+            try {
+                LedgerJournal.Entry first = applies.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+
+                batch.add(first);
+                applies.drainTo(batch, settings.getMaxBatchSize() - 1);
+
+                List<FinancialEntity> records = new ArrayList<>();
+                StringLongMap deltas = new StringLongMap(batch.size());
+                batch.forEach(entry -> {
+                    records.addAll(entry.records);
+                    deltas.addAll(entry.deltas);
+                });
+
+                if (!applyWithRetry(records, deltas)) {
+                    // Stopping, the entries stay in the journal and are replayed on the next start
+                    break;
+                }
+                markApplied(batch.size());
+
+                // Entries are applied in journal order, every older segment is fully in the store
+                journal.deleteBefore(batch.get(batch.size() - 1).segment);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (IOException e) {
+                log.warn("Could not delete applied journal segments", e);
+            } finally {
+                batch.clear();
+            }
+        }
+        failWaiters();
+    }
+
+    private void markApplied(int entries) {
+        List<CompletableFuture<Void>> reached;
+        synchronized (progress) {
+            appliedEntries += entries;
+            Map<Long, CompletableFuture<Void>> done = appliedWaiters.headMap(appliedEntries, true);
+            reached = new ArrayList<>(done.values());
+            done.clear();
+        }
+        reached.forEach(waiter -> waiter.complete(null));
+    }
+
+    private boolean applyWithRetry(List<FinancialEntity> records, StringLongMap deltas) throws InterruptedException {
+        while (true) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> database.write(records, deltas));
+                return true;
+            } catch (RuntimeException e) {
+                // Keep the journal order, later entries wait until this batch is in the store
+                log.error("Could not apply {} journaled records, retrying", records.size(), e);
+                if (!running) {
+                    return false;
+                }
+                Thread.sleep(APPLY_RETRY_MILLIS);
+            }
+        }
+    }
+
+    private static class PendingAppend {
+
+        private final List<FinancialEntity> records;
+
+        private final StringLongMap deltas;
+
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        private PendingAppend(List<FinancialEntity> records, StringLongMap deltas) {
+            this.records = records;
+            this.deltas = deltas;
+        }
+    }
+}
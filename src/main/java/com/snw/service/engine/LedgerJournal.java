@@ -0,0 +1,264 @@
+package com.snw.service.engine;
+
+import com.snw.domain.FinancialEntity;
+import com.snw.domain.enumeration.AccountingStatus;
+import com.snw.util.Cents;
+import com.snw.util.StringLongMap;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of the ledger appends, stored in fixed size memory-mapped segment files.
+ * <p>
+ * Every entry is {@code [int length][int crc32][payload]}; a zero length (the untouched, zero filled
+ * part of a segment) or a checksum mismatch marks the end of the segment. The payload holds the
+ * ledger records followed by the wallet deltas, amounts in cents. Not thread safe, owned by one writer.
+ */
+@Slf4j
+class LedgerJournal {
+
+    private static final String PREFIX = "ledger-";
+
+    private static final String SUFFIX = ".journal";
+
+    private static final int HEADER_SIZE = 8;
+
+    private static final byte NO_STATUS = -1;
+
+    private static final AccountingStatus[] STATUSES = AccountingStatus.values();
+
+    private final Path directory;
+
+    private final int segmentSize;
+
+    private final CRC32 crc = new CRC32();
+
+    private ByteBuffer scratch = ByteBuffer.allocate(64 * 1024);
+
+    private long segment = -1;
+
+    private FileChannel channel;
+
+    private MappedByteBuffer buffer;
+
+    LedgerJournal(Path directory, int segmentSize) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * Reads every entry left by the previous run, oldest first. Stops reading a segment at its first torn entry.
+     */
+    List<Entry> recover() throws IOException {
+        Files.createDirectories(directory);
+
+        List<Entry> entries = new ArrayList<>();
+        for (long index : segments()) {
+            try (FileChannel file = FileChannel.open(pathOf(index), StandardOpenOption.READ)) {
+                ByteBuffer data = file.map(FileChannel.MapMode.READ_ONLY, 0, file.size());
+                Entry entry;
+                while ((entry = read(data, index)) != null) {
+                    entries.add(entry);
+                }
+            }
+            segment = Math.max(segment, index);
+        }
+        return entries;
+    }
+
+    /**
+     * Starts a fresh segment after the recovered ones and drops them, they must have been replayed by now.
+     */
+    void open() throws IOException {
+        deleteBefore(segment + 1);
+        roll();
+    }
+
+    /**
+     * Writes the entry to the current segment, rolling to a new one when it does not fit.
+     * The entry is not durable before the next {@link #sync()}.
+     *
+     * @return the segment the entry has been written to
+     */
+    long append(List<FinancialEntity> records, StringLongMap deltas) throws IOException {
+        ByteBuffer payload = encode(records, deltas);
+        int size = HEADER_SIZE + payload.remaining();
+        if (size > segmentSize) {
+            throw new IllegalArgumentException("Journal entry of " + size + " bytes exceeds the segment size");
+        }
+
+        if (buffer.remaining() < size) {
+            sync();
+            roll();
+        }
+
+        crc.reset();
+        crc.update(payload.duplicate());
+        buffer.putInt(payload.remaining());
+        buffer.putInt((int) crc.getValue());
+        buffer.put(payload);
+        return segment;
+    }
+
+    void sync() {
+        buffer.force();
+    }
+
+    /**
+     * Deletes the segments older than {@code index}. Only touches files, safe to call from another thread.
+     */
+    void deleteBefore(long index) throws IOException {
+        for (long old : segments()) {
+            if (old < index) {
+                Files.deleteIfExists(pathOf(old));
+            }
+        }
+    }
+
+    void close() throws IOException {
+        if (channel != null) {
+            sync();
+            channel.close();
+        }
+    }
+
+    private void roll() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+
+        segment++;
+        channel = FileChannel.open(pathOf(segment), StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+    }
+
+    private List<Long> segments() throws IOException {
+        List<Long> indexes = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                indexes.add(Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length())));
+            }
+        }
+        indexes.sort(null);
+        return indexes;
+    }
+
+    private Path pathOf(long index) {
+        return directory.resolve(String.format("%s%020d%s", PREFIX, index, SUFFIX));
+    }
+
+    private ByteBuffer encode(List<FinancialEntity> records, StringLongMap deltas) {
+        while (true) {
+            scratch.clear();
+            try {
+                scratch.putInt(records.size());
+                for (FinancialEntity record : records) {
+                    putString(record.getId());
+                    scratch.put(record.getStatus() == null ? NO_STATUS : (byte) record.getStatus().ordinal());
+                    putString(record.getUser());
+                    scratch.putLong(Cents.round(record.getAmount()));
+                    scratch.putLong(record.getCreatedAt().getEpochSecond());
+                    scratch.putInt(record.getCreatedAt().getNano());
+                }
+
+                scratch.putInt(deltas.size());
+                deltas.forEach((user, cents) -> {
+                    putString(user);
+                    scratch.putLong(cents);
+                });
+
+                scratch.flip();
+                return scratch;
+            } catch (BufferOverflowException e) {
+                scratch = ByteBuffer.allocate(scratch.capacity() << 1);
+            }
+        }
+    }
+
+    private void putString(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        scratch.putShort((short) bytes.length);
+        scratch.put(bytes);
+    }
+
+    private Entry read(ByteBuffer data, long index) {
+        if (data.remaining() < HEADER_SIZE) {
+            return null;
+        }
+
+        int length = data.getInt();
+        int checksum = data.getInt();
+        if (length <= 0 || length > data.remaining()) {
+            return null;
+        }
+
+        ByteBuffer payload = data.slice();
+        payload.limit(length);
+        crc.reset();
+        crc.update(payload.duplicate());
+        if ((int) crc.getValue() != checksum) {
+            log.warn("Journal segment {} has a torn entry, ignoring the rest of it", index);
+            return null;
+        }
+        data.position(data.position() + length);
+
+        int recordCount = payload.getInt();
+        List<FinancialEntity> records = new ArrayList<>(recordCount);
+        for (int record = 0; record < recordCount; record++) {
+            String id = getString(payload);
+            byte status = payload.get();
+            records.add(FinancialEntity.builder()
+                    .id(id)
+                    .status(status == NO_STATUS ? null : STATUSES[status])
+                    .user(getString(payload))
+                    .amount(Cents.toAmount(payload.getLong()))
+                    .createdAt(Instant.ofEpochSecond(payload.getLong(), payload.getInt()))
+                    .build());
+        }
+
+        int deltaCount = payload.getInt();
+        StringLongMap deltas = new StringLongMap(deltaCount);
+        for (int delta = 0; delta < deltaCount; delta++) {
+            deltas.put(getString(payload), payload.getLong());
+        }
+
+        return new Entry(index, records, deltas);
+    }
+
+    private static String getString(ByteBuffer payload) {
+        byte[] bytes = new byte[payload.getShort()];
+        payload.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static class Entry {
+
+        final long segment;
+
+        final List<FinancialEntity> records;
+
+        final StringLongMap deltas;
+
+        Entry(long segment, List<FinancialEntity> records, StringLongMap deltas) {
+            this.segment = segment;
+            this.records = records;
+            this.deltas = deltas;
+        }
+    }
+}
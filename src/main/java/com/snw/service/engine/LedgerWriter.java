@@ -0,0 +1,27 @@
+package com.snw.service.engine;
+
+import com.snw.domain.FinancialEntity;
+import com.snw.util.StringLongMap;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Append-only write path of the {@link ShardedWalletEngine}: ledger records plus the wallet deltas they cause.
+ * Deltas (not absolute credits) are written, so the order in which appends reach the store does not matter.
+ */
+public interface LedgerWriter {
+
+    /**
+     * @return completes once the records and deltas are durable
+     */
+    CompletableFuture<Void> append(List<FinancialEntity> records, StringLongMap deltas);
+
+    /**
+     * @return completes once every append acknowledged so far is in the relational store, which may trail the
+     * acknowledgement (e.g. behind a journal)
+     */
+    default CompletableFuture<Void> applied() {
+        return CompletableFuture.completedFuture(null);
+    }
+}
@@ -0,0 +1,212 @@
+package com.snw.service.engine;
+
+import com.snw.config.WalletProperties;
+import com.snw.domain.FinancialEntity;
+import com.snw.domain.WalletEntity;
+import com.snw.exception.FinancialBoundaryException;
+import com.snw.repository.WalletRepository;
+import com.snw.service.BalanceRules;
+import com.snw.service.DeltaAggregator;
+import com.snw.util.StringLongMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory wallet engine for hot accounts. Users are hashed into shards, every shard is owned by one thread
+ * that keeps the balances (in cents) and applies the deltas and boundary checks without any lock.
+ * <p>
+ * A batch spanning several shards uses two phases: its users are reserved shard by shard, in ascending
+ * shard order so two batches never wait for each other in a cycle, then committed (or released) on every
+ * shard. Requests that touch a reserved user are parked by the shard until the reservation is resolved.
+ * Accepted batches are persisted through the {@link LedgerWriter}, the balances are only committed in memory
+ * and acknowledged once the append is durable. Wallets changed outside the engine must be
+ * {@linkplain #invalidateAfterCommit(Collection) invalidated}.
+ */
+@Slf4j
+@Component
+public class ShardedWalletEngine {
+
+    private final WalletRepository walletRepository;
+
+    private final LedgerWriter writer;
+
+    private final WalletProperties.Engine settings;
+
+    private WalletShard[] shards;
+
+    public ShardedWalletEngine(WalletRepository walletRepository,
+                               LedgerWriter writer,
+                               WalletProperties properties) {
+        this.walletRepository = walletRepository;
+        this.writer = writer;
+        this.settings = properties.getEngine();
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!settings.isEnabled()) {
+            return;
+        }
+
+        int count = settings.getShards() > 0 ? settings.getShards() : Runtime.getRuntime().availableProcessors();
+        shards = new WalletShard[count];
+        for (int index = 0; index < count; index++) {
+            shards[index] = new WalletShard(index, walletRepository, writer);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (shards != null) {
+            for (WalletShard shard : shards) {
+                shard.shutdown();
+            }
+        }
+    }
+
+    public boolean isEnabled() {
+        return settings.isEnabled();
+    }
+
+    /**
+     * @return completes once every credit acknowledged by the engine so far is in the relational store
+     */
+    public CompletableFuture<Void> applied() {
+        return settings.isEnabled() ? writer.applied() : CompletableFuture.completedFuture(null);
+    }
+
+    public CompletableFuture<List<WalletEntity>> submit(List<FinancialEntity> records) {
+        StringLongMap deltas;
+        try {
+            BalanceRules.checkForMoreThanThousand(records);
+            deltas = aggregate(records);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        // Sorted by shard index, the reservations below are taken in this order
+        TreeMap<Integer, StringLongMap> deltasByShard = new TreeMap<>();
+        deltas.forEach((user, cents) ->
+                deltasByShard.computeIfAbsent(shardOf(user), index -> new StringLongMap()).put(user, cents));
+
+        CompletableFuture<Void> reserved = deltasByShard.size() == 1 ?
+                reserveSingleShard(deltasByShard.firstEntry()) : reserveMultiShard(deltasByShard);
+
+        // The users stay reserved until the append is durable, so no batch is checked against a balance
+        // that may still roll back
+        return reserved.thenCompose(ignored -> writer.append(records, deltas)
+                .handle((done, failure) -> {
+                    if (failure != null) {
+                        // The store did not take the deltas, forget the cached balances and reload them
+                        log.error("Credit could not be persisted, evicting the cached balances", failure);
+                        deltasByShard.forEach((index, shardDeltas) -> shards[index].discard(shardDeltas));
+                        return CompletableFuture.<List<WalletEntity>>failedFuture(failure);
+                    }
+                    return commit(deltasByShard);
+                })
+                .thenCompose(future -> future));
+    }
+
+    /**
+     * Drops the cached balances of the users, for writers that change wallets without going through the engine.
+     * Registered after the commit of the current transaction if there is one, so the next load reads the new credit.
+     */
+    public void invalidateAfterCommit(Collection<String> users) {
+        if (!settings.isEnabled()) {
+            return;
+        }
+
+        // Copy, the caller may keep mutating its collection until the commit
+        List<String> invalidated = users.stream().filter(Objects::nonNull).collect(Collectors.toList());
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidate(invalidated);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                invalidate(invalidated);
+            }
+        });
+    }
+
+    private void invalidate(List<String> users) {
+        Map<Integer, List<String>> usersByShard = users.stream().collect(Collectors.groupingBy(this::shardOf));
+        usersByShard.forEach((index, shardUsers) -> shards[index].invalidate(shardUsers));
+    }
+
+    private CompletableFuture<Void> reserveSingleShard(Map.Entry<Integer, StringLongMap> entry) {
+        // No coordination needed, the owning thread reserves or rejects in one step
+        return shards[entry.getKey()].reserve(entry.getValue()).thenCompose(violations -> {
+            if (!violations.isEmpty()) {
+                shards[entry.getKey()].release(entry.getValue());
+                return CompletableFuture.failedFuture(new FinancialBoundaryException(violations));
+            }
+            return CompletableFuture.completedFuture(null);
+        });
+    }
+
+    private CompletableFuture<Void> reserveMultiShard(TreeMap<Integer, StringLongMap> deltasByShard) {
+        Map<String, List<String>> violations = new HashMap<>();
+        List<Integer> reserved = new ArrayList<>(deltasByShard.size());
+
+        // Reserve shard after shard, collecting the violations of every user
+        CompletableFuture<Void> reservation = CompletableFuture.completedFuture(null);
+        for (Map.Entry<Integer, StringLongMap> entry : deltasByShard.entrySet()) {
+            reservation = reservation.thenCompose(ignored -> shards[entry.getKey()].reserve(entry.getValue())
+                    .thenAccept(shardViolations -> {
+                        reserved.add(entry.getKey());
+                        violations.putAll(shardViolations);
+                    }));
+        }
+
+        // Keep every reservation, or release whatever has been reserved
+        return reservation.handle((ignored, failure) -> {
+            if (failure != null || !violations.isEmpty()) {
+                reserved.forEach(index -> shards[index].release(deltasByShard.get(index)));
+                return CompletableFuture.<Void>failedFuture(failure != null ?
+                        failure : new FinancialBoundaryException(violations));
+            }
+            return CompletableFuture.<Void>completedFuture(null);
+        }).thenCompose(future -> future);
+    }
+
+    private CompletableFuture<List<WalletEntity>> commit(Map<Integer, StringLongMap> deltasByShard) {
+        List<CompletableFuture<List<WalletEntity>>> commits = new ArrayList<>(deltasByShard.size());
+        deltasByShard.forEach((index, shardDeltas) -> commits.add(shards[index].commit(shardDeltas)));
+
+        return CompletableFuture.allOf(commits.toArray(new CompletableFuture[0])).thenApply(done -> {
+            List<WalletEntity> wallets = new ArrayList<>();
+            commits.forEach(commit -> wallets.addAll(commit.join()));
+            return wallets;
+        });
+    }
+
+    private StringLongMap aggregate(List<FinancialEntity> records) {
+        // Handed over to the writer, so never the pooled map
+        StringLongMap deltas = new StringLongMap();
+        DeltaAggregator.aggregateInto(records, deltas);
+        return deltas;
+    }
+
+    private int shardOf(String user) {
+        int hash = user.hashCode();
+        return ((hash ^ (hash >>> 16)) & Integer.MAX_VALUE) % shards.length;
+    }
+}
@@ -0,0 +1,192 @@
+package com.snw.service.engine;
+
+import com.snw.domain.WalletEntity;
+import com.snw.repository.WalletRepository;
+import com.snw.service.BalanceRules;
+import com.snw.util.Cents;
+import com.snw.util.StringLongMap;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * One shard of the {@link ShardedWalletEngine}. All its state is confined to its single thread,
+ * every public method only schedules work on that thread.
+ */
+class WalletShard {
+
+    // Marks a user that has been looked up but has no wallet yet
+    private static final long NO_WALLET = Cents.NONE;
+
+    private final WalletRepository walletRepository;
+
+    private final LedgerWriter writer;
+
+    private final ExecutorService thread;
+
+    private final StringLongMap balances = new StringLongMap(1024);
+
+    private final Set<String> reserved = new HashSet<>();
+
+    // Reserved users invalidated meanwhile, their balance is dropped once the reservation is resolved
+    private final Set<String> stale = new HashSet<>();
+
+    private final Queue<Runnable> parked = new ArrayDeque<>();
+
+    WalletShard(int index, WalletRepository walletRepository, LedgerWriter writer) {
+        this.walletRepository = walletRepository;
+        this.writer = writer;
+        this.thread = Executors.newSingleThreadExecutor(runnable -> {
+            Thread shardThread = new Thread(runnable, "wallet-shard-" + index);
+            shardThread.setDaemon(true);
+            return shardThread;
+        });
+    }
+
+    /**
+     * Checks the deltas against the current balances and reserves their users.
+     *
+     * @return the boundary violations per user, empty if the deltas can be committed
+     */
+    CompletableFuture<Map<String, List<String>>> reserve(StringLongMap deltas) {
+        CompletableFuture<Map<String, List<String>>> result = new CompletableFuture<>();
+        thread.execute(() -> reserveNow(deltas, result));
+        return result;
+    }
+
+    CompletableFuture<List<WalletEntity>> commit(StringLongMap deltas) {
+        CompletableFuture<List<WalletEntity>> result = new CompletableFuture<>();
+        thread.execute(() -> {
+            List<WalletEntity> wallets = new ArrayList<>(deltas.size());
+            deltas.forEach((user, cents) -> {
+                long actual = balances.get(user, NO_WALLET);
+                long credit = Cents.add(actual == NO_WALLET ? 0L : actual, cents);
+                reserved.remove(user);
+                if (stale.remove(user)) {
+                    balances.remove(user);
+                } else {
+                    balances.put(user, credit);
+                }
+                wallets.add(new WalletEntity(user, Cents.toAmount(credit)));
+            });
+            result.complete(wallets);
+            unpark();
+        });
+        return result;
+    }
+
+    void release(StringLongMap deltas) {
+        thread.execute(() -> {
+            deltas.forEach((user, cents) -> {
+                reserved.remove(user);
+                if (stale.remove(user)) {
+                    balances.remove(user);
+                }
+            });
+            unpark();
+        });
+    }
+
+    /**
+     * Releases the users and forgets their balances, the next reservation reloads them.
+     */
+    void discard(StringLongMap deltas) {
+        thread.execute(() -> {
+            deltas.forEach((user, cents) -> {
+                reserved.remove(user);
+                stale.remove(user);
+                balances.remove(user);
+            });
+            unpark();
+        });
+    }
+
+    void invalidate(Collection<String> users) {
+        thread.execute(() -> users.forEach(user -> {
+            if (reserved.contains(user)) {
+                stale.add(user);
+            } else {
+                balances.remove(user);
+            }
+        }));
+    }
+
+    void shutdown() {
+        thread.shutdown();
+    }
+
+    private void reserveNow(StringLongMap deltas, CompletableFuture<Map<String, List<String>>> result) {
+        boolean blocked = false;
+        List<String> missing = new ArrayList<>();
+
+        for (String user : usersOf(deltas)) {
+            blocked |= reserved.contains(user);
+            if (!balances.containsKey(user)) {
+                missing.add(user);
+            }
+        }
+
+        if (blocked) {
+            // Retried once the current reservations of these users are committed or released
+            parked.add(() -> reserveNow(deltas, result));
+            return;
+        }
+
+        try {
+            load(missing);
+        } catch (RuntimeException e) {
+            result.completeExceptionally(e);
+            return;
+        }
+
+        Map<String, List<String>> violations = new HashMap<>();
+        deltas.forEach((user, cents) -> {
+            long actual = balances.get(user, NO_WALLET);
+            List<String> userViolations = BalanceRules.violations(cents, actual);
+            if (!userViolations.isEmpty()) {
+                violations.put(user, userViolations);
+            }
+            reserved.add(user);
+        });
+
+        result.complete(violations.isEmpty() ? Collections.emptyMap() : violations);
+    }
+
+    private void load(List<String> users) {
+        if (users.isEmpty()) {
+            return;
+        }
+
+        // The store may trail the acknowledged appends, wait until it has them all. Users with an append in flight
+        // are reserved and parked before getting here, and no new append of these users starts while this thread waits.
+        writer.applied().join();
+
+        users.forEach(user -> balances.put(user, NO_WALLET));
+        walletRepository.findAllById(users).forEach(wallet ->
+                balances.put(wallet.getUser(), Cents.of(wallet.getCredit())));
+    }
+
+    private void unpark() {
+        int count = parked.size();
+        for (int index = 0; index < count; index++) {
+            parked.poll().run();
+        }
+    }
+
+    private static List<String> usersOf(StringLongMap deltas) {
+        List<String> users = new ArrayList<>(deltas.size());
+        deltas.forEach((user, cents) -> users.add(user));
+        return users;
+    }
+}
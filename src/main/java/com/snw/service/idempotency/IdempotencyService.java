@@ -0,0 +1,242 @@
+package com.snw.service.idempotency;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.snw.config.WalletProperties;
+import com.snw.domain.FinancialEntity;
+import com.snw.domain.IdempotencyKeyEntity;
+import com.snw.domain.WalletEntity;
+import com.snw.exception.IdempotencyKeyConflictException;
+import com.snw.exception.IdempotencyKeyInUseException;
+import com.snw.exception.IdempotencyKeyMismatchException;
+import com.snw.repository.IdempotencyKeyRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Applies a credit request at most once per {@code Idempotency-Key} and replays its response to the retries.
+ * <p>
+ * Keys are claimed in a concurrent in-memory index, evicted by age and size, so a replay or a concurrent duplicate
+ * is answered without a lock or a query. The key table covers the keys evicted from the index, a restart and the
+ * other instances: the key is stored in the transaction of the credit, a duplicate key fails the insert with an
+ * {@link IdempotencyKeyConflictException} and rolls the second credit back.
+ */
+@Slf4j
+@Service
+public class IdempotencyService {
+
+    private static final TypeReference<LinkedHashMap<String, BigDecimal>> RESPONSE_TYPE = new TypeReference<>() {
+    };
+
+    private final IdempotencyKeyRepository repository;
+
+    private final ObjectMapper objectMapper;
+
+    private final Duration retention;
+
+    private final Cache<String, Entry> index;
+
+    private final Counter memoryReplays;
+
+    private final Counter storeReplays;
+
+    public IdempotencyService(IdempotencyKeyRepository repository,
+                              ObjectMapper objectMapper,
+                              WalletProperties properties,
+                              MeterRegistry registry) {
+        WalletProperties.Idempotency settings = properties.getIdempotency();
+
+        this.repository = repository;
+        this.objectMapper = objectMapper;
+        this.retention = settings.getRetention();
+        this.index = Caffeine.newBuilder()
+                .maximumSize(settings.getMaximumSize())
+                .expireAfterWrite(settings.getRetention())
+                .build();
+
+        this.memoryReplays = Counter.builder("wallet.idempotency.replays").tag("source", "memory").register(registry);
+        this.storeReplays = Counter.builder("wallet.idempotency.replays").tag("source", "store").register(registry);
+    }
+
+    /**
+     * Runs {@code credit} unless the key has already been used, in which case the stored response is returned.
+     * {@code credit} is expected to call {@link #persist(Claim, List)} with its result, in its transaction.
+     *
+     * @throws IdempotencyKeyInUseException    if a request with the same key is still running
+     * @throws IdempotencyKeyMismatchException if the key has been used for other records
+     */
+    public List<WalletEntity> execute(String key,
+                                      List<FinancialEntity> records,
+                                      Function<Claim, List<WalletEntity>> credit) {
+        Claim claim = new Claim(key, fingerprint(records));
+        Entry entry = new Entry(claim.fingerprint);
+
+        Entry existing = index.asMap().putIfAbsent(key, entry);
+        if (existing != null) {
+            return replay(existing, claim);
+        }
+
+        try {
+            Optional<IdempotencyKeyEntity> stored = repository.findById(key);
+            List<WalletEntity> wallets;
+            if (stored.isPresent()) {
+                wallets = decode(stored.get(), claim);
+                storeReplays.increment();
+            } else {
+                wallets = credit.apply(claim);
+            }
+            entry.response.complete(copyOf(wallets));
+            return wallets;
+        } catch (IdempotencyKeyConflictException | DataIntegrityViolationException e) {
+            // Another instance stored the key first, its credit is the one applied
+            Optional<IdempotencyKeyEntity> stored = repository.findById(key);
+            if (stored.isEmpty()) {
+                release(entry, key, e);
+                throw e;
+            }
+            List<WalletEntity> wallets = decode(stored.get(), claim);
+            storeReplays.increment();
+            entry.response.complete(copyOf(wallets));
+            return wallets;
+        } catch (RuntimeException e) {
+            release(entry, key, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Stores the response of a claimed key, joins the transaction of the caller if there is one.
+     * The key is flushed right away, a key stored by another request fails here and not at commit.
+     *
+     * @throws IdempotencyKeyConflictException if the key is already stored
+     */
+    public void persist(Claim claim, List<WalletEntity> wallets) {
+        Map<String, BigDecimal> credits = new LinkedHashMap<>(wallets.size() * 2);
+        wallets.forEach(wallet -> credits.put(wallet.getUser(), wallet.getCredit()));
+
+        try {
+            repository.saveAndFlush(IdempotencyKeyEntity.builder()
+                    .key(claim.key)
+                    .fingerprint(claim.fingerprint)
+                    .response(objectMapper.writeValueAsString(credits))
+                    .createdAt(Instant.now())
+                    .build());
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        } catch (DataIntegrityViolationException e) {
+            throw new IdempotencyKeyConflictException(e);
+        }
+    }
+
+    @Transactional
+    @Scheduled(fixedDelayString = "${wallet.idempotency.purge-interval:PT1H}",
+            initialDelayString = "${wallet.idempotency.purge-interval:PT1H}")
+    public void purgeExpired() {
+        int purged = repository.deleteCreatedBefore(Instant.now().minus(retention));
+        log.debug("Purged {} expired idempotency keys", purged);
+    }
+
+    private List<WalletEntity> replay(Entry existing, Claim claim) {
+        if (!existing.fingerprint.equals(claim.fingerprint)) {
+            throw new IdempotencyKeyMismatchException();
+        }
+        // A failed request releases its key, the client may retry with it
+        if (!existing.response.isDone() || existing.response.isCompletedExceptionally()) {
+            throw new IdempotencyKeyInUseException();
+        }
+
+        memoryReplays.increment();
+        return copyOf(existing.response.join());
+    }
+
+    private void release(Entry entry, String key, RuntimeException e) {
+        index.asMap().remove(key, entry);
+        entry.response.completeExceptionally(e);
+    }
+
+    private List<WalletEntity> decode(IdempotencyKeyEntity stored, Claim claim) {
+        if (!stored.getFingerprint().equals(claim.fingerprint)) {
+            throw new IdempotencyKeyMismatchException();
+        }
+
+        try {
+            List<WalletEntity> wallets = new ArrayList<>();
+            objectMapper.readValue(stored.getResponse(), RESPONSE_TYPE)
+                    .forEach((user, credit) -> wallets.add(new WalletEntity(user, credit)));
+            return wallets;
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Detached copies, the cached response is shared by every replay
+    private static List<WalletEntity> copyOf(List<WalletEntity> wallets) {
+        List<WalletEntity> copies = new ArrayList<>(wallets.size());
+        wallets.forEach(wallet -> copies.add(new WalletEntity(wallet.getUser(), wallet.getCredit())));
+        return copies;
+    }
+
+    static String fingerprint(List<FinancialEntity> records) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (FinancialEntity record : records) {
+                digest.update((record.getUser() + '|' + record.getStatus() + '|' +
+                        (record.getAmount() == null ? null : record.getAmount().stripTrailingZeros().toPlainString()) +
+                        '\n').getBytes(StandardCharsets.UTF_8));
+            }
+            return Base64.getEncoder().encodeToString(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * A key claimed by the running request.
+     */
+    public static final class Claim {
+
+        private final String key;
+
+        private final String fingerprint;
+
+        private Claim(String key, String fingerprint) {
+            this.key = key;
+            this.fingerprint = fingerprint;
+        }
+    }
+
+    private static final class Entry {
+
+        private final String fingerprint;
+
+        private final CompletableFuture<List<WalletEntity>> response = new CompletableFuture<>();
+
+        private Entry(String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.snw.service.lock;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.snw.config.WalletProperties;
+import com.snw.domain.enumeration.LockOperation;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Who waits for the pessimistic row locks: the acquisitions in progress, and per endpoint and per user
+ * the acquisitions that were slow (at least the slow threshold) or failed. Hot users are kept in a bounded cache,
+ * a slow chunk counts for each of its users; only the wallet locks are keyed by user.
+ */
+@Component
+public class LockContention {
+
+    private static final int REPORTED_USERS = 20;
+
+    private static final int REPORTED_KEYS = 10;
+
+    private final long slowThresholdNanos;
+
+    private final MeterRegistry registry;
+
+    private final AtomicLong ids = new AtomicLong();
+
+    private final Map<Long, Wait> waiting = new ConcurrentHashMap<>();
+
+    private final Map<String, Stats> endpoints = new ConcurrentHashMap<>();
+
+    private final Map<LockOperation, Stats> operations = new EnumMap<>(LockOperation.class);
+
+    private final Cache<String, LongAdder> users;
+
+    public LockContention(WalletProperties properties, MeterRegistry registry) {
+        WalletProperties.Contention settings = properties.getLock().getContention();
+
+        this.slowThresholdNanos = settings.getSlowThreshold().toNanos();
+        this.registry = registry;
+        this.users = Caffeine.newBuilder().maximumSize(settings.getMaximumUsers()).build();
+        for (LockOperation operation : LockOperation.values()) {
+            operations.put(operation, new Stats());
+        }
+    }
+
+    public Wait begin(LockOperation operation, Collection<String> keys) {
+        Wait wait = new Wait(ids.incrementAndGet(), operation, endpoint(), keys);
+        waiting.put(wait.id, wait);
+        return wait;
+    }
+
+    public void end(Wait wait, boolean acquired) {
+        waiting.remove(wait.id);
+        long nanos = System.nanoTime() - wait.start;
+        boolean slow = nanos >= slowThresholdNanos;
+
+        Timer.builder("wallet.lock.acquire")
+                .description("Time spent acquiring pessimistic row locks")
+                .tag("operation", wait.operation.name())
+                .tag("outcome", acquired ? "acquired" : "failed")
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+
+        operations.get(wait.operation).record(nanos, slow, acquired);
+        endpoints.computeIfAbsent(wait.endpoint, endpoint -> new Stats()).record(nanos, slow, acquired);
+        if ((slow || !acquired) && wait.operation.isOnWallets()) {
+            wait.keys.forEach(key -> users.get(key, user -> new LongAdder()).increment());
+        }
+    }
+
+    /**
+     * @return the acquisitions in progress (longest waiting first), the statistics per operation and endpoint,
+     * and the most contended users
+     */
+    public Map<String, Object> report() {
+        long now = System.nanoTime();
+        Map<String, Object> report = new LinkedHashMap<>();
+
+        report.put("waiting", waiting.values().stream()
+                .sorted(Comparator.comparingLong(wait -> wait.start))
+                .map(wait -> wait.toMap(now))
+                .collect(Collectors.toList()));
+
+        Map<String, Object> byOperation = new LinkedHashMap<>();
+        operations.forEach((operation, stats) -> byOperation.put(operation.name(), stats.toMap()));
+        report.put("operations", byOperation);
+
+        Map<String, Object> byEndpoint = new LinkedHashMap<>();
+        endpoints.entrySet().stream()
+                .sorted(Map.Entry.<String, Stats>comparingByValue(
+                        Comparator.comparingLong(stats -> stats.contended.sum())).reversed())
+                .forEach(entry -> byEndpoint.put(entry.getKey(), entry.getValue().toMap()));
+        report.put("endpoints", byEndpoint);
+
+        Map<String, Long> hotUsers = new LinkedHashMap<>();
+        users.asMap().entrySet().stream()
+                .map(entry -> Map.entry(entry.getKey(), entry.getValue().sum()))
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .limit(REPORTED_USERS)
+                .forEach(entry -> hotUsers.put(entry.getKey(), entry.getValue()));
+        report.put("users", hotUsers);
+
+        return report;
+    }
+
+    // Handler pattern of the current request, so the users in the path do not split the endpoints
+    private static String endpoint() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (!(attributes instanceof ServletRequestAttributes)) {
+            return "thread " + Thread.currentThread().getName().replaceAll("-?\\d+$", "");
+        }
+
+        HttpServletRequest request = ((ServletRequestAttributes) attributes).getRequest();
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return request.getMethod() + " " + (pattern == null ? request.getRequestURI() : pattern);
+    }
+
+    /**
+     * An acquisition in progress.
+     */
+    public static final class Wait {
+
+        private final long id;
+
+        private final LockOperation operation;
+
+        private final String endpoint;
+
+        private final Collection<String> keys;
+
+        private final String thread = Thread.currentThread().getName();
+
+        private final long start = System.nanoTime();
+
+        private Wait(long id, LockOperation operation, String endpoint, Collection<String> keys) {
+            this.id = id;
+            this.operation = operation;
+            this.endpoint = endpoint;
+            this.keys = keys;
+        }
+
+        private Map<String, Object> toMap(long now) {
+            List<String> reported = new ArrayList<>(Math.min(keys.size(), REPORTED_KEYS));
+            for (String key : keys) {
+                if (reported.size() == REPORTED_KEYS) {
+                    break;
+                }
+                reported.add(key);
+            }
+
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("operation", operation.name());
+            map.put("endpoint", endpoint);
+            map.put("thread", thread);
+            map.put("keys", reported);
+            map.put("keyCount", keys.size());
+            map.put("waitingMillis", TimeUnit.NANOSECONDS.toMillis(now - start));
+            return map;
+        }
+    }
+
+    private static final class Stats {
+
+        private final LongAdder acquisitions = new LongAdder();
+
+        private final LongAdder contended = new LongAdder();
+
+        private final LongAdder failures = new LongAdder();
+
+        private final LongAdder waitNanos = new LongAdder();
+
+        private void record(long nanos, boolean slow, boolean acquired) {
+            acquisitions.increment();
+            waitNanos.add(nanos);
+            if (slow) {
+                contended.increment();
+            }
+            if (!acquired) {
+                failures.increment();
+            }
+        }
+
+        private Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("acquisitions", acquisitions.sum());
+            map.put("contended", contended.sum());
+            map.put("failures", failures.sum());
+            map.put("totalWaitMillis", TimeUnit.NANOSECONDS.toMillis(waitNanos.sum()));
+            return map;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.snw.service.lock;
+
+import com.snw.config.AppConstants;
+import com.snw.config.LockConflictExceptionOverride;
+import com.snw.config.WalletProperties;
+import com.snw.domain.CheckpointStateEntity;
+import com.snw.domain.FinancialEntity;
+import com.snw.domain.WalletEntity;
+import com.snw.domain.enumeration.LockOperation;
+import com.snw.domain.enumeration.LockWaitMode;
+import com.snw.repository.CheckpointStateRepository;
+import com.snw.repository.FinancialRepository;
+import com.snw.repository.WalletRepository;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Pessimistic row locks with the wait mode and timeout configured for each operation.
+ * <p>
+ * Wallets are locked in user order, in chunks of {@code wallet.lock.chunk-size} users, so overlapping batches
+ * wait for each other instead of deadlocking and a large batch does not send one huge IN list.
+ * H2 1.4 has no {@code NOWAIT}, {@code WAIT n} nor {@code SKIP LOCKED} clauses: the timeout is set on the session
+ * ({@code SET LOCK_TIMEOUT}, not transactional in H2) around the locking query and restored right after,
+ * {@code NOWAIT} is a 1 ms timeout and {@code SKIP_LOCKED} a {@code NOWAIT} whose failure skips the row.
+ */
+@Component
+public class PessimisticLocks {
+
+    private static final int NOWAIT_MILLIS = 1;
+
+    private static final String TRY_LOCK_STATE = "SELECT id FROM " + AppConstants.TABLE_PREFIX + "checkpoint_state " +
+            "WHERE id = ? FOR UPDATE";
+
+    private final WalletRepository walletRepository;
+
+    private final FinancialRepository financialRepository;
+
+    private final CheckpointStateRepository stateRepository;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final LockContention contention;
+
+    private final int chunkSize;
+
+    private final Map<LockOperation, WalletProperties.Timeout> timeouts = new EnumMap<>(LockOperation.class);
+
+    // Lock timeout of the pooled connections, restored after each operation with a timeout of its own
+    private volatile Integer connectionTimeout;
+
+    public PessimisticLocks(WalletRepository walletRepository,
+                            FinancialRepository financialRepository,
+                            CheckpointStateRepository stateRepository,
+                            JdbcTemplate jdbcTemplate,
+                            LockContention contention,
+                            WalletProperties properties) {
+        this.walletRepository = walletRepository;
+        this.financialRepository = financialRepository;
+        this.stateRepository = stateRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.contention = contention;
+        this.chunkSize = properties.getLock().getChunkSize();
+
+        for (LockOperation operation : LockOperation.values()) {
+            WalletProperties.Timeout timeout =
+                    properties.getLock().getTimeouts().getOrDefault(operation, new WalletProperties.Timeout());
+            if (timeout.getMode() == LockWaitMode.SKIP_LOCKED && !operation.isSkippable()) {
+                throw new IllegalStateException("The " + operation + " lock does not support SKIP_LOCKED");
+            }
+            timeouts.put(operation, timeout);
+        }
+    }
+
+    /**
+     * Locks the wallets of the users that have one, in user order.
+     */
+    public List<WalletEntity> lockWallets(LockOperation operation, Collection<String> users) {
+        List<String> sorted = new ArrayList<>(users);
+        Collections.sort(sorted);
+
+        return acquire(operation, sorted, () -> {
+            List<WalletEntity> wallets = new ArrayList<>(sorted.size());
+            for (int start = 0; start < sorted.size(); start += chunkSize) {
+                wallets.addAll(walletRepository.lockAllIn(sorted.subList(start, Math.min(start + chunkSize,
+                        sorted.size()))));
+            }
+            return wallets;
+        });
+    }
+
+    public FinancialEntity lockRecord(String id) {
+        return acquire(LockOperation.RECORD, Collections.singletonList(id), () -> financialRepository.lock(id));
+    }
+
+    /**
+     * @return the locked checkpoint state, empty if the operation skips a state locked by another transaction
+     */
+    public Optional<CheckpointStateEntity> lockCheckpointState(LockOperation operation) {
+        List<String> keys = Collections.singletonList(String.valueOf(CheckpointStateEntity.ID));
+
+        if (timeouts.get(operation).getMode() != LockWaitMode.SKIP_LOCKED) {
+            return acquire(operation, keys, () -> stateRepository.lock(CheckpointStateEntity.ID));
+        }
+
+        // Plain JDBC, a lock failure in Hibernate would mark the whole transaction for rollback
+        boolean locked = acquire(operation, keys, () -> {
+            try {
+                jdbcTemplate.queryForList(TRY_LOCK_STATE, Integer.class, CheckpointStateEntity.ID);
+                return true;
+            } catch (PessimisticLockingFailureException e) {
+                return false;
+            }
+        });
+        return locked ? stateRepository.findById(CheckpointStateEntity.ID) : Optional.empty();
+    }
+
+    private <T> T acquire(LockOperation operation, Collection<String> keys, Supplier<T> lock) {
+        LockContention.Wait wait = contention.begin(operation, keys);
+        boolean acquired = false;
+        try {
+            T result = withTimeout(timeouts.get(operation), lock);
+            acquired = !Boolean.FALSE.equals(result);
+            return result;
+        } finally {
+            contention.end(wait, acquired);
+        }
+    }
+
+    private <T> T withTimeout(WalletProperties.Timeout timeout, Supplier<T> lock) {
+        if (timeout.getMode() == LockWaitMode.WAIT && timeout.getTimeout() == null) {
+            return lock.get();
+        }
+        int millis = timeout.getMode() == LockWaitMode.WAIT ?
+                Math.max(NOWAIT_MILLIS, (int) timeout.getTimeout().toMillis()) : NOWAIT_MILLIS;
+
+        int previous = connectionTimeout();
+        jdbcTemplate.execute("SET LOCK_TIMEOUT " + millis);
+        try {
+            return LockConflictExceptionOverride.expectingLockConflicts(lock);
+        } finally {
+            jdbcTemplate.execute("SET LOCK_TIMEOUT " + previous);
+        }
+    }
+
+    private int connectionTimeout() {
+        Integer timeout = connectionTimeout;
+        if (timeout == null) {
+            timeout = jdbcTemplate.queryForObject("CALL LOCK_TIMEOUT()", Integer.class);
+            connectionTimeout = timeout;
+        }
+        return timeout;
+    }
+}
@@ -0,0 +1,163 @@
+package com.snw.service.lock;
+
+import com.snw.config.WalletProperties;
+import com.snw.exception.UserLockTimeoutException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * In-process per-user serialization in front of the database row locks.
+ * <p>
+ * Users are hashed into a fixed number of stripes, a batch takes the stripes of all its users in
+ * ascending stripe order, so two overlapping batches can never wait for each other in a cycle.
+ * Requests for the same hot user queue here (bounded by the max wait) instead of failing on the
+ * database lock timeout.
+ */
+@Component
+public class StripedUserLock {
+
+    private final boolean enabled;
+
+    private final Duration maxWait;
+
+    private final ReentrantLock[] stripes;
+
+    private final LongAdder acquisitions = new LongAdder();
+
+    private final LongAdder contentions = new LongAdder();
+
+    private final LongAdder timeouts = new LongAdder();
+
+    private final LongAdder waitNanos = new LongAdder();
+
+    private final Timer waitTimer;
+
+    public StripedUserLock(WalletProperties properties, MeterRegistry registry) {
+        WalletProperties.Striping striping = properties.getLock().getStriping();
+
+        this.enabled = striping.isEnabled();
+        this.maxWait = striping.getMaxWait();
+        this.stripes = new ReentrantLock[striping.getStripes()];
+        for (int index = 0; index < stripes.length; index++) {
+            stripes[index] = new ReentrantLock();
+        }
+
+        this.waitTimer = Timer.builder("wallet.lock.wait")
+                .description("Time spent waiting for the user stripes of a batch")
+                .tag("lock", "striped")
+                .publishPercentileHistogram()
+                .register(registry);
+        FunctionCounter.builder("wallet.lock.acquisitions", acquisitions, LongAdder::sum)
+                .tag("lock", "striped")
+                .register(registry);
+        FunctionCounter.builder("wallet.lock.contentions", contentions, LongAdder::sum)
+                .description("Acquisitions that had to wait for another batch")
+                .tag("lock", "striped")
+                .register(registry);
+        FunctionCounter.builder("wallet.lock.timeouts", timeouts, LongAdder::sum)
+                .tag("lock", "striped")
+                .register(registry);
+    }
+
+    public <T> T executeLocked(Collection<String> users, Supplier<T> action) {
+        if (!enabled) {
+            return action.get();
+        }
+
+        Deque<ReentrantLock> acquired = acquire(users);
+        try {
+            return action.get();
+        } finally {
+            while (!acquired.isEmpty()) {
+                acquired.pop().unlock();
+            }
+        }
+    }
+
+    private Deque<ReentrantLock> acquire(Collection<String> users) {
+        // Deterministic (ascending) order prevents deadlocks between overlapping batches
+        TreeSet<Integer> indexes = new TreeSet<>();
+        for (String user : users) {
+            indexes.add(stripeOf(user));
+        }
+
+        Deque<ReentrantLock> acquired = new ArrayDeque<>(indexes.size());
+        long start = System.nanoTime();
+        long deadline = start + maxWait.toNanos();
+        boolean contended = false;
+        boolean success = false;
+
+        try {
+            for (Integer index : indexes) {
+                ReentrantLock lock = stripes[index];
+
+                if (!lock.tryLock()) {
+                    contended = true;
+                    if (!lock.tryLock(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                        timeouts.increment();
+                        throw new UserLockTimeoutException();
+                    }
+                }
+                acquired.push(lock);
+            }
+            success = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UserLockTimeoutException(e);
+        } finally {
+            long waited = System.nanoTime() - start;
+            waitNanos.add(waited);
+            waitTimer.record(waited, TimeUnit.NANOSECONDS);
+            if (contended) {
+                contentions.increment();
+            }
+            if (!success) {
+                while (!acquired.isEmpty()) {
+                    acquired.pop().unlock();
+                }
+            }
+        }
+
+        acquisitions.increment();
+        return acquired;
+    }
+
+    private int stripeOf(String user) {
+        int hash = Objects.hashCode(user);
+        // Spread the higher bits, as HashMap does, before reducing to a stripe
+        return ((hash ^ (hash >>> 16)) & Integer.MAX_VALUE) % stripes.length;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long getAcquisitions() {
+        return acquisitions.sum();
+    }
+
+    public long getContentions() {
+        return contentions.sum();
+    }
+
+    public long getTimeouts() {
+        return timeouts.sum();
+    }
+
+    public Duration getWaitTime() {
+        return Duration.ofNanos(waitNanos.sum());
+    }
+}
@@ -0,0 +1,184 @@
+package com.snw.service.pipeline;
+
+import com.snw.config.WalletProperties;
+import com.snw.domain.FinancialEntity;
+import com.snw.domain.WalletEntity;
+import com.snw.exception.CreditPipelineSaturatedException;
+import com.snw.service.CreditOutcome;
+import com.snw.service.WalletService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Group commit for credit requests: a single writer thread drains the queued requests and applies
+ * up to {@code max-batch-size} of them, collected for at most {@code max-linger}, in one transaction.
+ * Each caller gets its own wallets or its own validation error through its future.
+ * <p>
+ * The group transaction always locks the wallets of the batch, {@code wallet.balance.concurrency=OPTIMISTIC} only
+ * applies to the direct path. Both can run side by side: the group writes bump the wallet versions, so an
+ * optimistic writer racing with a batch fails its version check and retries.
+ */
+@Slf4j
+@Component
+public class CreditPipeline {
+
+    private final WalletService walletService;
+
+    private final WalletProperties.Pipeline settings;
+
+    private final BlockingQueue<PendingCredit> queue;
+
+    private volatile boolean running;
+
+    private Thread writer;
+
+    public CreditPipeline(WalletService walletService, WalletProperties properties) {
+        this.walletService = walletService;
+        this.settings = properties.getPipeline();
+        this.queue = new ArrayBlockingQueue<>(settings.getQueueCapacity());
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!settings.isEnabled()) {
+            return;
+        }
+
+        running = true;
+        writer = new Thread(this::drain, "credit-pipeline");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (writer != null) {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        // Left by a writer that did not finish in time or was interrupted
+        failPending();
+    }
+
+    public boolean isEnabled() {
+        return settings.isEnabled();
+    }
+
+    public CompletableFuture<List<WalletEntity>> submit(List<FinancialEntity> records) {
+        PendingCredit pending = new PendingCredit(records);
+
+        if (!running || !queue.offer(pending)) {
+            pending.future.completeExceptionally(new CreditPipelineSaturatedException());
+            return pending.future;
+        }
+
+        // stop() may have run since the check and the writer may be gone, take the request back if still queued
+        if (!running && queue.remove(pending)) {
+            pending.future.completeExceptionally(stopped());
+        }
+
+        return pending.future;
+    }
+
+    private void failPending() {
+        PendingCredit pending;
+        while ((pending = queue.poll()) != null) {
+            pending.future.completeExceptionally(stopped());
+        }
+    }
+
+    private static CreditPipelineSaturatedException stopped() {
+        return new CreditPipelineSaturatedException("The credit pipeline is stopped, try again later");
+    }
+
+    private void drain() {
+        List<PendingCredit> batch = new ArrayList<>(settings.getMaxBatchSize());
+
+        // Keep draining after stop() until the queue is empty, so no caller is left waiting
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingCredit first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+
+                batch.add(first);
+                long deadline = System.nanoTime() + settings.getMaxLinger().toNanos();
+                while (batch.size() < settings.getMaxBatchSize()) {
+                    PendingCredit next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                commit(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                batch.forEach(pending -> pending.future.completeExceptionally(stopped()));
+                failPending();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Credit pipeline failed to process a batch", e);
+                batch.forEach(pending -> pending.future.completeExceptionally(e));
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void commit(List<PendingCredit> batch) {
+        List<List<FinancialEntity>> requests = new ArrayList<>(batch.size());
+        batch.forEach(pending -> requests.add(pending.records));
+
+        List<CreditOutcome> outcomes;
+        try {
+            outcomes = walletService.updateCreditGroup(requests);
+        } catch (RuntimeException e) {
+            // The group transaction failed as a whole (e.g. lock timeout), isolate it request by request
+            log.warn("Group commit of {} credit requests failed, applying them one by one", batch.size(), e);
+            batch.forEach(this::commitAlone);
+            return;
+        }
+
+        // Completed only after the commit, callers never see uncommitted balances
+        for (int index = 0; index < batch.size(); index++) {
+            CreditOutcome outcome = outcomes.get(index);
+            if (outcome.isAccepted()) {
+                batch.get(index).future.complete(outcome.getWallets());
+            } else {
+                batch.get(index).future.completeExceptionally(outcome.getException());
+            }
+        }
+    }
+
+    private void commitAlone(PendingCredit pending) {
+        // Generated by the rolled back group transaction
+        pending.records.forEach(FinancialEntity::resetForRetry);
+        try {
+            pending.future.complete(walletService.updateCredit(pending.records));
+        } catch (RuntimeException e) {
+            pending.future.completeExceptionally(e);
+        }
+    }
+
+    private static class PendingCredit {
+
+        private final List<FinancialEntity> records;
+
+        private final CompletableFuture<List<WalletEntity>> future = new CompletableFuture<>();
+
+        private PendingCredit(List<FinancialEntity> records) {
+            this.records = records;
+        }
+    }
+}
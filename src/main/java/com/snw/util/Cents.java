@@ -0,0 +1,57 @@
+package com.snw.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Money as a {@code long} number of minor units (scale 2, the scale of every amount column).
+ * <p>
+ * Aggregation and validation work on plain {@code long}s, no object per operation; amounts are converted
+ * once when they come in ({@link #of(BigDecimal)}, {@link #round(BigDecimal)} for input records) and once
+ * when they go out ({@link #toAmount(long)}).
+ */
+public final class Cents {
+
+    public static final int SCALE = 2;
+
+    // Stands for "no balance", e.g. a user without a wallet; not a valid amount (out of the column range)
+    public static final long NONE = Long.MIN_VALUE;
+
+    private Cents() {
+    }
+
+    /**
+     * @throws IllegalArgumentException if the amount has more than 2 decimal places or does not fit in a long
+     */
+    public static long of(BigDecimal amount) {
+        BigDecimal cents = amount.movePointRight(SCALE);
+        if (cents.stripTrailingZeros().scale() > 0) {
+            throw new IllegalArgumentException("Record amount cannot have more than 2 decimal places");
+        }
+        try {
+            return cents.longValueExact();
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Record amount is out of range");
+        }
+    }
+
+    /**
+     * Rounds the amount half up to the column scale first, as the database does when the record is stored.
+     *
+     * @throws IllegalArgumentException if the amount does not fit in a long
+     */
+    public static long round(BigDecimal amount) {
+        return of(amount.setScale(SCALE, RoundingMode.HALF_UP));
+    }
+
+    public static BigDecimal toAmount(long cents) {
+        return BigDecimal.valueOf(cents, SCALE);
+    }
+
+    /**
+     * @throws ArithmeticException on overflow
+     */
+    public static long add(long cents, long other) {
+        return Math.addExact(cents, other);
+    }
+}
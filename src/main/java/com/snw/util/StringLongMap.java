@@ -0,0 +1,186 @@
+package com.snw.util;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Open addressing (linear probing) map from non-null {@code String} keys to primitive {@code long} values.
+ * Avoids the entry objects and {@code Long} boxing of a {@code HashMap<String, Long>}; not thread safe.
+ */
+public final class StringLongMap {
+
+    private static final int MIN_CAPACITY = 8;
+
+    private String[] keys;
+
+    private long[] values;
+
+    private int mask;
+
+    private int shift;
+
+    private int size;
+
+    private int resizeAt;
+
+    public StringLongMap() {
+        this(MIN_CAPACITY);
+    }
+
+    public StringLongMap(int expectedSize) {
+        allocate(capacityFor(expectedSize));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean containsKey(String key) {
+        return keys[indexOf(key)] != null;
+    }
+
+    public long get(String key, long defaultValue) {
+        int index = indexOf(key);
+        return keys[index] == null ? defaultValue : values[index];
+    }
+
+    public void put(String key, long value) {
+        int index = indexOf(key);
+        if (keys[index] == null) {
+            insert(index, key, value);
+        } else {
+            values[index] = value;
+        }
+    }
+
+    /**
+     * Adds {@code delta} to the value of {@code key}, starting from 0 when the key is absent.
+     *
+     * @return the new value
+     * @throws ArithmeticException if the value overflows a {@code long}
+     */
+    public long addTo(String key, long delta) {
+        int index = indexOf(key);
+        if (keys[index] == null) {
+            insert(index, key, delta);
+            return delta;
+        }
+        values[index] = Math.addExact(values[index], delta);
+        return values[index];
+    }
+
+    public boolean remove(String key) {
+        int index = indexOf(key);
+        if (keys[index] == null) {
+            return false;
+        }
+
+        // Backward shift deletion keeps every probe sequence free of holes, no tombstones needed
+        int hole = index;
+        int next = (hole + 1) & mask;
+        while (keys[next] != null) {
+            int home = slot(keys[next]);
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                values[hole] = values[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[hole] = null;
+        values[hole] = 0L;
+        size--;
+        return true;
+    }
+
+    /**
+     * Removes all entries but keeps the table, so the instance can be reused without reallocating.
+     */
+    public void clear() {
+        if (size > 0) {
+            Arrays.fill(keys, null);
+            size = 0;
+        }
+    }
+
+    public void forEach(EntryConsumer consumer) {
+        for (int index = 0; index < keys.length; index++) {
+            if (keys[index] != null) {
+                consumer.accept(keys[index], values[index]);
+            }
+        }
+    }
+
+    /**
+     * Adds all the values of {@code other} to this map.
+     */
+    public void addAll(StringLongMap other) {
+        other.forEach(this::addTo);
+    }
+
+    private int indexOf(String key) {
+        Objects.requireNonNull(key, "key");
+
+        int index = slot(key);
+        while (keys[index] != null && !keys[index].equals(key)) {
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+
+    private int slot(String key) {
+        // Fibonacci hashing, the top bits of the product mix all the bits of String.hashCode
+        return (key.hashCode() * 0x9E3779B9) >>> shift;
+    }
+
+    private void insert(int index, String key, long value) {
+        keys[index] = key;
+        values[index] = value;
+        if (++size > resizeAt) {
+            rehash();
+        }
+    }
+
+    private void rehash() {
+        String[] oldKeys = keys;
+        long[] oldValues = values;
+
+        allocate(keys.length << 1);
+        size = 0;
+        for (int index = 0; index < oldKeys.length; index++) {
+            if (oldKeys[index] != null) {
+                int target = indexOf(oldKeys[index]);
+                keys[target] = oldKeys[index];
+                values[target] = oldValues[index];
+                size++;
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new String[capacity];
+        values = new long[capacity];
+        mask = capacity - 1;
+        shift = Integer.numberOfLeadingZeros(mask);
+        // Load factor 0.5, probe sequences stay short with linear probing
+        resizeAt = capacity >> 1;
+    }
+
+    private static int capacityFor(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity >> 1 < expectedSize) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    @FunctionalInterface
+    public interface EntryConsumer {
+
+        void accept(String key, long value);
+    }
+}
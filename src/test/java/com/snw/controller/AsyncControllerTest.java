@@ -0,0 +1,133 @@
+package com.snw.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.snw.WalletApplication;
+import com.snw.controller.dto.FinancialDto;
+import com.snw.domain.enumeration.AccountingStatus;
+import com.snw.repository.FinancialRepository;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+
+@AutoConfigureMockMvc
+@SpringBootTest(classes = WalletApplication.class, properties = {
+        "spring.datasource.url=jdbc:h2:mem:async;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE"
+})
+class AsyncControllerTest {
+
+    private final static ObjectMapper mapper = new ObjectMapper();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private FinancialRepository financialRepository;
+
+    private static FinancialDto getRecord(AccountingStatus status, String user, String amount) {
+        return FinancialDto.builder().status(status).user(user).amount(new BigDecimal(amount)).build();
+    }
+
+    @SneakyThrows
+    private ResultActions performAsync(RequestBuilder request) {
+        MvcResult started = mockMvc.perform(request)
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+
+        return mockMvc.perform(asyncDispatch(started));
+    }
+
+    @Test
+    @SneakyThrows
+    @DisplayName("Async Credit And Balance")
+    void TestAddCreditAsync_WhenRecordsAreValid_BalanceIsReadAsync() {
+        // Arrange
+        List<FinancialDto> records = List.of(getRecord(AccountingStatus.CREDITOR, "async1", "100.00"),
+                getRecord(AccountingStatus.DEBTOR, "async1", "25.50"));
+
+        // Act
+        performAsync(MockMvcRequestBuilders.post("/api/v1/wallet/async")
+                .contentType(MediaType.APPLICATION_JSON).content(mapper.writeValueAsString(records)))
+                .andExpect(MockMvcResultMatchers.status().isCreated())
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].credit").value(74.5));
+
+        // Assert
+        performAsync(MockMvcRequestBuilders.get("/api/v1/wallet/async/async1"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.content().string("74.50"));
+    }
+
+    @Test
+    @SneakyThrows
+    @DisplayName("Async Credit Violating A Boundary")
+    void TestAddCreditAsync_WhenBalanceGoesNegative_ShouldReturnViolations() {
+        // Arrange
+        List<FinancialDto> records = List.of(getRecord(AccountingStatus.DEBTOR, "async2", "1.00"));
+
+        // Act & Assert
+        performAsync(MockMvcRequestBuilders.post("/api/v1/wallet/async")
+                .contentType(MediaType.APPLICATION_JSON).content(mapper.writeValueAsString(records)))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.async2").exists());
+    }
+
+    @Test
+    @SneakyThrows
+    @DisplayName("Async Create And Fetch Record")
+    void TestCreateAsync_WhenRecordIsCreated_ShouldBeFetchedAsync() {
+        // Arrange
+        FinancialDto record = getRecord(AccountingStatus.CREDITOR, "async3", "12.50");
+
+        // Act
+        performAsync(MockMvcRequestBuilders.post("/api/v1/financial/async")
+                .contentType(MediaType.APPLICATION_JSON).content(mapper.writeValueAsString(record)))
+                .andExpect(MockMvcResultMatchers.status().isCreated());
+        String id = financialRepository.findByUser("async3").get(0).getId();
+
+        // Assert
+        performAsync(MockMvcRequestBuilders.get("/api/v1/financial/async/" + id))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.user").value("async3"));
+        performAsync(MockMvcRequestBuilders.get("/api/v1/financial/async/user/async3"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.length()").value(1));
+        performAsync(MockMvcRequestBuilders.get("/api/v1/financial/async/missing"))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.message").value("Financial entity not found"));
+    }
+
+    @Test
+    @SneakyThrows
+    @DisplayName("Async Credit Retried With The Same Key")
+    void TestAddCreditAsync_WhenRetriedWithSameKey_ShouldApplyOnceAndReplay() {
+        // Arrange
+        List<FinancialDto> records = List.of(getRecord(AccountingStatus.CREDITOR, "async4", "10.00"));
+
+        // Act
+        for (int attempt = 0; attempt < 2; attempt++) {
+            performAsync(MockMvcRequestBuilders.post("/api/v1/wallet/async")
+                    .header("Idempotency-Key", "async-key-4")
+                    .contentType(MediaType.APPLICATION_JSON).content(mapper.writeValueAsString(records)))
+                    .andExpect(MockMvcResultMatchers.status().isCreated())
+                    .andExpect(MockMvcResultMatchers.jsonPath("$[0].credit").value(10.0));
+        }
+
+        // Assert
+        assertEquals(1, financialRepository.findByUser("async4").size());
+    }
+}
@@ -120,7 +120,8 @@ class FinancialControllerTest {
                                 null,
                                 (AccountingStatus) item.get()[0],
                                 (String) item.get()[1],
-                                (BigDecimal) item.get()[2]))
+                                (BigDecimal) item.get()[2],
+                                null))
                         .collect(Collectors.toList());
 
         // Act and Assert
@@ -0,0 +1,211 @@
+package com.snw.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.snw.WalletApplication;
+import com.snw.controller.model.FinancialModel;
+import com.snw.domain.FinancialEntity;
+import com.snw.domain.enumeration.AccountingStatus;
+import com.snw.repository.FinancialRepository;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+
+@AutoConfigureMockMvc
+@SpringBootTest(classes = WalletApplication.class, properties = {
+        "spring.datasource.url=jdbc:h2:mem:listing;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE"
+})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class FinancialListingTest {
+
+    private final static ObjectMapper mapper = new ObjectMapper();
+
+    @Autowired
+    private FinancialRepository repository;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private final Instant start = Instant.parse("2024-01-01T00:00:00Z");
+
+    private List<String> ids;
+
+    private List<String> historyIds;
+
+    private List<String> rangeIds;
+
+    @BeforeAll
+    void createRecords() {
+        List<FinancialEntity> entities = IntStream.range(0, 5)
+                .mapToObj(index -> FinancialEntity.builder().status(AccountingStatus.CREDITOR)
+                        .user("user" + index).amount(new BigDecimal(index + 1).setScale(2)).build())
+                .collect(Collectors.toList());
+        List<FinancialEntity> history = IntStream.range(0, 5)
+                .mapToObj(index -> FinancialEntity.builder().status(AccountingStatus.CREDITOR).user("history")
+                        .amount(BigDecimal.TEN.setScale(2)).createdAt(start.plus(Duration.ofDays(index))).build())
+                .collect(Collectors.toList());
+
+        // Ids increase while the creation times go back, with ties on the creation time
+        List<FinancialEntity> range = IntStream.of(3, 3, 2, 1, 1)
+                .mapToObj(day -> FinancialEntity.builder().status(AccountingStatus.CREDITOR).user("range")
+                        .amount(BigDecimal.ONE.setScale(2)).createdAt(start.plus(Duration.ofDays(day))).build())
+                .collect(Collectors.toList());
+
+        historyIds = ids(repository.saveAll(history));
+        List<FinancialEntity> savedRange = new ArrayList<>();
+        range.forEach(record -> savedRange.add(repository.save(record)));
+        rangeIds = savedRange.stream()
+                .sorted(Comparator.comparing(FinancialEntity::getCreatedAt).thenComparing(FinancialEntity::getId))
+                .map(FinancialEntity::getId)
+                .collect(Collectors.toList());
+        ids = ids(repository.saveAll(entities));
+        ids.addAll(historyIds);
+        ids.addAll(rangeIds);
+        ids.sort(null);
+    }
+
+    @Test
+    @SneakyThrows
+    @DisplayName("Keyset Pages")
+    void TestFindAllAfter_WhenPagingWithLastId_AllRecordsAreReturnedOnce() {
+        // Arrange
+        List<String> actualIds = new ArrayList<>();
+        String after = null;
+
+        // Act
+        for (int page = 0; page < 8; page++) {
+            MockHttpServletRequestBuilder request = MockMvcRequestBuilders.get("/api/v1/financial").param("limit", "2");
+            if (after != null) {
+                request.param("after", after);
+            }
+            MvcResult result = mockMvc.perform(request)
+                    .andExpect(MockMvcResultMatchers.status().isOk())
+                    .andReturn();
+            List<FinancialModel> models = mapper.readValue(result.getResponse().getContentAsString(),
+                    new TypeReference<List<FinancialModel>>() {});
+            models.forEach(model -> actualIds.add(model.getId()));
+            after = models.isEmpty() ? after : models.get(models.size() - 1).getId();
+        }
+
+        // Assert
+        assertEquals(ids, actualIds);
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/financial").param("limit", "0"))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+    }
+
+    @Test
+    @SneakyThrows
+    @DisplayName("User History Pages")
+    void TestGetByUserId_WhenPagingOrFilteringByTime_OnlyTheRequestedRecordsAreReturned() {
+        // Act
+        List<FinancialModel> firstPage = getHistory(MockMvcRequestBuilders.get("/api/v1/financial/user/history")
+                .param("limit", "2"));
+        List<FinancialModel> secondPage = getHistory(MockMvcRequestBuilders.get("/api/v1/financial/user/history")
+                .param("limit", "2").param("after", firstPage.get(1).getId()));
+        List<FinancialModel> thirdPage = getHistory(MockMvcRequestBuilders.get("/api/v1/financial/user/history")
+                .param("limit", "2").param("page", "2"));
+        List<FinancialModel> range = getHistory(MockMvcRequestBuilders.get("/api/v1/financial/user/history")
+                .param("from", start.plus(Duration.ofDays(1)).toString())
+                .param("to", start.plus(Duration.ofDays(3)).toString()));
+
+        // Assert
+        assertEquals(historyIds.subList(0, 2), modelIds(firstPage));
+        assertEquals(historyIds.subList(2, 4), modelIds(secondPage));
+        assertEquals(historyIds.subList(4, 5), modelIds(thirdPage));
+        assertThat(range).hasSize(2);
+        assertThat(getHistory(MockMvcRequestBuilders.get("/api/v1/financial/user/history"))).hasSize(5);
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/financial/user/history")
+                        .param("page", "1").param("after", historyIds.get(0)))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+    }
+
+    @Test
+    @SneakyThrows
+    @DisplayName("Time Range Keyset Pages")
+    void TestGetByUserId_WhenPagingATimeRangeWithLastId_RecordsComeOnceByCreationTimeThenId() {
+        // Arrange
+        List<String> actualIds = new ArrayList<>();
+        String after = null;
+
+        // Act
+        for (int page = 0; page < 4; page++) {
+            MockHttpServletRequestBuilder request = MockMvcRequestBuilders.get("/api/v1/financial/user/range")
+                    .param("limit", "2")
+                    .param("from", start.toString())
+                    .param("to", start.plus(Duration.ofDays(10)).toString());
+            if (after != null) {
+                request.param("after", after);
+            }
+            List<FinancialModel> models = getHistory(request);
+            actualIds.addAll(modelIds(models));
+            after = models.isEmpty() ? after : models.get(models.size() - 1).getId();
+        }
+
+        // Assert
+        assertEquals(rangeIds, actualIds);
+        assertEquals(rangeIds.subList(2, 5), modelIds(getHistory(MockMvcRequestBuilders
+                .get("/api/v1/financial/user/range")
+                .param("from", start.plus(Duration.ofDays(2)).toString())
+                .param("after", rangeIds.get(0)))));
+    }
+
+    @SneakyThrows
+    private List<FinancialModel> getHistory(MockHttpServletRequestBuilder request) {
+        MvcResult result = mockMvc.perform(request)
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andReturn();
+        return mapper.readValue(result.getResponse().getContentAsString(), new TypeReference<List<FinancialModel>>() {});
+    }
+
+    private static List<String> ids(List<FinancialEntity> entities) {
+        return entities.stream().map(FinancialEntity::getId).sorted().collect(Collectors.toList());
+    }
+
+    private static List<String> modelIds(List<FinancialModel> models) {
+        return models.stream().map(FinancialModel::getId).collect(Collectors.toList());
+    }
+
+    @Test
+    @SneakyThrows
+    @DisplayName("Streamed Records")
+    void TestStreamAll_WhenCalled_OneJsonDocumentPerLine() {
+        // Act
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/financial/stream"))
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(result))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+
+        // Assert
+        String[] lines = result.getResponse().getContentAsString().split("\n");
+        assertThat(lines).hasSize(ids.size());
+        List<String> actualIds = new ArrayList<>();
+        for (String line : lines) {
+            actualIds.add(mapper.readValue(line, FinancialModel.class).getId());
+        }
+        assertEquals(ids, actualIds);
+        assertThat(result.getResponse().getContentType()).startsWith("application/x-ndjson");
+    }
+}
@@ -0,0 +1,64 @@
+package com.snw.controller;
+
+import com.snw.WalletApplication;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+
+@AutoConfigureMockMvc
+@EnabledIf("com.snw.config.VirtualThreads#isSupported")
+@SpringBootTest(classes = WalletApplication.class, properties = {
+        "spring.datasource.url=jdbc:h2:mem:virtual;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "wallet.threads.mode=VIRTUAL"
+})
+class VirtualThreadTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    @Qualifier(APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    private AsyncTaskExecutor executor;
+
+    @Test
+    @SneakyThrows
+    @DisplayName("Async Calls Run On Virtual Threads")
+    void TestApplicationTaskExecutor_WhenModeIsVirtual_TasksRunOnVirtualThreads() {
+        // Act
+        boolean virtual = executor.submit(() -> (Boolean) Thread.class.getMethod("isVirtual")
+                .invoke(Thread.currentThread())).get(5, TimeUnit.SECONDS);
+
+        // Assert
+        assertTrue(virtual);
+    }
+
+    @Test
+    @SneakyThrows
+    @DisplayName("Async Endpoint In Virtual Mode")
+    void TestGetBalanceAsync_WhenModeIsVirtual_ShouldAnswer() {
+        // Act
+        MvcResult started = mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/wallet/async/nobody"))
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+
+        // Assert
+        mockMvc.perform(asyncDispatch(started))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+    }
+}
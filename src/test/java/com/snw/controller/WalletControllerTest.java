@@ -288,4 +288,32 @@ class WalletControllerTest {
         assertEquals("665.00", result.getResponse().getContentAsString());
         assertEquals("1000.00", result2.getResponse().getContentAsString());
     }
-}
\ No newline at end of file
+
+    @Test
+    @Order(9)
+    @SneakyThrows
+    @DisplayName("Amounts Are Rounded To Two Decimals")
+    void TestAddingCreditToWallet_WhenAmountHasMoreThanTwoDecimals_ShouldRoundItAsStored() {
+        // Arrange
+        List<FinancialDto> financialDtos = List.of(
+                FinancialDto.builder().status(AccountingStatus.CREDITOR).user("user3")
+                        .amount(new BigDecimal("10.005")).build(),
+                FinancialDto.builder().status(AccountingStatus.CREDITOR).user("user3")
+                        .amount(new BigDecimal("0.004")).build());
+
+        // Act
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/wallet")
+                        .content(mapper.writeValueAsBytes(financialDtos))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(MockMvcResultMatchers.status().isCreated());
+
+        // Assert (the wallet and the ledger sum agree on the rounded amounts)
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders
+                        .get("/api/v1/wallet/{user}", "user3"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andReturn();
+
+        assertEquals(new BigDecimal("10.01"), repository.findById("user3").get().getCredit());
+        assertEquals("10.01", result.getResponse().getContentAsString());
+    }
+}
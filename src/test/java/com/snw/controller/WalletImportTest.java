@@ -0,0 +1,110 @@
+package com.snw.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.snw.WalletApplication;
+import com.snw.controller.model.ImportModel;
+import com.snw.domain.FinancialEntity;
+import com.snw.domain.WalletEntity;
+import com.snw.domain.enumeration.AccountingStatus;
+import com.snw.repository.FinancialRepository;
+import com.snw.repository.WalletRepository;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@AutoConfigureMockMvc
+@SpringBootTest(classes = WalletApplication.class, properties = {
+        "spring.datasource.url=jdbc:h2:mem:import;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "wallet.bulk-import.chunk-size=2"
+})
+class WalletImportTest {
+
+    private final static ObjectMapper mapper = new ObjectMapper();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private WalletRepository walletRepository;
+
+    @Autowired
+    private FinancialRepository financialRepository;
+
+    private static String line(String status, String user, String amount) {
+        return "{\"status\":\"" + status + "\",\"user\":\"" + user + "\",\"amount\":" + amount + "}\n";
+    }
+
+    @Test
+    @SneakyThrows
+    @DisplayName("Import Records")
+    void TestImport_WhenRecordsAreValid_DeltasAreAppliedPerUser() {
+        // Arrange
+        String body = line("CREDITOR", "importer1", "100.00") + line("CREDITOR", "importer2", "50.50")
+                + line("DEBTOR", "importer1", "25.25") + line("CREDITOR", "importer1", "10");
+
+        // Act
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/wallet/import")
+                        .contentType("application/x-ndjson").content(body))
+                .andExpect(MockMvcResultMatchers.status().isCreated())
+                .andReturn();
+
+        // Assert
+        assertEquals(new ImportModel(4, 2),
+                mapper.readValue(result.getResponse().getContentAsString(), ImportModel.class));
+        assertEquals(new BigDecimal("84.75"), walletRepository.findById("importer1").get().getCredit());
+        assertEquals(new BigDecimal("50.50"), walletRepository.findById("importer2").get().getCredit());
+        assertEquals(3, financialRepository.findByUser("importer1").size());
+    }
+
+    @Test
+    @SneakyThrows
+    @DisplayName("Rejected Import Is Rolled Back")
+    void TestImport_WhenOneUserViolatesBoundary_NothingIsImported() {
+        // Arrange
+        String body = line("CREDITOR", "rollback1", "100.00") + line("CREDITOR", "rollback1", "100.00")
+                + line("DEBTOR", "rollback2", "1.00");
+
+        // Act
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/wallet/import")
+                        .contentType("application/x-ndjson").content(body))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.rollback2").exists());
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/wallet/import")
+                        .contentType("application/x-ndjson").content(line("CREDITOR", "rollback3", "1") + "{oops"))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+
+        // Assert
+        assertTrue(financialRepository.findByUser("rollback1").isEmpty());
+        assertTrue(financialRepository.findByUser("rollback3").isEmpty());
+        assertFalse(walletRepository.findById("rollback1").isPresent());
+    }
+
+    @Test
+    @SneakyThrows
+    @DisplayName("Import Resets A Stale Credit From The Ledger")
+    void TestImport_WhenStoredCreditIsStale_CreditIsLedgerBalancePlusImport() {
+        // Arrange
+        financialRepository.save(FinancialEntity.builder().status(AccountingStatus.CREDITOR).user("stale1")
+                .amount(new BigDecimal("100.00")).build());
+        walletRepository.save(new WalletEntity("stale1", new BigDecimal("500.00")));
+
+        // Act
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/wallet/import")
+                        .contentType("application/x-ndjson").content(line("CREDITOR", "stale1", "50.00")))
+                .andExpect(MockMvcResultMatchers.status().isCreated());
+
+        // Assert
+        assertEquals(new BigDecimal("150.00"), walletRepository.findById("stale1").get().getCredit());
+    }
+}
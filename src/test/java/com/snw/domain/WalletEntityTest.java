@@ -0,0 +1,38 @@
+package com.snw.domain;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WalletEntityTest {
+
+    @Test
+    @DisplayName("Built Wallets Are New")
+    void TestIsNew_WhenBuiltInMemory_ShouldBePersistedWithoutMerge() {
+        // Act
+        WalletEntity constructed = new WalletEntity("user1", BigDecimal.ONE);
+        WalletEntity empty = new WalletEntity();
+        WalletEntity built = WalletEntity.builder().user("user1").build();
+
+        // Assert
+        assertTrue(constructed.isNew());
+        assertTrue(empty.isNew());
+        assertTrue(built.isNew());
+    }
+
+    @Test
+    @DisplayName("Loaded Or Persisted Wallets Are Not New")
+    void TestIsNew_WhenLoadedOrPersisted_ShouldBeMerged() {
+        // Arrange
+        WalletEntity wallet = new WalletEntity("user1", BigDecimal.ONE);
+
+        // Act
+        wallet.markNotNew();
+
+        // Assert
+        assertFalse(wallet.isNew());
+    }
+}
@@ -0,0 +1,95 @@
+package com.snw.domain.id;
+
+import com.snw.domain.enumeration.LedgerIdStrategy;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LedgerIdGeneratorTest {
+
+    private static final String TIME_ORDERED_FORMAT =
+            "[0-9a-f]{8}-[0-9a-f]{4}-7[0-9a-f]{3}-[89ab][0-9a-f]{3}-[0-9a-f]{12}";
+
+    private static long counter(UUID id) {
+        return id.getMostSignificantBits() & 0xFFFL;
+    }
+
+    private static long millis(UUID id) {
+        return id.getMostSignificantBits() >>> 16;
+    }
+
+    @Test
+    @DisplayName("Time Ordered Id Format")
+    void TestGenerate_WhenDefaultStrategy_ShouldReturnVersion7Uuid() {
+        // Arrange
+        long before = System.currentTimeMillis();
+
+        // Act
+        String id = (String) new LedgerIdGenerator().generate(null, null);
+
+        // Assert
+        assertEquals(36, id.length());
+        assertTrue(id.matches(TIME_ORDERED_FORMAT), id);
+        UUID uuid = UUID.fromString(id);
+        assertEquals(7, uuid.version());
+        assertEquals(2, uuid.variant());
+        assertTrue(millis(uuid) >= before);
+    }
+
+    @Test
+    @DisplayName("Random Id Format")
+    void TestNext_WhenUuid2Strategy_ShouldReturnRandomUuid() {
+        // Act
+        UUID uuid = UUID.fromString(LedgerIds.next(LedgerIdStrategy.UUID2));
+
+        // Assert
+        assertEquals(4, uuid.version());
+    }
+
+    @Test
+    @DisplayName("Monotonic Within One Millisecond")
+    void TestTimeOrdered_WhenSameMillisecond_ShouldBeStrictlyIncreasing() {
+        // Arrange
+        long now = System.currentTimeMillis();
+        String previous = LedgerIds.timeOrdered(now).toString();
+
+        for (int index = 0; index < 1_000; index++) {
+            // Act
+            String next = LedgerIds.timeOrdered(now).toString();
+
+            // Assert (string order is the index order of the ids)
+            assertTrue(next.compareTo(previous) > 0, previous + " >= " + next);
+            previous = next;
+        }
+    }
+
+    @Test
+    @DisplayName("Counter Rollover Carries Into Timestamp")
+    void TestTimeOrdered_WhenMoreThan4096IdsInOneMillisecond_ShouldCarryIntoTimestamp() {
+        // Arrange
+        long now = System.currentTimeMillis();
+        UUID previous = LedgerIds.timeOrdered(now);
+        int rollovers = 0;
+
+        // Act
+        for (int index = 0; index < 5_000; index++) {
+            UUID next = LedgerIds.timeOrdered(now);
+
+            // Assert
+            assertTrue(next.toString().compareTo(previous.toString()) > 0);
+            assertEquals(7, next.version());
+            if (counter(next) < counter(previous)) {
+                rollovers++;
+                assertTrue(millis(next) > millis(previous));
+            } else {
+                assertEquals(millis(previous), millis(next));
+            }
+            previous = next;
+        }
+
+        assertTrue(rollovers >= 1);
+    }
+}
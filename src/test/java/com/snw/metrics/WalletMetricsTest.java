@@ -0,0 +1,105 @@
+package com.snw.metrics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.snw.WalletApplication;
+import com.snw.controller.dto.FinancialDto;
+import com.snw.domain.enumeration.AccountingStatus;
+import com.snw.exception.ExceptionHandlerAdvice;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@AutoConfigureMetrics
+@AutoConfigureMockMvc
+@SpringBootTest(classes = WalletApplication.class, properties = {
+        "spring.datasource.url=jdbc:h2:mem:metrics;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE"
+})
+class WalletMetricsTest {
+
+    private final static ObjectMapper mapper = new ObjectMapper();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Autowired
+    private ExceptionHandlerAdvice exceptionHandlerAdvice;
+
+    private static FinancialDto getRecord(AccountingStatus status, String user, String amount) {
+        return FinancialDto.builder().status(status).user(user).amount(new BigDecimal(amount)).build();
+    }
+
+    @Test
+    @SneakyThrows
+    @DisplayName("Credit Phases And Batch Distributions")
+    void TestAddCredit_WhenRecordsAreValid_PhasesAndBatchAreRecorded() {
+        // Arrange
+        List<FinancialDto> records = List.of(getRecord(AccountingStatus.CREDITOR, "metrics1", "10.00"),
+                getRecord(AccountingStatus.CREDITOR, "metrics2", "20.00"),
+                getRecord(AccountingStatus.DEBTOR, "metrics2", "5.00"));
+        long before = registry.get("wallet.credit.phase").tag("phase", "lock").timer().count();
+        long validations = registry.get("wallet.credit.phase").tag("phase", "validation").timer().count();
+
+        // Act
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/wallet")
+                        .contentType(MediaType.APPLICATION_JSON).content(mapper.writeValueAsString(records)))
+                .andExpect(MockMvcResultMatchers.status().isCreated());
+
+        // Assert
+        for (String phase : List.of("validation", "aggregation", "lock", "ledger-sum", "boundary", "upsert", "save")) {
+            assertTrue(registry.get("wallet.credit.phase").tag("phase", phase).timer().count() > 0, phase);
+        }
+        assertEquals(before + 1, registry.get("wallet.credit.phase").tag("phase", "lock").timer().count());
+        assertEquals(validations + 1, registry.get("wallet.credit.phase").tag("phase", "validation").timer().count());
+        assertEquals(3, registry.get("wallet.credit.batch.size").summary().max());
+        assertEquals(2, registry.get("wallet.credit.batch.users").summary().max());
+        assertTrue(registry.get("wallet.request.statements").tag("uri", "/api/v1/wallet").summary().max() > 0);
+    }
+
+    @Test
+    @DisplayName("Lock Conflict Counter")
+    void TestConflictHandler_WhenOptimisticLockFails_ConflictIsCounted() {
+        // Arrange
+        double before = registry.get("wallet.lock.conflicts").tag("type", "optimistic").counter().count();
+
+        // Act
+        exceptionHandlerAdvice.handleOptimisticLockingFailureException(
+                new OptimisticLockingFailureException("changed"), new ServletWebRequest(new MockHttpServletRequest()));
+
+        // Assert
+        assertEquals(before + 1, registry.get("wallet.lock.conflicts").tag("type", "optimistic").counter().count());
+    }
+
+    @Test
+    @SneakyThrows
+    @DisplayName("Prometheus Scrape Endpoint")
+    void TestScrape_WhenPrometheusIsEnabled_WalletAndPoolMetricsAreExported() {
+        // Act & Assert
+        mockMvc.perform(MockMvcRequestBuilders.get("/actuator/prometheus"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.content().string(containsString("wallet_credit_phase_seconds")))
+                .andExpect(MockMvcResultMatchers.content().string(containsString("wallet_lock_conflicts_total")))
+                .andExpect(MockMvcResultMatchers.content().string(containsString("hikaricp_connections_pending")));
+    }
+}
@@ -0,0 +1,60 @@
+package com.snw.service;
+
+import com.snw.domain.FinancialEntity;
+import com.snw.domain.enumeration.AccountingStatus;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(classes = com.snw.WalletApplication.class, properties = {
+        "spring.datasource.url=jdbc:h2:mem:cache;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE"
+})
+class BalanceCacheTest {
+
+    @Autowired
+    private WalletCreditService creditService;
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private static List<FinancialEntity> getInputList(String user, int amount) {
+        return List.of(FinancialEntity.builder().status(AccountingStatus.CREDITOR).user(user)
+                .amount(new BigDecimal(amount).setScale(2)).build());
+    }
+
+    private double count(String result) {
+        return meterRegistry.get("cache.gets").tags("cache", "balance", "result", result).functionCounter().count();
+    }
+
+    @Test
+    @DisplayName("Cached Balance Follows Committed Credits")
+    void TestGetByUser_WhenCreditIsCommitted_CachedBalanceIsEvicted() {
+        // Arrange
+        creditService.credit(getInputList("cached", 100));
+        double hits = count("hit");
+        double misses = count("miss");
+
+        // Act
+        BigDecimal first = walletService.getByUser("cached").getCredit();
+        BigDecimal second = walletService.getByUser("cached").getCredit();
+        creditService.credit(getInputList("cached", 50));
+        BigDecimal third = walletService.getByUser("cached").getCredit();
+
+        // Assert
+        assertEquals(new BigDecimal(100).setScale(2), first);
+        assertEquals(first, second);
+        assertEquals(new BigDecimal(150).setScale(2), third);
+        assertEquals(hits + 1, count("hit"));
+        assertEquals(misses + 2, count("miss"));
+    }
+}
@@ -0,0 +1,158 @@
+package com.snw.service;
+
+import com.snw.WalletApplication;
+import com.snw.domain.FinancialEntity;
+import com.snw.domain.enumeration.AccountingStatus;
+import com.snw.repository.BalanceCheckpointRepository;
+import com.snw.repository.FinancialRepository;
+import com.snw.repository.LedgerSequence;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@AutoConfigureMockMvc
+@SpringBootTest(classes = WalletApplication.class, properties = {
+        "spring.datasource.url=jdbc:h2:mem:checkpoint;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "wallet.balance.checkpoint.enabled=false"
+})
+class BalanceCheckpointTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private FinancialService financialService;
+
+    @Autowired
+    private BalanceCheckpointService checkpointService;
+
+    @Autowired
+    private BalanceCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private FinancialRepository financialRepository;
+
+    @Autowired
+    private LedgerSequence ledgerSequence;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private static FinancialEntity getRecord(AccountingStatus status, String user, String amount) {
+        return FinancialEntity.builder().status(status).user(user).amount(new BigDecimal(amount)).build();
+    }
+
+    private List<FinancialEntity> recordsOf(String user) {
+        List<FinancialEntity> records = financialRepository.findByUser(user);
+        records.sort(Comparator.comparing(FinancialEntity::getSequence));
+        return records;
+    }
+
+    @Test
+    @DisplayName("Ledger Sequence Follows The Credits")
+    void TestUpdateCredit_WhenBatchesAreApplied_RecordsAreSequencedInOrder() {
+        // Act
+        walletService.updateCredit(List.of(getRecord(AccountingStatus.CREDITOR, "sequence1", "1.00"),
+                getRecord(AccountingStatus.CREDITOR, "sequence1", "2.00")));
+        walletService.updateCredit(List.of(getRecord(AccountingStatus.CREDITOR, "sequence1", "3.00")));
+
+        // Assert
+        List<FinancialEntity> records = recordsOf("sequence1");
+        assertEquals(3, records.size());
+        assertTrue(records.get(0).getSequence() < records.get(1).getSequence());
+        assertEquals(new BigDecimal("3.00"), records.get(2).getAmount());
+    }
+
+    @Test
+    @SneakyThrows
+    @DisplayName("Point-In-Time Balance From Checkpoint And Tail")
+    void TestGetBalanceAsOf_WhenCheckpointAndTailExist_ShouldReturnHistoricalBalances() {
+        // Arrange
+        walletService.updateCredit(List.of(getRecord(AccountingStatus.CREDITOR, "history1", "100.00")));
+        assertTrue(checkpointService.checkpoint() > 0);
+        walletService.updateCredit(List.of(getRecord(AccountingStatus.CREDITOR, "history1", "50.00"),
+                getRecord(AccountingStatus.DEBTOR, "history1", "30.00")));
+        List<FinancialEntity> records = recordsOf("history1");
+
+        // Act
+        BigDecimal afterFirst = checkpointService.getBalanceAsOf("history1", records.get(0).getSequence());
+        BigDecimal afterSecond = checkpointService.getBalanceAsOf("history1", records.get(1).getSequence());
+        BigDecimal afterLast = checkpointService.getBalanceAsOf("history1", records.get(2).getSequence());
+
+        // Assert
+        assertEquals(new BigDecimal("100.00"), afterFirst);
+        assertEquals(new BigDecimal("150.00"), afterSecond);
+        assertEquals(new BigDecimal("120.00"), afterLast);
+        assertTrue(checkpointRepository
+                .findFirstByUserAndSequenceLessThanEqualOrderBySequenceDesc("history1", Long.MAX_VALUE).isPresent());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/wallet/history1")
+                        .param("asOf", records.get(0).getSequence().toString()))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.content().string("100.00"));
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/wallet/history1")
+                        .param("asOf", records.get(2).getCreatedAt().toString()))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.content().string("120.00"));
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/wallet/history1")
+                        .param("asOf", "2000-01-01T00:00:00Z"))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/wallet/history1").param("asOf", "yesterday"))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Edited Record Corrects The Checkpoints")
+    void TestUpdateById_WhenRecordIsCheckpointed_HistoricalBalancesFollowTheEdit() {
+        // Arrange
+        walletService.updateCredit(List.of(getRecord(AccountingStatus.CREDITOR, "edit1", "100.00"),
+                getRecord(AccountingStatus.CREDITOR, "edit1", "10.00")));
+        checkpointService.checkpoint();
+        List<FinancialEntity> records = recordsOf("edit1");
+        long last = records.get(1).getSequence();
+
+        // Act
+        financialService.updateById(records.get(0).getId(),
+                getRecord(AccountingStatus.CREDITOR, "edit2", "80.00"));
+
+        // Assert
+        assertEquals(new BigDecimal("10.00"), checkpointService.getBalanceAsOf("edit1", last));
+        assertEquals(new BigDecimal("80.00"), checkpointService.getBalanceAsOf("edit2", last));
+
+        checkpointService.checkpoint();
+        walletService.updateCredit(List.of(getRecord(AccountingStatus.CREDITOR, "edit2", "5.00")));
+        checkpointService.checkpoint();
+        List<FinancialEntity> moved = recordsOf("edit2");
+        assertEquals(new BigDecimal("85.00"),
+                checkpointService.getBalanceAsOf("edit2", moved.get(moved.size() - 1).getSequence()));
+    }
+
+    @Test
+    @DisplayName("Horizon Waits For Running Transactions")
+    void TestHorizon_WhenTransactionHoldsSequence_HorizonStaysBelowIt() {
+        // Act & Assert
+        long allocated = transactionTemplate.execute(status -> {
+            long value = ledgerSequence.next();
+            assertTrue(ledgerSequence.horizon() < value);
+            return value;
+        });
+
+        assertTrue(ledgerSequence.horizon() >= allocated);
+    }
+}
@@ -0,0 +1,63 @@
+package com.snw.service;
+
+import com.snw.util.Cents;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BalanceRulesTest {
+
+    // Batch sums and balances around every boundary, null for a user without a wallet
+    private static final String[] AMOUNTS = {"-0.01", "0.00", "0.01", "10.00", "500.00", "999999.99",
+            "1000000.00", "1000000.01"};
+
+    private static final String[] ACTUALS = {null, "0.00", "0.01", "9.99", "10.00", "10.01", "500.00",
+            "999990.00", "1000000.00"};
+
+    private static List<String> violations(String amount, String actual) {
+        return BalanceRules.violations(Cents.of(new BigDecimal(amount)),
+                actual == null ? Cents.NONE : Cents.of(new BigDecimal(actual)));
+    }
+
+    @Test
+    @DisplayName("Cents Rules Match BigDecimal Rules")
+    void TestViolations_WhenSameInputsInCents_ShouldMatchBigDecimalViolations() {
+        for (String amount : AMOUNTS) {
+            for (String actual : ACTUALS) {
+                // Act
+                List<String> expected = BalanceRules.violations(new BigDecimal(amount),
+                        actual == null ? null : new BigDecimal(actual));
+                List<String> cents = violations(amount, actual);
+
+                // Assert
+                assertEquals(expected, cents, amount + " on " + actual);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Credit Above The Balance Is A Minimum Violation")
+    void TestViolations_WhenActualIsBelowAmount_ShouldReportMinimumBoundary() {
+        // Act and Assert (the historical rule: a batch cannot add more than the current balance)
+        assertEquals(List.of(BalanceRules.MINIMUM_BOUNDARY_VIOLATION), violations("10.01", "10.00"));
+        assertEquals(List.of(BalanceRules.MINIMUM_BOUNDARY_VIOLATION),
+                BalanceRules.violations(new BigDecimal("10.01"), new BigDecimal("10.00")));
+        assertEquals(Collections.emptyList(), violations("10.00", "10.00"));
+        assertEquals(Collections.emptyList(), violations("10.01", null));
+    }
+
+    @Test
+    @DisplayName("Negative Sum And Maximum Reported Together")
+    void TestViolations_WhenSeveralBoundariesAreViolated_ShouldReportEachInOrder() {
+        // Act and Assert
+        assertEquals(List.of(BalanceRules.MINIMUM_BOUNDARY_VIOLATION, BalanceRules.MINIMUM_BOUNDARY_VIOLATION),
+                violations("-0.01", "-1.00"));
+        assertEquals(List.of(BalanceRules.MAXIMUM_BOUNDARY_VIOLATION, BalanceRules.MINIMUM_BOUNDARY_VIOLATION,
+                BalanceRules.MAXIMUM_BOUNDARY_VIOLATION), violations("1000000.01", "10.00"));
+    }
+}
@@ -0,0 +1,77 @@
+package com.snw.service;
+
+import com.snw.domain.FinancialEntity;
+import com.snw.domain.enumeration.AccountingStatus;
+import com.snw.util.StringLongMap;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DeltaAggregatorTest {
+
+    private static final int SEQUENTIAL = Integer.MAX_VALUE;
+
+    private static List<FinancialEntity> getInputList(int size, int users) {
+        List<FinancialEntity> records = new ArrayList<>(size);
+        for (int index = 0; index < size; index++) {
+            records.add(FinancialEntity.builder()
+                    .status(index % 3 == 0 ? AccountingStatus.DEBTOR : AccountingStatus.CREDITOR)
+                    .user("user" + index % users)
+                    .amount(new BigDecimal("1.25"))
+                    .build());
+        }
+        return records;
+    }
+
+    @Test
+    @DisplayName("Sum Per User In Cents")
+    void TestAggregate_WhenCreditsAndDebits_ShouldSumSignedCentsPerUser() {
+        // Arrange
+        List<FinancialEntity> records = getInputList(6, 3);
+
+        // Act
+        StringLongMap deltas = DeltaAggregator.aggregate(records, SEQUENTIAL);
+
+        // Assert
+        assertEquals(3, deltas.size());
+        // user0 only has debits, user1 and user2 only credits
+        assertEquals(-250L, deltas.get("user0", 0L));
+        assertEquals(250L, deltas.get("user1", 0L));
+        assertEquals(250L, deltas.get("user2", 0L));
+    }
+
+    @Test
+    @DisplayName("Pooled Map Is Cleared Between Batches")
+    void TestAggregate_WhenCalledTwice_ShouldNotCarryOverPreviousBatch() {
+        // Arrange
+        DeltaAggregator.aggregate(getInputList(10, 10), SEQUENTIAL);
+
+        // Act
+        StringLongMap deltas = DeltaAggregator.aggregate(getInputList(3, 1), SEQUENTIAL);
+
+        // Assert
+        assertEquals(1, deltas.size());
+        assertEquals(125L, deltas.get("user0", 0L));
+    }
+
+    @Test
+    @DisplayName("Fork Join Matches Single Pass")
+    void TestAggregateParallel_WhenBatchIsLarge_ShouldMatchSequentialSums() {
+        // Arrange
+        List<FinancialEntity> records = getInputList(100_000, 7_001);
+        StringLongMap expected = new StringLongMap();
+        DeltaAggregator.aggregateInto(records, expected);
+
+        // Act
+        StringLongMap deltas = DeltaAggregator.aggregateParallel(records);
+
+        // Assert
+        assertEquals(expected.size(), deltas.size());
+        expected.forEach((user, cents) -> assertEquals(cents, deltas.get(user, Long.MIN_VALUE), user));
+    }
+}
@@ -0,0 +1,253 @@
+package com.snw.service;
+
+import com.snw.WalletApplication;
+import com.snw.domain.AuditEntity;
+import com.snw.domain.FinancialEntity;
+import com.snw.domain.enumeration.AccountingStatus;
+import com.snw.domain.enumeration.AuditOperation;
+import com.snw.exception.NoRecordFoundException;
+import com.snw.repository.AuditRepository;
+import com.snw.repository.FinancialRepository;
+import com.snw.repository.WalletRepository;
+import com.snw.service.audit.AuditEvent;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.*;
+
+@AutoConfigureMockMvc
+@SpringBootTest(classes = WalletApplication.class, properties = {
+        "spring.datasource.url=jdbc:h2:mem:financial;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "wallet.balance.checkpoint.enabled=false"
+})
+class FinancialServiceTest {
+
+    private static final String LOCK_STATE = "SELECT horizon FROM wallet_checkpoint_state WHERE id = 1 FOR UPDATE";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private FinancialService financialService;
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private BalanceCheckpointService checkpointService;
+
+    @Autowired
+    private FinancialRepository financialRepository;
+
+    @Autowired
+    private WalletRepository walletRepository;
+
+    @Autowired
+    private AuditRepository auditRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private static FinancialEntity getRecord(AccountingStatus status, String user, String amount) {
+        return FinancialEntity.builder().status(status).user(user).amount(new BigDecimal(amount)).build();
+    }
+
+    private List<FinancialEntity> recordsOf(String user) {
+        List<FinancialEntity> records = financialRepository.findByUser(user);
+        records.sort(Comparator.comparing(FinancialEntity::getSequence));
+        return records;
+    }
+
+    private BigDecimal creditOf(String user) {
+        return walletRepository.findById(user).get().getCredit();
+    }
+
+    // The writer persists revisions shortly after their commit
+    @SneakyThrows
+    private List<AuditEntity> awaitHistory(String id, int size) {
+        List<AuditEntity> history = List.of();
+        for (int attempt = 0; attempt < 100 && history.size() < size; attempt++) {
+            Thread.sleep(50);
+            history = auditRepository.findByEntityTypeAndEntityIdAndIdGreaterThanOrderById(AuditEvent.FINANCIAL, id,
+                    0L, PageRequest.of(0, 100));
+        }
+        return history;
+    }
+
+    @Test
+    @DisplayName("Edits Write The Locked Record")
+    void TestUpdateById_WhenRecordExists_RecordAndWalletsFollowTheEdit() {
+        // Arrange
+        FinancialEntity saved = financialService.save(getRecord(AccountingStatus.CREDITOR, "edited1", "100.00"));
+        FinancialEntity stored = financialService.getById(saved.getId());
+
+        // Act
+        FinancialEntity updated = financialService.updateById(saved.getId(),
+                getRecord(AccountingStatus.CREDITOR, "edited1", "60.00"));
+        FinancialEntity moved = financialService.partialUpdate(saved.getId(), Map.of("user", "edited2"));
+
+        // Assert
+        assertEquals(new BigDecimal("60.00"), updated.getAmount());
+        assertEquals("edited2", moved.getUser());
+
+        FinancialEntity reloaded = financialService.getById(saved.getId());
+        assertEquals("edited2", reloaded.getUser());
+        assertEquals(new BigDecimal("60.00"), reloaded.getAmount());
+        assertEquals(AccountingStatus.CREDITOR, reloaded.getStatus());
+        assertEquals(stored.getSequence(), reloaded.getSequence());
+        assertEquals(stored.getCreatedAt(), reloaded.getCreatedAt());
+
+        assertEquals(new BigDecimal("0.00"), creditOf("edited1"));
+        assertEquals(new BigDecimal("60.00"), creditOf("edited2"));
+    }
+
+    @Test
+    @DisplayName("Deletes Remove The Locked Record")
+    void TestDelete_WhenRecordExists_RecordIsRemovedAndWalletFollows() {
+        // Arrange
+        financialService.save(getRecord(AccountingStatus.CREDITOR, "deleted1", "40.00"));
+        FinancialEntity saved = financialService.save(getRecord(AccountingStatus.CREDITOR, "deleted1", "15.00"));
+
+        // Act
+        financialService.delete(saved.getId());
+
+        // Assert
+        assertFalse(financialRepository.findById(saved.getId()).isPresent());
+        assertEquals(1, financialRepository.findByUser("deleted1").size());
+        assertEquals(new BigDecimal("40.00"), creditOf("deleted1"));
+    }
+
+    @Test
+    @DisplayName("Edits And Deletes Are Audited")
+    void TestUpdateAndDelete_WhenCommitted_ShouldWriteTheirRevisions() {
+        // Arrange
+        FinancialEntity saved = financialService.save(getRecord(AccountingStatus.CREDITOR, "audited1", "20.00"));
+
+        // Act
+        financialService.updateById(saved.getId(), getRecord(AccountingStatus.CREDITOR, "audited1", "12.34"));
+        financialService.delete(saved.getId());
+
+        // Assert
+        List<AuditEntity> history = awaitHistory(saved.getId(), 3);
+        assertEquals(3, history.size());
+        assertEquals(AuditOperation.CREATE, history.get(0).getOperation());
+        assertEquals(AuditOperation.UPDATE, history.get(1).getOperation());
+        assertTrue(history.get(1).getState().contains("12.34"));
+        assertEquals(AuditOperation.DELETE, history.get(2).getOperation());
+    }
+
+    @Test
+    @DisplayName("Deleted Record Corrects The Checkpoints")
+    void TestDelete_WhenRecordIsCheckpointed_HistoricalBalancesFollowTheDelete() {
+        // Arrange
+        walletService.updateCredit(List.of(getRecord(AccountingStatus.CREDITOR, "removed1", "100.00"),
+                getRecord(AccountingStatus.CREDITOR, "removed1", "10.00")));
+        checkpointService.checkpoint();
+        List<FinancialEntity> records = recordsOf("removed1");
+        long last = records.get(1).getSequence();
+
+        // Act
+        financialService.delete(records.get(0).getId());
+
+        // Assert
+        assertEquals(new BigDecimal("10.00"), checkpointService.getBalanceAsOf("removed1", last));
+
+        walletService.updateCredit(List.of(getRecord(AccountingStatus.CREDITOR, "removed1", "5.00")));
+        checkpointService.checkpoint();
+        List<FinancialEntity> remaining = recordsOf("removed1");
+        assertEquals(new BigDecimal("15.00"),
+                checkpointService.getBalanceAsOf("removed1", remaining.get(remaining.size() - 1).getSequence()));
+    }
+
+    @Test
+    @SneakyThrows
+    @DisplayName("Uncheckpointed Edits Skip The Checkpoint State")
+    void TestUpdateAndDelete_WhenRecordIsNotCheckpointed_ShouldNotWaitForTheCheckpointState() {
+        // Arrange
+        walletService.updateCredit(List.of(getRecord(AccountingStatus.CREDITOR, "uncovered1", "30.00")));
+        checkpointService.checkpoint();
+        walletService.updateCredit(List.of(getRecord(AccountingStatus.CREDITOR, "uncovered1", "20.00"),
+                getRecord(AccountingStatus.CREDITOR, "uncovered1", "5.00")));
+        List<FinancialEntity> records = recordsOf("uncovered1");
+
+        // Keeps every checkpoint and locked checkpoint edit waiting until released
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> holder = CompletableFuture.runAsync(() ->
+                transactionTemplate.executeWithoutResult(status -> {
+                    jdbcTemplate.queryForObject(LOCK_STATE, Long.class);
+                    locked.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }));
+        assertTrue(locked.await(5, TimeUnit.SECONDS));
+
+        // Act
+        try {
+            financialService.updateById(records.get(1).getId(),
+                    getRecord(AccountingStatus.CREDITOR, "uncovered1", "25.00"));
+            financialService.delete(records.get(2).getId());
+        } finally {
+            release.countDown();
+            holder.get(5, TimeUnit.SECONDS);
+        }
+
+        // Assert
+        assertEquals(new BigDecimal("55.00"), creditOf("uncovered1"));
+        checkpointService.checkpoint();
+        assertEquals(new BigDecimal("55.00"),
+                checkpointService.getBalanceAsOf("uncovered1", records.get(1).getSequence()));
+        assertEquals(new BigDecimal("30.00"),
+                checkpointService.getBalanceAsOf("uncovered1", records.get(0).getSequence()));
+    }
+
+    @Test
+    @SneakyThrows
+    @DisplayName("Missing Record Is Not Found")
+    void TestUpdateAndDelete_WhenRecordIsMissing_ShouldThrowNoRecordFound() {
+        // Act & Assert
+        assertThrows(NoRecordFoundException.class, () -> financialService.updateById("missing",
+                getRecord(AccountingStatus.CREDITOR, "missing1", "1.00")));
+        assertThrows(NoRecordFoundException.class,
+                () -> financialService.partialUpdate("missing", Map.of("amount", "1.00")));
+        assertThrows(NoRecordFoundException.class, () -> financialService.delete("missing"));
+
+        mockMvc.perform(MockMvcRequestBuilders.put("/api/v1/financial/missing")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"status\":\"CREDITOR\",\"user\":\"missing1\",\"amount\":1.00}"))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest())
+                .andExpect(MockMvcResultMatchers.content().string(containsString("Financial entity not found")));
+        mockMvc.perform(MockMvcRequestBuilders.patch("/api/v1/financial/missing")
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"amount\":\"1.00\"}"))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+        mockMvc.perform(MockMvcRequestBuilders.delete("/api/v1/financial/missing"))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+        assertFalse(walletRepository.findById("missing1").isPresent());
+    }
+}
@@ -0,0 +1,113 @@
+package com.snw.service;
+
+import com.snw.domain.FinancialEntity;
+import com.snw.domain.enumeration.AccountingStatus;
+import com.snw.repository.WalletRepository;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(classes = com.snw.WalletApplication.class, properties = {
+        "spring.datasource.url=jdbc:h2:mem:incremental;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "wallet.balance.mode=INCREMENTAL",
+        "wallet.balance.reconciler.enabled=true",
+        "wallet.balance.reconciler.interval=PT1H"
+})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class IncrementalBalanceTest {
+
+    @Autowired
+    private WalletCreditService creditService;
+
+    @Autowired
+    private FinancialService financialService;
+
+    @Autowired
+    private WalletReconciliationService reconciliationService;
+
+    @Autowired
+    private WalletRepository walletRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private static FinancialEntity getRecord(AccountingStatus status, String user, String amount) {
+        return FinancialEntity.builder().status(status).user(user).amount(new BigDecimal(amount)).build();
+    }
+
+    private BigDecimal credit(String user) {
+        return walletRepository.findById(user).get().getCredit();
+    }
+
+    @Test
+    @Order(1)
+    @DisplayName("Credits Keep The Running Total")
+    void TestCredit_WhenIncrementalMode_WalletCreditIsRunningTotal() {
+        // Act
+        creditService.credit(List.of(getRecord(AccountingStatus.CREDITOR, "inc1", "100.00")));
+        creditService.credit(List.of(getRecord(AccountingStatus.CREDITOR, "inc1", "60.00"),
+                getRecord(AccountingStatus.DEBTOR, "inc1", "10.00")));
+
+        // Assert
+        assertEquals(new BigDecimal("150.00"), credit("inc1"));
+        assertTrue(reconciliationService.findDrift().isEmpty());
+    }
+
+    @Test
+    @Order(2)
+    @DisplayName("Record Edits Move The Wallet Credit")
+    void TestRecordEdits_WhenIncrementalMode_WalletCreditFollowsTheLedger() {
+        // Act and Assert
+        FinancialEntity record = financialService.save(getRecord(AccountingStatus.CREDITOR, "inc1", "20.00"));
+        assertEquals(new BigDecimal("170.00"), credit("inc1"));
+
+        // Moved to another user, without a wallet yet
+        financialService.updateById(record.getId(), getRecord(AccountingStatus.CREDITOR, "inc2", "50.00"));
+        assertEquals(new BigDecimal("150.00"), credit("inc1"));
+        assertEquals(new BigDecimal("50.00"), credit("inc2"));
+
+        financialService.partialUpdate(record.getId(), Map.of("amount", "10.00"));
+        assertEquals(new BigDecimal("10.00"), credit("inc2"));
+
+        financialService.delete(record.getId());
+        assertEquals(new BigDecimal("0.00"), credit("inc2"));
+        assertTrue(reconciliationService.findDrift().isEmpty());
+
+        // The next credit is validated against and added to the corrected credit
+        creditService.credit(List.of(getRecord(AccountingStatus.CREDITOR, "inc1", "150.00")));
+        assertEquals(new BigDecimal("300.00"), credit("inc1"));
+        assertTrue(reconciliationService.findDrift().isEmpty());
+    }
+
+    @Test
+    @Order(3)
+    @DisplayName("Reconciler Reports Drifted Wallets")
+    void TestFindDrift_WhenWalletsAreWrittenAroundTheLedger_ShouldReportDifferences() {
+        // Arrange, writes that bypass the services
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("UPDATE wallet_wallet SET credit = credit + 1 WHERE user = 'inc1'");
+            jdbcTemplate.update("INSERT INTO wallet_address (id, accounting_status, user, amount, created_at, seq) " +
+                    "VALUES ('drift-1', 'CREDITOR', 'inc3', 5.00, CURRENT_TIMESTAMP(), NEXT VALUE FOR wallet_ledger_seq)");
+        });
+
+        // Act
+        Map<String, BigDecimal> drift = reconciliationService.findDrift();
+
+        // Assert
+        assertEquals(2, drift.size());
+        assertEquals(0, BigDecimal.ONE.compareTo(drift.get("inc1")));
+        assertEquals(0, new BigDecimal("-5").compareTo(drift.get("inc3")));
+    }
+}
@@ -0,0 +1,205 @@
+package com.snw.service;
+
+import com.snw.domain.FinancialEntity;
+import com.snw.domain.WalletEntity;
+import com.snw.domain.enumeration.AccountingStatus;
+import com.snw.repository.FinancialRepository;
+import com.snw.repository.WalletRepository;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+
+@SpringBootTest(classes = com.snw.WalletApplication.class, properties = {
+        "spring.datasource.url=jdbc:h2:mem:credit;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "wallet.balance.mode=INCREMENTAL",
+        "wallet.balance.concurrency=OPTIMISTIC",
+        "wallet.balance.optimistic.max-attempts=50"
+})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class WalletCreditServiceTest {
+
+    private static final String INSERT_WALLET = "INSERT INTO wallet_wallet (user, credit, version) VALUES (?, 0, 0)";
+
+    @Autowired
+    private WalletCreditService creditService;
+
+    @Autowired
+    private WalletRepository walletRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private FinancialRepository financialRepository;
+
+    @Autowired
+    private BalanceCheckpointService checkpointService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @SpyBean
+    private WalletService walletService;
+
+    private static List<FinancialEntity> getInputList(String user, int amount) {
+        return List.of(FinancialEntity.builder().status(AccountingStatus.CREDITOR).user(user)
+                .amount(new BigDecimal(amount).setScale(2)).build());
+    }
+
+    @Test
+    @Order(1)
+    @DisplayName("Optimistic Credit Accumulates")
+    void TestCredit_WhenOptimisticModeAndSequentialBatches_CreditIsRunningTotal() {
+        // Act
+        creditService.credit(getInputList("user1", 100));
+        List<WalletEntity> entities = creditService.credit(getInputList("user1", 50));
+
+        // Assert
+        assertEquals(new BigDecimal(150).setScale(2), entities.get(0).getCredit());
+        assertEquals(new BigDecimal(150).setScale(2), walletRepository.findById("user1").get().getCredit());
+    }
+
+    @Test
+    @Order(2)
+    @DisplayName("Stale Version Is Not Applied")
+    void TestAddCredit_WhenVersionIsStale_NoRowIsUpdated() {
+        // Arrange
+        WalletEntity wallet = walletRepository.findById("user1").get();
+
+        // Act
+        Integer current = transactionTemplate.execute(status ->
+                walletRepository.addCredit("user1", BigDecimal.ONE, wallet.getVersion()));
+        Integer stale = transactionTemplate.execute(status ->
+                walletRepository.addCredit("user1", BigDecimal.ONE, wallet.getVersion()));
+
+        // Assert
+        assertEquals(1, current);
+        assertEquals(0, stale);
+        assertEquals(new BigDecimal(151).setScale(2), walletRepository.findById("user1").get().getCredit());
+    }
+
+    @Test
+    @Order(3)
+    @SneakyThrows
+    @DisplayName("Concurrent Optimistic Credits Converge")
+    void TestCredit_WhenOptimisticCreditsConflict_RetriesConvergeWithoutLostCredit() {
+        // Arrange
+        creditService.credit(getInputList("racer", 100));
+        int threads = 8;
+        int creditsPerThread = 10;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+
+        // Act
+        for (int thread = 0; thread < threads; thread++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int index = 0; index < creditsPerThread; index++) {
+                    creditService.credit(getInputList("racer", 1));
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        // Assert, every credit applied once and the running total matches the ledger
+        BigDecimal expected = new BigDecimal(100 + threads * creditsPerThread).setScale(2);
+        assertEquals(expected, walletRepository.findById("racer").get().getCredit());
+        assertEquals(1 + threads * creditsPerThread, financialRepository.findByUser("racer").size());
+        assertEquals(expected, walletRepository.groupByUserIn(Set.of("racer")).get(0).getCredit());
+    }
+
+    @Test
+    @Order(4)
+    @SneakyThrows
+    @DisplayName("Retried Credit Is Checkpointed")
+    void TestCredit_WhenAttemptRollsBack_RetryIsSequencedAboveTheHorizon() {
+        // Arrange
+        creditService.credit(getInputList("retried", 100));
+        ExecutorService checkpointer = Executors.newSingleThreadExecutor();
+        doAnswer(invocation -> {
+            invocation.callRealMethod();
+            throw new OptimisticLockingFailureException("Forced conflict");
+        }).doAnswer(invocation -> {
+            // Between the attempts, the horizon moves past whatever the rolled back one allocated
+            checkpointer.submit(checkpointService::checkpoint).get();
+            return invocation.callRealMethod();
+        }).when(walletService).updateCredit(anyList());
+
+        // Act
+        creditService.credit(getInputList("retried", 50));
+        checkpointer.submit(checkpointService::checkpoint).get();
+        checkpointer.shutdown();
+
+        // Assert
+        BigDecimal live = walletRepository.findById("retried").get().getCredit();
+        assertEquals(new BigDecimal(150).setScale(2), live);
+        assertEquals(2, financialRepository.findByUser("retried").size());
+        assertEquals(live, checkpointService.getBalanceAsOf("retried", Long.MAX_VALUE));
+    }
+
+    @Test
+    @Order(5)
+    @DisplayName("Wallet Insert Race Is Retried")
+    void TestCredit_WhenWalletIsInsertedConcurrently_ShouldRetry() {
+        // Arrange, the duplicate key a concurrent first credit of the user would raise
+        AtomicInteger attempts = new AtomicInteger();
+        doAnswer(invocation -> {
+            attempts.incrementAndGet();
+            return jdbcTemplate.update(INSERT_WALLET, "user1");
+        }).doAnswer(invocation -> {
+            attempts.incrementAndGet();
+            return invocation.callRealMethod();
+        }).when(walletService).updateCredit(anyList());
+
+        // Act
+        List<WalletEntity> entities = creditService.credit(getInputList("user1", 9));
+
+        // Assert
+        assertEquals(2, attempts.get());
+        assertEquals(new BigDecimal(160).setScale(2), entities.get(0).getCredit());
+    }
+
+    @Test
+    @Order(6)
+    @DisplayName("Other Integrity Violations Are Not Retried")
+    void TestCredit_WhenIntegrityViolationIsNotAWalletInsertRace_ShouldFailAtOnce() {
+        // Arrange
+        AtomicInteger attempts = new AtomicInteger();
+        doAnswer(invocation -> {
+            attempts.incrementAndGet();
+            return jdbcTemplate.update(INSERT_WALLET, (Object) null);
+        }).when(walletService).updateCredit(anyList());
+
+        // Act and Assert
+        assertThrows(DataIntegrityViolationException.class, () -> creditService.credit(getInputList("user1", 1)));
+        assertEquals(1, attempts.get());
+    }
+}
@@ -0,0 +1,72 @@
+package com.snw.service;
+
+import com.snw.domain.FinancialEntity;
+import com.snw.domain.enumeration.AccountingStatus;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WalletValidationTest {
+
+    private static Map<String, BigDecimal> getInputBalances(int users) {
+        Map<String, BigDecimal> input = new HashMap<>();
+        for (int index = 0; index < users; index++) {
+            // Every third user is over the maximum, every fifth has a negative sum
+            BigDecimal amount = index % 3 == 0 ? new BigDecimal("999000.00") :
+                    index % 5 == 0 ? new BigDecimal("-10.00") : new BigDecimal("10.00");
+            input.put("user" + index, amount);
+        }
+        return input;
+    }
+
+    private static Map<String, BigDecimal> getActualBalances(int users) {
+        Map<String, BigDecimal> actual = new HashMap<>();
+        for (int index = 0; index < users; index += 2) {
+            actual.put("user" + index, new BigDecimal("5000.00"));
+        }
+        return actual;
+    }
+
+    @Test
+    @DisplayName("Parallel Boundary Check Matches Sequential")
+    void TestViolations_WhenEvaluatedInParallel_ShouldBeIdenticalToSequential() {
+        // Arrange
+        Map<String, BigDecimal> input = getInputBalances(20_000);
+        Map<String, BigDecimal> actual = getActualBalances(20_000);
+
+        // Act
+        Map<String, List<String>> sequential = WalletService.violations(input, actual, false);
+        Map<String, List<String>> parallel = WalletService.violations(input, actual, true);
+
+        // Assert
+        assertFalse(sequential.isEmpty());
+        assertEquals(sequential, parallel);
+    }
+
+    @Test
+    @DisplayName("Parallel Record Check Throws The Sequential Exception")
+    void TestCheckForMoreThanThousandParallel_WhenOneRecordIsOver_ShouldThrowSameMessage() {
+        // Arrange
+        List<FinancialEntity> records = new ArrayList<>();
+        for (int index = 0; index < 100_000; index++) {
+            records.add(FinancialEntity.builder().status(AccountingStatus.CREDITOR).user("user" + index % 100)
+                    .amount(index == 77_777 ? new BigDecimal("1000.01") : BigDecimal.TEN).build());
+        }
+
+        // Act
+        IllegalArgumentException sequential = assertThrows(IllegalArgumentException.class,
+                () -> BalanceRules.checkForMoreThanThousand(records));
+        IllegalArgumentException parallel = assertThrows(IllegalArgumentException.class,
+                () -> BalanceRules.checkForMoreThanThousandParallel(records));
+
+        // Assert
+        assertEquals(sequential.getMessage(), parallel.getMessage());
+    }
+}
@@ -0,0 +1,124 @@
+package com.snw.service.audit;
+
+import com.snw.WalletApplication;
+import com.snw.domain.AuditEntity;
+import com.snw.domain.FinancialEntity;
+import com.snw.domain.enumeration.AccountingStatus;
+import com.snw.domain.enumeration.AuditOperation;
+import com.snw.exception.FinancialBoundaryException;
+import com.snw.repository.AuditRepository;
+import com.snw.service.WalletService;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.*;
+
+@AutoConfigureMockMvc
+@SpringBootTest(classes = WalletApplication.class, properties = {
+        "spring.datasource.url=jdbc:h2:mem:audit;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "wallet.audit.durability=ASYNC"
+})
+class AuditTrailTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private AuditRepository auditRepository;
+
+    private static FinancialEntity getRecord(AccountingStatus status, String user, String amount) {
+        return FinancialEntity.builder().status(status).user(user).amount(new BigDecimal(amount)).build();
+    }
+
+    private List<AuditEntity> historyOf(String entityType, String entityId) {
+        return auditRepository.findByEntityTypeAndEntityIdAndIdGreaterThanOrderById(entityType, entityId, 0L,
+                PageRequest.of(0, 100));
+    }
+
+    // The writer persists revisions shortly after their commit
+    @SneakyThrows
+    private List<AuditEntity> awaitHistory(String entityType, String entityId, int size) {
+        List<AuditEntity> history = historyOf(entityType, entityId);
+        for (int attempt = 0; attempt < 100 && history.size() < size; attempt++) {
+            Thread.sleep(50);
+            history = historyOf(entityType, entityId);
+        }
+        return history;
+    }
+
+    @Test
+    @DisplayName("Credits Are Audited After Commit")
+    void TestUpdateCredit_WhenCommitted_ShouldWriteOneRevisionPerTransaction() {
+        // Act
+        walletService.updateCredit(List.of(getRecord(AccountingStatus.CREDITOR, "audit1", "10.00"),
+                getRecord(AccountingStatus.CREDITOR, "audit1", "5.00")));
+        walletService.updateCredit(List.of(getRecord(AccountingStatus.CREDITOR, "audit1", "3.00")));
+
+        // Assert
+        List<AuditEntity> wallet = awaitHistory(AuditEvent.WALLET, "audit1", 2);
+        assertEquals(2, wallet.size());
+        assertEquals(AuditOperation.CREATE, wallet.get(0).getOperation());
+        assertEquals(AuditOperation.UPDATE, wallet.get(1).getOperation());
+        assertTrue(wallet.get(1).getState().contains("18.00"));
+
+        List<AuditEntity> firstRevision = auditRepository.findByRevisionOrderById(wallet.get(0).getRevision());
+        assertEquals(3, firstRevision.size());
+        assertEquals(2, firstRevision.stream()
+                .filter(change -> AuditEvent.FINANCIAL.equals(change.getEntityType())).count());
+    }
+
+    @Test
+    @DisplayName("Rolled Back Credits Are Not Audited")
+    void TestUpdateCredit_WhenRolledBack_ShouldNotWriteRevision() {
+        // Act
+        assertThrows(FinancialBoundaryException.class, () ->
+                walletService.updateCredit(List.of(getRecord(AccountingStatus.DEBTOR, "audit2", "1.00"))));
+        walletService.updateCredit(List.of(getRecord(AccountingStatus.CREDITOR, "audit3", "1.00")));
+
+        // Assert, revisions are written in commit order
+        assertEquals(1, awaitHistory(AuditEvent.WALLET, "audit3", 1).size());
+        assertTrue(historyOf(AuditEvent.WALLET, "audit2").isEmpty());
+    }
+
+    @Test
+    @SneakyThrows
+    @DisplayName("Query Audit History")
+    void TestGetHistory_WhenEntityIsAudited_ShouldReturnPagesOfChanges() {
+        // Arrange
+        walletService.updateCredit(List.of(getRecord(AccountingStatus.CREDITOR, "audit4", "2.00")));
+        walletService.updateCredit(List.of(getRecord(AccountingStatus.CREDITOR, "audit4", "1.00")));
+        List<AuditEntity> wallet = awaitHistory(AuditEvent.WALLET, "audit4", 2);
+        assertEquals(2, wallet.size());
+
+        // Act & Assert
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/audit/wallet/audit4").param("limit", "1"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$", hasSize(1)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].operation").value("CREATE"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].state.credit").value(2.0));
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/audit/wallet/audit4")
+                        .param("after", wallet.get(0).getId().toString()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$", hasSize(1)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].state.credit").value(3.0));
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/audit/revision/" + wallet.get(1).getRevision()))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$", hasSize(2)));
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/audit/unknown/audit4"))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+    }
+}
@@ -0,0 +1,60 @@
+package com.snw.service.audit;
+
+import com.snw.WalletApplication;
+import com.snw.domain.AuditEntity;
+import com.snw.domain.FinancialEntity;
+import com.snw.domain.enumeration.AccountingStatus;
+import com.snw.domain.enumeration.AuditOperation;
+import com.snw.repository.AuditRepository;
+import com.snw.service.WalletService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(classes = WalletApplication.class, properties = {
+        "spring.datasource.url=jdbc:h2:mem:audit-transactional;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "wallet.audit.durability=TRANSACTIONAL",
+        "wallet.audit.max-pending-events=2",
+        "wallet.balance.concurrency=OPTIMISTIC"
+})
+class TransactionalAuditTrailTest {
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private AuditRepository auditRepository;
+
+    private static FinancialEntity getRecord(AccountingStatus status, String user, String amount) {
+        return FinancialEntity.builder().status(status).user(user).amount(new BigDecimal(amount)).build();
+    }
+
+    @Test
+    @DisplayName("Audit Committed With The Credit")
+    void TestUpdateCredit_WhenDurabilityIsTransactional_ShouldWriteAuditInTheTransaction() {
+        // Act
+        walletService.updateCredit(List.of(getRecord(AccountingStatus.CREDITOR, "durable1", "10.00"),
+                getRecord(AccountingStatus.CREDITOR, "durable1", "5.00"),
+                getRecord(AccountingStatus.CREDITOR, "durable2", "1.00")));
+        walletService.updateCredit(List.of(getRecord(AccountingStatus.CREDITOR, "durable1", "3.00")));
+
+        // Assert, no wait for a writer
+        List<AuditEntity> wallet = auditRepository.findByEntityTypeAndEntityIdAndIdGreaterThanOrderById(
+                AuditEvent.WALLET, "durable1", 0L, PageRequest.of(0, 10));
+        assertEquals(2, wallet.size());
+        assertEquals(AuditOperation.CREATE, wallet.get(0).getOperation());
+        // The version checked update bypasses Hibernate, it is recorded by the service
+        assertEquals(AuditOperation.UPDATE, wallet.get(1).getOperation());
+        assertTrue(wallet.get(1).getState().contains("18.00"));
+
+        // Written partly before the flush completed, still one revision
+        assertEquals(5, auditRepository.findByRevisionOrderById(wallet.get(0).getRevision()).size());
+    }
+}
@@ -0,0 +1,130 @@
+package com.snw.service.engine;
+
+import com.snw.domain.FinancialEntity;
+import com.snw.domain.WalletEntity;
+import com.snw.domain.enumeration.AccountingStatus;
+import com.snw.repository.FinancialRepository;
+import com.snw.repository.WalletRepository;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(classes = com.snw.WalletApplication.class, properties = {
+        "spring.datasource.url=jdbc:h2:mem:journal;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "wallet.engine.enabled=true",
+        "wallet.engine.journal.enabled=true",
+        "wallet.engine.journal.directory=target/journal-${random.uuid}"
+})
+class JournalLedgerWriterTest {
+
+    private static final String LOCK_WALLET = "SELECT credit FROM wallet_wallet WHERE user = ? FOR UPDATE";
+
+    @Autowired
+    private ShardedWalletEngine engine;
+
+    @Autowired
+    private LedgerWriter writer;
+
+    @Autowired
+    private WalletRepository walletRepository;
+
+    @Autowired
+    private FinancialRepository financialRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private static FinancialEntity getInput(String user, String amount) {
+        return FinancialEntity.builder().status(AccountingStatus.CREDITOR).user(user).amount(new BigDecimal(amount))
+                .build();
+    }
+
+    @Test
+    @SneakyThrows
+    @DisplayName("Journaled Credits Reach The Store")
+    void TestSubmit_WhenJournalIsEnabled_CreditsAreAppliedAsynchronously() {
+        // Arrange
+        List<CompletableFuture<List<WalletEntity>>> futures = new ArrayList<>();
+        List<FinancialEntity> records = new ArrayList<>();
+
+        // Act
+        for (int index = 0; index < 20; index++) {
+            FinancialEntity record = FinancialEntity.builder().status(AccountingStatus.CREDITOR)
+                    .user("journal").amount(new BigDecimal("10.00")).build();
+            records.add(record);
+            futures.add(engine.submit(List.of(record)));
+        }
+
+        // Assert
+        assertThat(writer).isInstanceOf(JournalLedgerWriter.class);
+        for (CompletableFuture<List<WalletEntity>> future : futures) {
+            future.get(5, TimeUnit.SECONDS);
+        }
+        assertThat(records).allMatch(record -> record.getId() != null);
+
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(5);
+        Optional<WalletEntity> wallet = walletRepository.findById("journal");
+        while ((wallet.isEmpty() || wallet.get().getCredit().compareTo(new BigDecimal(200)) != 0)
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+            wallet = walletRepository.findById("journal");
+        }
+        assertEquals(new BigDecimal("200.00"), wallet.get().getCredit());
+        assertTrue(financialRepository.findById(records.get(0).getId()).isPresent());
+    }
+
+    @Test
+    @SneakyThrows
+    @DisplayName("Reloaded Balance Waits For The Journal Applier")
+    void TestSubmit_WhenStoreTrailsTheJournal_ReloadedBalanceIncludesJournaledCredits() {
+        // Arrange
+        engine.submit(List.of(getInput("lagging", "100.00"))).get(5, TimeUnit.SECONDS);
+        writer.applied().get(5, TimeUnit.SECONDS);
+
+        // Keeps the applier from writing the wallet until released
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> holder = CompletableFuture.runAsync(() ->
+                transactionTemplate.executeWithoutResult(status -> {
+                    jdbcTemplate.queryForObject(LOCK_WALLET, BigDecimal.class, "lagging");
+                    locked.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }));
+        assertTrue(locked.await(5, TimeUnit.SECONDS));
+        engine.submit(List.of(getInput("lagging", "10.00"))).get(5, TimeUnit.SECONDS);
+        engine.invalidateAfterCommit(List.of("lagging"));
+
+        // Act
+        CompletableFuture<List<WalletEntity>> reloaded = engine.submit(List.of(getInput("lagging", "110.00")));
+        Thread.sleep(300);
+        boolean doneWhileTrailing = reloaded.isDone();
+        release.countDown();
+        holder.get(5, TimeUnit.SECONDS);
+
+        // Assert
+        assertFalse(doneWhileTrailing);
+        assertEquals(new BigDecimal("220.00"), reloaded.get(10, TimeUnit.SECONDS).get(0).getCredit());
+    }
+}
@@ -0,0 +1,107 @@
+package com.snw.service.engine;
+
+import com.snw.domain.FinancialEntity;
+import com.snw.domain.enumeration.AccountingStatus;
+import com.snw.util.StringLongMap;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+
+class LedgerJournalTest {
+
+    private static final Instant CREATED_AT = Instant.parse("2024-01-01T10:15:30.123456789Z");
+
+    @TempDir
+    Path directory;
+
+    private static List<FinancialEntity> getInputList(int index) {
+        return List.of(FinancialEntity.builder().id("id" + index).status(AccountingStatus.CREDITOR)
+                .user("user" + index).amount(new BigDecimal("12.50")).createdAt(CREATED_AT).build());
+    }
+
+    private static StringLongMap getDeltas(int index) {
+        StringLongMap deltas = new StringLongMap();
+        deltas.put("user" + index, 1250L);
+        return deltas;
+    }
+
+    @Test
+    @SneakyThrows
+    @DisplayName("Entries Survive A Restart Across Segments")
+    void TestRecover_WhenEntriesSpanSegments_AllEntriesAreReadInOrder() {
+        // Arrange
+        LedgerJournal journal = new LedgerJournal(directory, 256);
+        journal.recover();
+        journal.open();
+
+        // Act
+        for (int index = 0; index < 20; index++) {
+            journal.append(getInputList(index), getDeltas(index));
+        }
+        journal.sync();
+        journal.close();
+
+        List<LedgerJournal.Entry> entries = new LedgerJournal(directory, 256).recover();
+
+        // Assert
+        assertThat(listSegments()).hasSizeGreaterThan(1);
+        assertEquals(20, entries.size());
+        for (int index = 0; index < entries.size(); index++) {
+            assertEquals(getInputList(index).get(0), entries.get(index).records.get(0));
+            assertEquals(new BigDecimal("12.50"), entries.get(index).records.get(0).getAmount());
+            assertEquals(CREATED_AT, entries.get(index).records.get(0).getCreatedAt());
+            assertEquals(1250L, entries.get(index).deltas.get("user" + index, 0L));
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    @DisplayName("Torn Entry Ends The Recovery")
+    void TestRecover_WhenLastEntryIsTorn_PreviousEntriesAreKept() {
+        // Arrange
+        LedgerJournal journal = new LedgerJournal(directory, 4096);
+        journal.recover();
+        journal.open();
+        journal.append(getInputList(1), getDeltas(1));
+        journal.append(getInputList(2), getDeltas(2));
+        journal.close();
+
+        // Act
+        try (FileChannel file = FileChannel.open(listSegments().get(0), StandardOpenOption.WRITE)) {
+            // Corrupt the last byte of the second entry
+            long size = 8 + 4 + 2 + 3 + 1 + 2 + 5 + 8 + 12 + 4 + 2 + 5 + 8;
+            file.write(java.nio.ByteBuffer.wrap(new byte[]{42}), 2 * size - 1);
+        }
+        LedgerJournal reopened = new LedgerJournal(directory, 4096);
+        List<LedgerJournal.Entry> entries = reopened.recover();
+        reopened.open();
+
+        // Assert
+        assertEquals(1, entries.size());
+        assertEquals("id1", entries.get(0).records.get(0).getId());
+        assertThat(listSegments()).hasSize(1);
+        assertTrue(listSegments().get(0).getFileName().toString().endsWith("1.journal"));
+        reopened.close();
+    }
+
+    @SneakyThrows
+    private List<Path> listSegments() {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().collect(Collectors.toList());
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.snw.service.engine;
+
+import com.snw.config.WalletProperties;
+import com.snw.domain.FinancialEntity;
+import com.snw.domain.WalletEntity;
+import com.snw.domain.enumeration.AccountingStatus;
+import com.snw.exception.CreditPipelineSaturatedException;
+import com.snw.exception.FinancialBoundaryException;
+import com.snw.repository.LedgerSequence;
+import com.snw.repository.WalletRepository;
+import com.snw.service.BalanceCache;
+import com.snw.service.FinancialService;
+import com.snw.service.audit.AuditTrail;
+import com.snw.util.StringLongMap;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(classes = com.snw.WalletApplication.class, properties = {
+        "spring.datasource.url=jdbc:h2:mem:engine;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "wallet.engine.enabled=true",
+        "wallet.engine.shards=4"
+})
+class ShardedWalletEngineTest {
+
+    @Autowired
+    private ShardedWalletEngine engine;
+
+    @Autowired
+    private WalletRepository walletRepository;
+
+    @Autowired
+    private FinancialService financialService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private WalletProperties properties;
+
+    @Autowired
+    private BalanceCache balanceCache;
+
+    @Autowired
+    private LedgerSequence ledgerSequence;
+
+    @Autowired
+    private AuditTrail auditTrail;
+
+    private static FinancialEntity getInput(AccountingStatus status, String user, int amount) {
+        return FinancialEntity.builder().status(status).user(user)
+                .amount(new BigDecimal(amount).setScale(2)).build();
+    }
+
+    @Test
+    @SneakyThrows
+    @DisplayName("Concurrent Multi Shard Credits")
+    void TestSubmit_WhenBatchesSpanShards_AllDeltasAreApplied() {
+        // Arrange
+        List<CompletableFuture<List<WalletEntity>>> futures = new ArrayList<>();
+
+        // Act
+        for (int index = 0; index < 50; index++) {
+            List<FinancialEntity> records = new ArrayList<>();
+            for (int user = 0; user < 8; user++) {
+                records.add(getInput(AccountingStatus.CREDITOR, "engine" + user, 10));
+            }
+            futures.add(engine.submit(records));
+        }
+
+        // Assert
+        for (CompletableFuture<List<WalletEntity>> future : futures) {
+            assertThat(future.get(10, TimeUnit.SECONDS)).hasSize(8);
+        }
+        for (int user = 0; user < 8; user++) {
+            assertEquals(new BigDecimal(500).setScale(2),
+                    walletRepository.findById("engine" + user).get().getCredit());
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    @DisplayName("Violation Rejects The Whole Batch")
+    void TestSubmit_WhenOneUserViolatesBoundary_NothingIsApplied() {
+        // Arrange
+        engine.submit(List.of(getInput(AccountingStatus.CREDITOR, "rich", 100))).get(5, TimeUnit.SECONDS);
+
+        // Act
+        CompletableFuture<List<WalletEntity>> rejected = engine.submit(List.of(
+                getInput(AccountingStatus.CREDITOR, "rich", 100),
+                getInput(AccountingStatus.DEBTOR, "poor", 100)));
+
+        // Assert
+        ExecutionException exception = assertThrows(ExecutionException.class,
+                () -> rejected.get(5, TimeUnit.SECONDS));
+        assertThat(exception.getCause()).isInstanceOf(FinancialBoundaryException.class);
+        assertThat(((FinancialBoundaryException) exception.getCause()).getConstraintViolationMap())
+                .containsOnlyKeys("poor");
+
+        List<WalletEntity> wallets = engine.submit(List.of(getInput(AccountingStatus.CREDITOR, "rich", 1)))
+                .get(5, TimeUnit.SECONDS);
+        assertEquals(new BigDecimal(101).setScale(2), wallets.get(0).getCredit());
+        assertFalse(walletRepository.findById("poor").isPresent());
+    }
+
+    @Test
+    @SneakyThrows
+    @DisplayName("Record Edits Invalidate The Cached Balances")
+    void TestSubmit_WhenRecordIsEditedOutsideTheEngine_BoundariesUseTheNewBalance() {
+        // Arrange
+        engine.submit(List.of(getInput(AccountingStatus.CREDITOR, "edited", 100))).get(5, TimeUnit.SECONDS);
+        FinancialEntity saved = financialService.save(getInput(AccountingStatus.CREDITOR, "edited", 50));
+
+        // Act
+        List<WalletEntity> credited = engine.submit(List.of(getInput(AccountingStatus.CREDITOR, "edited", 150)))
+                .get(5, TimeUnit.SECONDS);
+        financialService.updateById(saved.getId(), FinancialEntity.builder()
+                .user("edited").amount(new BigDecimal(20).setScale(2)).build());
+        List<WalletEntity> edited = engine.submit(List.of(getInput(AccountingStatus.CREDITOR, "edited", 1)))
+                .get(5, TimeUnit.SECONDS);
+
+        // Assert
+        assertEquals(new BigDecimal(300).setScale(2), credited.get(0).getCredit());
+        assertEquals(new BigDecimal(271).setScale(2), edited.get(0).getCredit());
+        assertEquals(new BigDecimal(271).setScale(2), walletRepository.findById("edited").get().getCredit());
+    }
+
+    @Test
+    @SneakyThrows
+    @DisplayName("Appends Racing With Stop Are Never Left Pending")
+    void TestAppend_WhenWriterStopsWhileAppending_EveryFutureCompletes() {
+        // Arrange, a writer of its own so the shared one keeps running
+        DatabaseLedgerWriter stopping = new DatabaseLedgerWriter(jdbcTemplate, transactionTemplate, properties,
+                balanceCache, ledgerSequence, auditTrail);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        CountDownLatch appending = new CountDownLatch(4);
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int thread = 0; thread < 4; thread++) {
+            String user = "stopping" + thread;
+            executor.execute(() -> {
+                appending.countDown();
+                for (int index = 0; index < 200; index++) {
+                    StringLongMap deltas = new StringLongMap();
+                    deltas.put(user, 100L);
+                    CompletableFuture<Void> future = stopping.append(
+                            List.of(getInput(AccountingStatus.CREDITOR, user, 1)), deltas);
+                    synchronized (futures) {
+                        futures.add(future);
+                    }
+                }
+            });
+        }
+
+        // Act
+        appending.await();
+        stopping.stop();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        // Assert
+        for (CompletableFuture<Void> future : futures) {
+            try {
+                future.get(10, TimeUnit.SECONDS);
+            } catch (ExecutionException e) {
+                assertThat(e.getCause()).isInstanceOf(CreditPipelineSaturatedException.class);
+            }
+        }
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> stopping
+                .append(List.of(getInput(AccountingStatus.CREDITOR, "stopping0", 1)), new StringLongMap())
+                .get(1, TimeUnit.SECONDS));
+        assertThat(exception.getCause()).isInstanceOf(CreditPipelineSaturatedException.class);
+    }
+}
@@ -0,0 +1,107 @@
+package com.snw.service.idempotency;
+
+import com.snw.WalletApplication;
+import com.snw.domain.FinancialEntity;
+import com.snw.domain.WalletEntity;
+import com.snw.domain.enumeration.AccountingStatus;
+import com.snw.repository.FinancialRepository;
+import com.snw.repository.WalletRepository;
+import com.snw.service.WalletCreditService;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(classes = WalletApplication.class, properties = {
+        "spring.datasource.url=jdbc:h2:mem:idempotency-engine;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "wallet.engine.enabled=true",
+        "wallet.pipeline.enabled=true"
+})
+class EngineIdempotencyTest {
+
+    private static final String INSERT_KEY = "INSERT INTO wallet_idempotency " +
+            "(idempotency_key, fingerprint, response, created_at) VALUES (?, ?, ?, CURRENT_TIMESTAMP())";
+
+    @Autowired
+    private WalletCreditService creditService;
+
+    @Autowired
+    private WalletRepository walletRepository;
+
+    @Autowired
+    private FinancialRepository financialRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private static List<FinancialEntity> getInputList(String user, String amount) {
+        return List.of(FinancialEntity.builder().status(AccountingStatus.CREDITOR).user(user)
+                .amount(new BigDecimal(amount)).build());
+    }
+
+    @Test
+    @SneakyThrows
+    @DisplayName("Key Stored By Another Instance Rolls The Credit Back")
+    void TestCredit_WhenKeyIsStoredDuringTheCredit_CreditIsRolledBackAndReplayed() {
+        // Arrange, another instance applies the same request and holds its key until it commits
+        List<FinancialEntity> records = getInputList("engine-idem1", "10.00");
+        CountDownLatch inserted = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        CompletableFuture<Void> other = CompletableFuture.runAsync(() ->
+                transactionTemplate.executeWithoutResult(status -> {
+                    jdbcTemplate.update(INSERT_KEY, "engine-key-1", IdempotencyService.fingerprint(records),
+                            "{\"engine-idem1\":10.00}");
+                    inserted.countDown();
+                    try {
+                        commit.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }));
+        assertTrue(inserted.await(5, TimeUnit.SECONDS));
+
+        // Act
+        CompletableFuture<List<WalletEntity>> credit =
+                CompletableFuture.supplyAsync(() -> creditService.credit(records, "engine-key-1"));
+        Thread.sleep(300);
+        commit.countDown();
+        other.get(5, TimeUnit.SECONDS);
+        List<WalletEntity> wallets = credit.get(10, TimeUnit.SECONDS);
+
+        // Assert, the response of the other instance and none of this credit
+        assertEquals(new BigDecimal("10.00"), wallets.get(0).getCredit());
+        assertTrue(financialRepository.findByUser("engine-idem1").isEmpty());
+        assertFalse(walletRepository.findById("engine-idem1").isPresent());
+    }
+
+    @Test
+    @SneakyThrows
+    @DisplayName("Keyed Credit Is Seen By The Engine")
+    void TestCredit_WhenKeyedCreditGoesDirect_EngineReloadsTheBalance() {
+        // Arrange
+        creditService.credit(getInputList("engine-idem2", "100.00"));
+
+        // Act
+        creditService.credit(getInputList("engine-idem2", "50.00"), "engine-key-2");
+        List<WalletEntity> wallets = creditService.credit(getInputList("engine-idem2", "150.00"));
+
+        // Assert
+        assertEquals(new BigDecimal("300.00"), wallets.get(0).getCredit());
+        assertEquals(new BigDecimal("300.00"), walletRepository.findById("engine-idem2").get().getCredit());
+        assertEquals(3, financialRepository.findByUser("engine-idem2").size());
+    }
+}
@@ -0,0 +1,204 @@
+package com.snw.service.idempotency;
+
+import com.snw.WalletApplication;
+import com.snw.domain.FinancialEntity;
+import com.snw.domain.IdempotencyKeyEntity;
+import com.snw.domain.WalletEntity;
+import com.snw.domain.enumeration.AccountingStatus;
+import com.snw.exception.IdempotencyKeyConflictException;
+import com.snw.exception.IdempotencyKeyInUseException;
+import com.snw.repository.FinancialRepository;
+import com.snw.repository.IdempotencyKeyRepository;
+import com.snw.service.WalletCreditService;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@AutoConfigureMockMvc
+@SpringBootTest(classes = WalletApplication.class, properties = {
+        "spring.datasource.url=jdbc:h2:mem:idempotency;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE"
+})
+class IdempotencyServiceTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private WalletCreditService creditService;
+
+    @Autowired
+    private FinancialRepository financialRepository;
+
+    @Autowired
+    private IdempotencyKeyRepository keyRepository;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    private static String body(String user, String amount) {
+        return "[{\"status\":\"CREDITOR\",\"user\":\"" + user + "\",\"amount\":" + amount + "}]";
+    }
+
+    @SneakyThrows
+    private void post(String key, String body, int status) {
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/wallet")
+                        .header("Idempotency-Key", key)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(MockMvcResultMatchers.status().is(status));
+    }
+
+    @Test
+    @SneakyThrows
+    @DisplayName("Retried Credit Is Applied Once")
+    void TestAddCredit_WhenRetriedWithSameKey_ShouldReplayFirstResponse() {
+        // Arrange
+        post("key-1", body("idem1", "10.00"), 201);
+
+        // Act & Assert
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/wallet")
+                        .header("Idempotency-Key", "key-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body("idem1", "10.00")))
+                .andExpect(MockMvcResultMatchers.status().isCreated())
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].user").value("idem1"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].credit").value(10.0));
+        assertEquals(1, financialRepository.findByUser("idem1").size());
+        assertTrue(keyRepository.existsById("key-1"));
+    }
+
+    @Test
+    @DisplayName("Key Reused For Another Request")
+    void TestAddCredit_WhenKeyIsReusedWithOtherRecords_ShouldReturnUnprocessableEntity() {
+        // Arrange
+        post("key-2", body("idem2", "10.00"), 201);
+
+        // Act & Assert
+        post("key-2", body("idem2", "20.00"), 422);
+        assertEquals(1, financialRepository.findByUser("idem2").size());
+    }
+
+    @Test
+    @DisplayName("Replay From The Key Table")
+    void TestAddCredit_WhenKeyIsOnlyStored_ShouldReplayStoredResponse() {
+        // Arrange, as after a restart or when applied by another instance
+        List<FinancialEntity> records = List.of(FinancialEntity.builder().status(AccountingStatus.CREDITOR)
+                .user("idem3").amount(new BigDecimal("7.00")).build());
+        keyRepository.save(IdempotencyKeyEntity.builder().key("key-3")
+                .fingerprint(IdempotencyService.fingerprint(records))
+                .response("{\"idem3\":7.00}")
+                .createdAt(Instant.now())
+                .build());
+
+        // Act
+        post("key-3", body("idem3", "7.00"), 201);
+
+        // Assert
+        assertTrue(financialRepository.findByUser("idem3").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Rejected Credit Releases The Key")
+    void TestAddCredit_WhenCreditIsRejected_ShouldNotStoreKey() {
+        // Act
+        post("key-4", "[{\"status\":\"DEBTOR\",\"user\":\"idem4\",\"amount\":1.00}]", 400);
+        post("key-4", "[{\"status\":\"DEBTOR\",\"user\":\"idem4\",\"amount\":1.00}]", 400);
+
+        // Assert
+        assertFalse(keyRepository.existsById("key-4"));
+    }
+
+    @Test
+    @SneakyThrows
+    @DisplayName("Concurrent Duplicates Are Applied Once")
+    void TestCredit_WhenDuplicatesRunConcurrently_ShouldApplyOnce() {
+        // Arrange
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        Callable<Boolean> credit = () -> {
+            try {
+                creditService.credit(List.of(FinancialEntity.builder().status(AccountingStatus.CREDITOR)
+                        .user("idem5").amount(new BigDecimal("5.00")).build()), "key-5");
+                return true;
+            } catch (IdempotencyKeyInUseException e) {
+                return false;
+            }
+        };
+
+        // Act
+        List<Future<Boolean>> futures = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            futures.add(executor.submit(credit));
+        }
+        int succeeded = 0;
+        for (Future<Boolean> future : futures) {
+            try {
+                succeeded += future.get() ? 1 : 0;
+            } catch (ExecutionException e) {
+                fail(e.getCause());
+            }
+        }
+        executor.shutdown();
+
+        // Assert
+        assertTrue(succeeded >= 1);
+        assertEquals(1, financialRepository.findByUser("idem5").size());
+    }
+
+    @Test
+    @DisplayName("Key Stored By Another Instance Is Replayed, Not Retried")
+    void TestExecute_WhenKeyIsStoredDuringTheCredit_ShouldReplayStoredResponseWithoutRetry() {
+        // Arrange
+        List<FinancialEntity> records = List.of(FinancialEntity.builder().status(AccountingStatus.CREDITOR)
+                .user("idem6").amount(new BigDecimal("6.00")).build());
+        AtomicInteger attempts = new AtomicInteger();
+        AtomicReference<RuntimeException> conflict = new AtomicReference<>();
+
+        // Act
+        List<WalletEntity> wallets = idempotencyService.execute("key-6", records, claim -> {
+            attempts.incrementAndGet();
+            // Another instance applies the same request and stores the key first
+            keyRepository.save(IdempotencyKeyEntity.builder().key("key-6")
+                    .fingerprint(IdempotencyService.fingerprint(records))
+                    .response("{\"idem6\":6.00}")
+                    .createdAt(Instant.now())
+                    .build());
+            try {
+                idempotencyService.persist(claim, List.of(new WalletEntity("idem6", new BigDecimal("12.00"))));
+            } catch (RuntimeException e) {
+                conflict.set(e);
+                throw e;
+            }
+            return List.of();
+        });
+
+        // Assert
+        assertEquals(1, attempts.get());
+        assertInstanceOf(IdempotencyKeyConflictException.class, conflict.get());
+        // Not retried by the optimistic retry of WalletCreditService
+        assertFalse(conflict.get() instanceof DataIntegrityViolationException);
+        assertEquals(1, wallets.size());
+        assertEquals(new BigDecimal("6.00"), wallets.get(0).getCredit());
+    }
+}
@@ -0,0 +1,183 @@
+package com.snw.service.lock;
+
+import com.snw.WalletApplication;
+import com.snw.domain.FinancialEntity;
+import com.snw.domain.WalletEntity;
+import com.snw.domain.enumeration.AccountingStatus;
+import com.snw.domain.enumeration.LockOperation;
+import com.snw.service.BalanceCheckpointService;
+import com.snw.service.WalletService;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.*;
+
+@AutoConfigureMockMvc
+@SpringBootTest(classes = WalletApplication.class, properties = {
+        "spring.datasource.url=jdbc:h2:mem:locks;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE;LOCK_TIMEOUT=10000",
+        "wallet.balance.checkpoint.enabled=false",
+        "wallet.lock.chunk-size=2",
+        "wallet.lock.timeouts.credit.mode=NOWAIT",
+        "wallet.lock.timeouts.import.timeout=5s"
+})
+class PessimisticLocksTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PessimisticLocks locks;
+
+    @Autowired
+    private LockContention contention;
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private BalanceCheckpointService checkpointService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private void credit(String... users) {
+        for (String user : users) {
+            walletService.updateCredit(List.of(FinancialEntity.builder().status(AccountingStatus.CREDITOR)
+                    .user(user).amount(new BigDecimal("1.00")).build()));
+        }
+    }
+
+    // Holds the lock taken by the action until the returned latch is released
+    @SneakyThrows
+    private CountDownLatch hold(ExecutorService executor, Runnable lock) {
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        executor.submit(() -> transactionTemplate.executeWithoutResult(status -> {
+            lock.run();
+            locked.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        assertTrue(locked.await(5, TimeUnit.SECONDS));
+        return release;
+    }
+
+    @Test
+    @DisplayName("Wallets Are Locked In User Order By Chunks")
+    void TestLockWallets_WhenUsersSpanSeveralChunks_ShouldReturnEveryWalletInUserOrder() {
+        // Arrange
+        credit("order5", "order3", "order1", "order4", "order2");
+
+        // Act
+        List<WalletEntity> wallets = transactionTemplate.execute(status ->
+                locks.lockWallets(LockOperation.CREDIT, List.of("order4", "order2", "missing", "order5", "order1",
+                        "order3")));
+
+        // Assert
+        assertEquals(List.of("order1", "order2", "order3", "order4", "order5"),
+                wallets.stream().map(WalletEntity::getUser).collect(Collectors.toList()));
+    }
+
+    @Test
+    @SneakyThrows
+    @DisplayName("NOWAIT Fails Right Away And Is Reported")
+    void TestLockWallets_WhenNowaitAndWalletIsLocked_ShouldFailWithoutWaiting() {
+        // Arrange
+        credit("nowait1");
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        CountDownLatch release = hold(executor, () -> locks.lockWallets(LockOperation.IMPORT, List.of("nowait1")));
+
+        // Act
+        long start = System.nanoTime();
+        assertThrows(PessimisticLockingFailureException.class, () -> transactionTemplate.executeWithoutResult(
+                status -> locks.lockWallets(LockOperation.CREDIT, List.of("nowait1"))));
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        release.countDown();
+        executor.shutdown();
+
+        // Assert, far below the 10 s of the connection
+        assertTrue(millis < 2000, "NOWAIT waited " + millis + " ms");
+        assertEquals(10000, jdbcTemplate.queryForObject("CALL LOCK_TIMEOUT()", Integer.class));
+        Map<String, Object> report = contention.report();
+        assertTrue(((Map<?, ?>) report.get("users")).containsKey("nowait1"));
+        assertTrue((Long) ((Map<?, ?>) ((Map<?, ?>) report.get("operations")).get("CREDIT")).get("failures") >= 1);
+    }
+
+    @Test
+    @SneakyThrows
+    @DisplayName("Checkpoint Skips A Locked State")
+    void TestCheckpoint_WhenStateIsLocked_ShouldSkipInsteadOfWaiting() {
+        // Arrange
+        credit("skip1");
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        CountDownLatch release = hold(executor, () -> locks.lockCheckpointState(LockOperation.RECORD));
+
+        // Act
+        long start = System.nanoTime();
+        int checkpoints = checkpointService.checkpoint();
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        release.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+
+        // Assert
+        assertEquals(0, checkpoints);
+        assertTrue(millis < 2000, "Checkpoint waited " + millis + " ms");
+        assertTrue(checkpointService.checkpoint() > 0);
+        assertFalse(((Map<?, ?>) contention.report().get("users")).containsKey("1"));
+    }
+
+    @Test
+    @SneakyThrows
+    @DisplayName("Contention Report Shows The Waiters")
+    void TestLocksEndpoint_WhenImportWaitsForWallet_ShouldReportWaiterAndBlockedSession() {
+        // Arrange
+        credit("wait1");
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        CountDownLatch release = hold(executor, () -> locks.lockWallets(LockOperation.IMPORT, List.of("wait1")));
+        Future<?> waiter = executor.submit(() -> transactionTemplate.executeWithoutResult(
+                status -> locks.lockWallets(LockOperation.IMPORT, List.of("wait1"))));
+        for (int attempt = 0; attempt < 100 && ((List<?>) contention.report().get("waiting")).isEmpty(); attempt++) {
+            Thread.sleep(20);
+        }
+
+        // Act & Assert
+        mockMvc.perform(MockMvcRequestBuilders.get("/actuator/locks"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.waiting", hasSize(1)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.waiting[0].operation").value("IMPORT"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.waiting[0].keys[0]").value("wait1"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.blockedSessions", hasSize(1)));
+
+        release.countDown();
+        waiter.get(5, TimeUnit.SECONDS);
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,85 @@
+package com.snw.service.lock;
+
+import com.snw.config.WalletProperties;
+import com.snw.exception.UserLockTimeoutException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StripedUserLockTest {
+
+    private static StripedUserLock createLock(Duration maxWait) {
+        WalletProperties properties = new WalletProperties();
+        properties.getLock().getStriping().setEnabled(true);
+        properties.getLock().getStriping().setStripes(64);
+        properties.getLock().getStriping().setMaxWait(maxWait);
+        return new StripedUserLock(properties, new SimpleMeterRegistry());
+    }
+
+    @Test
+    @SneakyThrows
+    @DisplayName("Overlapping Batches Do Not Deadlock")
+    void TestExecuteLocked_WhenBatchesOverlapInReverseOrder_AllBatchesComplete() {
+        // Arrange
+        StripedUserLock lock = createLock(Duration.ofSeconds(5));
+        AtomicInteger completed = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        // Act
+        for (int index = 0; index < 200; index++) {
+            List<String> users = index % 2 == 0 ? List.of("user1", "user2", "user3") : List.of("user3", "user2", "user1");
+            executor.submit(() -> lock.executeLocked(users, completed::incrementAndGet));
+        }
+        executor.shutdown();
+
+        // Assert
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS), "Batches should not deadlock");
+        assertEquals(200, completed.get());
+        assertEquals(200, lock.getAcquisitions());
+    }
+
+    @Test
+    @SneakyThrows
+    @DisplayName("Bounded Wait On Hot User")
+    void TestExecuteLocked_WhenUserIsHeldLongerThanMaxWait_ShouldThrowUserLockTimeoutException() {
+        // Arrange
+        StripedUserLock lock = createLock(Duration.ofMillis(100));
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        Future<Object> holder = executor.submit(() -> lock.executeLocked(List.of("user1"), () -> {
+            locked.countDown();
+            try {
+                return release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        }));
+        locked.await();
+
+        // Act and Assert
+        assertThrows(UserLockTimeoutException.class, () -> lock.executeLocked(List.of("user1"), () -> null));
+        assertEquals(1, lock.getTimeouts());
+        assertEquals(1, lock.getContentions());
+
+        release.countDown();
+        holder.get();
+        executor.shutdown();
+
+        // The stripe is free again once the holder completes
+        assertDoesNotThrow(() -> lock.executeLocked(List.of("user1"), () -> null));
+    }
+}
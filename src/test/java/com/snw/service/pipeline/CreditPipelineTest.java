@@ -0,0 +1,125 @@
+package com.snw.service.pipeline;
+
+import com.snw.config.WalletProperties;
+import com.snw.domain.FinancialEntity;
+import com.snw.domain.WalletEntity;
+import com.snw.domain.enumeration.AccountingStatus;
+import com.snw.exception.CreditPipelineSaturatedException;
+import com.snw.exception.FinancialBoundaryException;
+import com.snw.repository.WalletRepository;
+import com.snw.service.WalletService;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(classes = com.snw.WalletApplication.class, properties = {
+        "spring.datasource.url=jdbc:h2:mem:pipeline;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "wallet.pipeline.enabled=true",
+        "wallet.pipeline.max-linger=50ms"
+})
+class CreditPipelineTest {
+
+    @Autowired
+    private CreditPipeline pipeline;
+
+    @Autowired
+    private WalletRepository walletRepository;
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private WalletProperties properties;
+
+    private static List<FinancialEntity> getInputList(AccountingStatus status, String user, int amount) {
+        return List.of(FinancialEntity.builder().status(status).user(user)
+                .amount(new BigDecimal(amount).setScale(2)).build());
+    }
+
+    @Test
+    @SneakyThrows
+    @DisplayName("Coalesced Requests Keep Their Own Results")
+    void TestSubmit_WhenRequestsAreCoalesced_EachCallerGetsItsOwnResult() {
+        // Arrange
+        List<CompletableFuture<List<WalletEntity>>> futures = new ArrayList<>();
+
+        // Act
+        for (int index = 0; index < 10; index++) {
+            futures.add(pipeline.submit(getInputList(AccountingStatus.CREDITOR, "user1", 100)));
+        }
+        CompletableFuture<List<WalletEntity>> rejected =
+                pipeline.submit(getInputList(AccountingStatus.DEBTOR, "user2", 100));
+
+        // Assert
+        for (int index = 0; index < futures.size(); index++) {
+            List<WalletEntity> wallets = futures.get(index).get(5, TimeUnit.SECONDS);
+            assertThat(wallets).hasSize(1);
+            assertEquals(new BigDecimal(100 * (index + 1)).setScale(2), wallets.get(0).getCredit());
+        }
+
+        ExecutionException exception = assertThrows(ExecutionException.class,
+                () -> rejected.get(5, TimeUnit.SECONDS));
+        assertThat(exception.getCause()).isInstanceOf(FinancialBoundaryException.class);
+
+        assertEquals(new BigDecimal(1000).setScale(2), walletRepository.findById("user1").get().getCredit());
+        assertFalse(walletRepository.findById("user2").isPresent());
+    }
+
+    @Test
+    @SneakyThrows
+    @DisplayName("Requests Racing With Stop Are Never Left Pending")
+    void TestSubmit_WhenPipelineStopsWhileSubmitting_EveryFutureCompletes() {
+        // Arrange, a pipeline of its own so the shared one keeps running
+        CreditPipeline stopping = new CreditPipeline(walletService, properties);
+        stopping.start();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        CountDownLatch submitting = new CountDownLatch(4);
+        List<CompletableFuture<List<WalletEntity>>> futures = new ArrayList<>();
+        for (int thread = 0; thread < 4; thread++) {
+            String user = "stopping" + thread;
+            executor.execute(() -> {
+                submitting.countDown();
+                for (int index = 0; index < 200; index++) {
+                    CompletableFuture<List<WalletEntity>> future =
+                            stopping.submit(getInputList(AccountingStatus.CREDITOR, user, 1));
+                    synchronized (futures) {
+                        futures.add(future);
+                    }
+                }
+            });
+        }
+
+        // Act
+        submitting.await();
+        stopping.stop();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        // Assert
+        for (CompletableFuture<List<WalletEntity>> future : futures) {
+            try {
+                future.get(10, TimeUnit.SECONDS);
+            } catch (ExecutionException e) {
+                assertThat(e.getCause()).isInstanceOf(CreditPipelineSaturatedException.class);
+            }
+        }
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> stopping
+                .submit(getInputList(AccountingStatus.CREDITOR, "stopping0", 1)).get(1, TimeUnit.SECONDS));
+        assertThat(exception.getCause()).isInstanceOf(CreditPipelineSaturatedException.class);
+    }
+}
@@ -0,0 +1,70 @@
+package com.snw.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CentsTest {
+
+    @Test
+    @DisplayName("Cents Round Trip")
+    void TestOfAndToAmount_WhenScaleIsAtMostTwo_ShouldRoundTrip() {
+        // Arrange
+        String[] amounts = {"0.00", "0.01", "12.50", "-45.00", "999999.99", "1000000.00"};
+
+        for (String amount : amounts) {
+            // Act
+            long cents = Cents.of(new BigDecimal(amount));
+
+            // Assert
+            assertEquals(new BigDecimal(amount), Cents.toAmount(cents));
+        }
+        assertEquals(1250L, Cents.of(new BigDecimal("12.5")));
+        assertEquals(1200L, Cents.of(new BigDecimal("12")));
+        assertEquals(1200L, Cents.of(new BigDecimal("12.000")));
+    }
+
+    @Test
+    @DisplayName("More Than Two Decimals Rejected")
+    void TestOf_WhenScaleIsAboveTwo_ShouldThrowIllegalArgument() {
+        // Act and Assert
+        IllegalArgumentException exception =
+                assertThrows(IllegalArgumentException.class, () -> Cents.of(new BigDecimal("10.005")));
+        assertEquals("Record amount cannot have more than 2 decimal places", exception.getMessage());
+    }
+
+    @Test
+    @DisplayName("Amount Beyond Long Rejected")
+    void TestOf_WhenAmountDoesNotFitInLong_ShouldThrowIllegalArgument() {
+        // Arrange
+        BigDecimal amount = BigDecimal.valueOf(Long.MAX_VALUE);
+
+        // Act and Assert
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> Cents.of(amount));
+        assertEquals("Record amount is out of range", exception.getMessage());
+        assertEquals("Record amount cannot have more than 2 decimal places",
+                assertThrows(IllegalArgumentException.class,
+                        () -> Cents.of(new BigDecimal("92233720368547758.075"))).getMessage());
+    }
+
+    @Test
+    @DisplayName("Round Half Up To Two Decimals")
+    void TestRound_WhenScaleIsAboveTwo_ShouldRoundHalfUp() {
+        // Act and Assert
+        assertEquals(1001L, Cents.round(new BigDecimal("10.005")));
+        assertEquals(1000L, Cents.round(new BigDecimal("10.004")));
+        assertEquals(-1001L, Cents.round(new BigDecimal("-10.005")));
+        assertEquals(1250L, Cents.round(new BigDecimal("12.5")));
+    }
+
+    @Test
+    @DisplayName("Overflowing Sum Rejected")
+    void TestAdd_WhenSumOverflows_ShouldThrowArithmetic() {
+        // Act and Assert
+        assertEquals(3L, Cents.add(1L, 2L));
+        assertThrows(ArithmeticException.class, () -> Cents.add(Long.MAX_VALUE, 1L));
+    }
+}